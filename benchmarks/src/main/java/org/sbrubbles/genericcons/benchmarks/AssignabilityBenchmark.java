@@ -0,0 +1,83 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import com.coekie.gentyref.GenericTypeReflector;
+import com.coekie.gentyref.TypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whether a runtime class is assignable to a declared type, with the assignability cache off: through
+ * {@code Types.check}, or straight through gentyref, as {@code Types.check} used to.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignabilityBenchmark {
+  private static final class Strings extends ArrayList<String> { /**/ }
+
+  @Param({ "class", "raw", "unbounded", "arguments", "wildcards", "array" })
+  private String scenario;
+
+  private Type type;
+  private Object object;
+  private int capacity;
+
+  @Setup
+  public void setUp() {
+    switch (scenario) {
+      case "class":
+        type = Collection.class;
+        object = new ArrayList<>();
+        break;
+      case "raw":
+        type = TypeFactory.parameterizedClass(List.class, String.class);
+        object = new ArrayList<>();
+        break;
+      case "unbounded":
+        type = TypeFactory.parameterizedClass(Collection.class, TypeFactory.unboundWildcard());
+        object = new Strings();
+        break;
+      case "arguments":
+        type = TypeFactory.parameterizedClass(Comparable.class, String.class);
+        object = "";
+        break;
+      case "wildcards":
+        type = TypeFactory.parameterizedClass(Collection.class, TypeFactory.wildcardExtends(CharSequence.class));
+        object = new Strings();
+        break;
+      case "array":
+        type = TypeFactory.arrayOf(TypeFactory.parameterizedClass(Comparable.class, String.class));
+        object = new String[0];
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    }
+
+    capacity = Types.getAssignabilityCacheCapacity();
+    Types.setAssignabilityCacheCapacity(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Types.setAssignabilityCacheCapacity(capacity);
+  }
+
+  @Benchmark
+  public boolean check() {
+    return Types.check(type, object);
+  }
+
+  @Benchmark
+  public boolean gentyref() {
+    return GenericTypeReflector.isSuperType(type, object.getClass());
+  }
+}
@@ -0,0 +1,101 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import com.coekie.gentyref.TypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.BatchResult;
+import org.sbrubbles.genericcons.TypeChecker;
+import org.sbrubbles.genericcons.Types;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking a batch of rows against one signature: one {@code Types.check} per row, one {@code TypeChecker.check} per
+ * row, and the batch methods, row by row and column by column, with and without a pool.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+  @Param({ "1000", "100000" })
+  private int rows;
+
+  private TypeChecker checker;
+  private List<List<?>> rowList;
+  private Object[][] columns;
+
+  @Setup
+  public void setUp() {
+    checker = Types.compile(Arrays.asList(
+      String.class,
+      Number.class,
+      TypeFactory.parameterizedClass(List.class, String.class)));
+
+    Object[][] samples = {
+      { "", 1, new ArrayList<>() },
+      { "", 1.0, null },
+      { "", "", new ArrayList<>() },
+    };
+
+    rowList = new ArrayList<>(rows);
+    columns = new Object[3][rows];
+    for (int r = 0; r < rows; r++) {
+      Object[] row = samples[r % samples.length];
+
+      rowList.add(Arrays.asList(row));
+      for (int i = 0; i < row.length; i++) {
+        columns[i][r] = row[i];
+      }
+    }
+  }
+
+  @Benchmark
+  public int perRowTypesCheck() {
+    int passed = 0;
+    for (List<?> row : rowList) {
+      if (Types.check(checker.types(), row)) {
+        passed++;
+      }
+    }
+
+    return passed;
+  }
+
+  @Benchmark
+  public int perRowCompiled() {
+    int passed = 0;
+    for (List<?> row : rowList) {
+      if (checker.check(row)) {
+        passed++;
+      }
+    }
+
+    return passed;
+  }
+
+  @Benchmark
+  public BatchResult checkAll() {
+    return checker.checkAll(rowList);
+  }
+
+  @Benchmark
+  public BatchResult checkAllParallel() {
+    return checker.checkAll(rowList, ForkJoinPool.commonPool());
+  }
+
+  @Benchmark
+  public BatchResult checkColumns() {
+    return checker.checkColumns(columns, 0, rows);
+  }
+
+  @Benchmark
+  public BatchResult checkColumnsParallel() {
+    return checker.checkColumns(columns, 0, rows, ForkJoinPool.commonPool());
+  }
+}
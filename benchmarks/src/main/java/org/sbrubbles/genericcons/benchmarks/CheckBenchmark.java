@@ -0,0 +1,94 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import com.coekie.gentyref.TypeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.AdaptiveTypeChecker;
+import org.sbrubbles.genericcons.TypeChecker;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Types.check}, {@code TypeChecker.check} and {@code AdaptiveTypeChecker.check}, over arguments that match,
+ * don't match, are null, or are checked against interfaces or generic types.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckBenchmark {
+  @Param({ "matching", "mismatching", "nulls", "interfaces", "generic" })
+  private String scenario;
+
+  private List<? extends Type> types;
+  private Object[] objects;
+  private List<Object> objectList;
+  private TypeChecker checker;
+  private AdaptiveTypeChecker adaptiveChecker;
+
+  @Setup
+  public void setUp() {
+    switch (scenario) {
+      case "matching":
+        types = Arrays.asList(String.class, Number.class, Object.class);
+        objects = new Object[] { "", 1, new Object() };
+        break;
+      case "mismatching":
+        types = Arrays.asList(String.class, Number.class, Object.class);
+        objects = new Object[] { "", "", new Object() };
+        break;
+      case "nulls":
+        types = Arrays.asList(String.class, Number.class, Object.class);
+        objects = new Object[] { null, null, null };
+        break;
+      case "interfaces":
+        types = Arrays.asList(CharSequence.class, Collection.class, Runnable.class);
+        objects = new Object[] { new StringBuilder(), new ArrayList<>(), new HashMap<>() }; // the last one misses
+        break;
+      case "generic":
+        types = Arrays.asList(
+          TypeFactory.parameterizedClass(List.class, String.class),
+          TypeFactory.parameterizedClass(Comparable.class, String.class),
+          TypeFactory.parameterizedClass(Map.class, String.class, Integer.class));
+        objects = new Object[] { new ArrayList<>(), "", new HashMap<>() };
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    }
+
+    objectList = Arrays.asList(objects);
+    checker = Types.compile(types);
+    adaptiveChecker = Types.compileAdaptive(types);
+  }
+
+  @Benchmark
+  public boolean checkSingle() {
+    return Types.check(types.get(0), objects[0]);
+  }
+
+  @Benchmark
+  public boolean checkLists() {
+    return Types.check(types, objectList);
+  }
+
+  @Benchmark
+  public boolean checkArray() {
+    return Types.check(types, objects, 0, objects.length);
+  }
+
+  @Benchmark
+  public boolean checkCompiled() {
+    return checker.check(objects);
+  }
+
+  @Benchmark
+  public boolean checkAdaptive() {
+    return adaptiveChecker.check(objects);
+  }
+}
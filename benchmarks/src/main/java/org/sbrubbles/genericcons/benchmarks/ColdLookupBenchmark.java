@@ -0,0 +1,100 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.SignatureTable;
+import org.sbrubbles.genericcons.Types;
+import org.sbrubbles.genericcons.benchmarks.cold.ColdFixtures;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first {@code Types.fromSuperclass} and {@code Types.fromInterface} on each of a few freshly loaded classes, with
+ * and without their package's generated {@link SignatureTable}; without it, the signatures come from reflection.
+ * The classes are loaded anew, from the benchmarks jar, for each iteration, so nothing about them is cached yet.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColdLookupBenchmark {
+  @Param({ "true", "false" })
+  public boolean table;
+
+  private final List<String> names = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    for (Class<?> fixture : ColdFixtures.class.getClasses()) {
+      if (fixture.getSuperclass() == ColdFixtures.Base.class) {
+        names.add(fixture.getName());
+      }
+    }
+  }
+
+  @Benchmark
+  public int loadAndLookUp() throws ClassNotFoundException {
+    ClassLoader loader = new FixtureLoader(table);
+    int result = 0;
+
+    for (String name : names) {
+      Class<?> c = Class.forName(name, false, loader);
+      result += Types.fromSuperclass(c, 1).size() + Types.fromInterface(c, 0).size();
+    }
+
+    return result;
+  }
+
+  @Benchmark
+  public int loadOnly() throws ClassNotFoundException {
+    ClassLoader loader = new FixtureLoader(table);
+    int result = 0;
+
+    for (String name : names) {
+      result += Class.forName(name, false, loader).getModifiers();
+    }
+
+    return result;
+  }
+
+  // loads the fixtures itself, hiding their table if asked to
+  private static final class FixtureLoader extends URLClassLoader {
+    private static final String PACKAGE = ColdFixtures.class.getPackage().getName() + ".";
+
+    private final boolean withTable;
+
+    FixtureLoader(boolean withTable) {
+      super(new URL[] { ColdFixtures.class.getProtectionDomain().getCodeSource().getLocation() },
+        ColdFixtures.class.getClassLoader());
+
+      this.withTable = withTable;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith(PACKAGE)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+          if (!withTable && name.equals(PACKAGE + SignatureTable.SIMPLE_NAME)) {
+            throw new ClassNotFoundException(name);
+          }
+
+          result = findClass(name);
+        }
+
+        return result;
+      }
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Types.cons}, over lists of increasing length, with and without interning.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsBenchmark {
+  @Param({ "1", "10", "100", "1000" })
+  private int length;
+
+  @Param({ "false", "true" })
+  private boolean interned;
+
+  private List<Type> types;
+  private boolean previous;
+
+  @Setup
+  public void setUp() {
+    types = Fixtures.types(length);
+
+    previous = Types.isConsInterning();
+    Types.setConsInterning(interned);
+  }
+
+  @TearDown
+  public void tearDown() {
+    Types.setConsInterning(previous);
+  }
+
+  @Benchmark
+  public Type cons() {
+    return Types.cons(types);
+  }
+}
@@ -0,0 +1,83 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Dispatcher;
+import org.sbrubbles.genericcons.TypeChecker;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing a call among many handlers: a linear scan with {@code Types.check}, a linear scan with compiled checkers,
+ * and a {@link Dispatcher}.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+  @Param({ "8", "64" })
+  private int handlers;
+
+  private List<List<? extends Type>> signatures;
+  private List<TypeChecker> checkers;
+  private Dispatcher<List<? extends Type>> dispatcher;
+  private Object[] arguments;
+
+  @Setup
+  public void setUp() {
+    Class<?>[] pool = { Object.class, Number.class, Integer.class, CharSequence.class, String.class, List.class };
+
+    // every pair from the pool, and then some triples, so there's a little of everything
+    signatures = new ArrayList<>();
+    for (int i = 0; signatures.size() < handlers; i++) {
+      Class<?> a = pool[i % pool.length];
+      Class<?> b = pool[(i / pool.length) % pool.length];
+
+      signatures.add((i / (pool.length * pool.length)) % 2 == 0
+        ? Arrays.asList(a, b)
+        : Arrays.asList(a, b, Object.class));
+    }
+
+    checkers = new ArrayList<>();
+    for (List<? extends Type> signature : signatures) {
+      checkers.add(Types.compile(signature));
+    }
+
+    dispatcher = Types.dispatcher(signatures, s -> s);
+    arguments = new Object[] { 1, "" };
+  }
+
+  @Benchmark
+  public Object linearScan() {
+    for (List<? extends Type> signature : signatures) {
+      if (Types.check(signature, Arrays.asList(arguments))) {
+        return signature; // the first, not the most specific; cheaper still than what a real scan would do
+      }
+    }
+
+    return null;
+  }
+
+  @Benchmark
+  public Object linearScanCompiled() {
+    for (TypeChecker checker : checkers) {
+      if (checker.check(arguments)) {
+        return checker;
+      }
+    }
+
+    return null;
+  }
+
+  @Benchmark
+  public Object dispatch() {
+    return dispatcher.mostSpecific(arguments);
+  }
+}
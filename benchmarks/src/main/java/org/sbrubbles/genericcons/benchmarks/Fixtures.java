@@ -0,0 +1,64 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import com.coekie.gentyref.TypeFactory;
+import org.sbrubbles.genericcons.C;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Types and classes shared by the benchmarks.
+ *
+ * @author Humberto Anjos
+ */
+final class Fixtures {
+  private Fixtures() { /* preventing instantiation */ }
+
+  /**
+   * A function whose argument types are declared in {@code Args}, as in the README.
+   */
+  abstract static class Fn<Result, Args> {
+    abstract Result execute(Object... objects);
+  }
+
+  /**
+   * {@link Fn} as an interface.
+   */
+  interface IFn<Result, Args> {
+    Result execute(Object... objects);
+  }
+
+  static final Fn<Integer, C<String, C<String, String>>> FN = new Fn<Integer, C<String, C<String, String>>>() {
+    @Override
+    Integer execute(Object... objects) {
+      return objects.length;
+    }
+  };
+
+  static final IFn<Integer, C<String, C<String, String>>> IFN = new IFn<Integer, C<String, C<String, String>>>() {
+    @Override
+    public Integer execute(Object... objects) {
+      return objects.length;
+    }
+  };
+
+  static final Type LIST_OF_DOUBLE = TypeFactory.parameterizedClass(List.class, Double.class);
+
+  /**
+   * Returns a list of {@code length} assorted types, some of them generic.
+   *
+   * @param length how many types to return.
+   * @return a list of {@code length} assorted types.
+   */
+  static List<Type> types(int length) {
+    Type[] pool = { String.class, Integer.class, LIST_OF_DOUBLE, Object.class };
+
+    List<Type> result = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      result.add(pool[i % pool.length]);
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,51 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Types.fromSuperclass} and {@code Types.fromInterface}, with the uncached path through {@code Types.from} as
+ * a baseline.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FromBenchmark {
+  private final Class<?> superclassFn = Fixtures.FN.getClass();
+  private final Class<?> interfaceFn = Fixtures.IFN.getClass();
+  private final Type[] buffer = new Type[8];
+
+  @Benchmark
+  public List<? extends Type> fromSuperclass() {
+    return Types.fromSuperclass(superclassFn, 1);
+  }
+
+  @Benchmark
+  public int fromSuperclassIntoBuffer() {
+    return Types.fromSuperclass(superclassFn, 1, buffer);
+  }
+
+  @Benchmark
+  public List<? extends Type> fromInterface() {
+    return Types.fromInterface(interfaceFn, 1);
+  }
+
+  @Benchmark
+  public int fromInterfaceIntoBuffer() {
+    return Types.fromInterface(interfaceFn, 1, buffer);
+  }
+
+  @Benchmark
+  public List<? extends Type> fromGenericSuperclass() {
+    return Types.from(Types.genericSuperclassOf(superclassFn).get(), 1);
+  }
+}
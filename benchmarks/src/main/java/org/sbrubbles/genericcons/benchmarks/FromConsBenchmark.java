@@ -0,0 +1,66 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Types.fromCons}, over conses of increasing length, built with and without interning, or as wide as possible.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FromConsBenchmark {
+  @Param({ "1", "10", "100", "1000" })
+  private int length;
+
+  @Param({ "plain", "interned", "wide" })
+  private String encoding;
+
+  private Type cons;
+  private Type[] buffer;
+
+  @Setup
+  public void setUp() {
+    boolean previous = Types.isConsInterning();
+    try {
+      switch (encoding) {
+        case "plain":
+          Types.setConsInterning(false);
+          cons = Types.cons(Fixtures.types(length));
+          break;
+        case "interned":
+          Types.setConsInterning(true);
+          cons = Types.cons(Fixtures.types(length));
+          break;
+        case "wide":
+          cons = Types.wideCons(Fixtures.types(length));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown encoding: " + encoding);
+      }
+    } finally {
+      Types.setConsInterning(previous);
+    }
+
+    buffer = new Type[length];
+  }
+
+  @Benchmark
+  public List<? extends Type> fromCons() {
+    return Types.fromCons(cons);
+  }
+
+  @Benchmark
+  public int fromConsIntoBuffer() {
+    return Types.fromCons(cons, buffer);
+  }
+}
@@ -0,0 +1,33 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks through JMH's own {@code Main}, but with the GC profiler on by default, since allocation rates
+ * matter as much as timings here. Any other {@code -prof} given on the command line replaces it.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                  # everything, with -prof gc
+ * java -jar benchmarks/target/benchmarks.jar CheckBenchmark   # only the check benchmarks
+ * java -jar benchmarks/target/benchmarks.jar -prof stack      # some other profiler instead
+ * </pre>
+ *
+ * @author Humberto Anjos
+ */
+public final class Main {
+  private Main() { /* preventing instantiation */ }
+
+  public static void main(String[] args) throws Exception {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+
+    if (!arguments.contains("-prof")) {
+      arguments.add("-prof");
+      arguments.add("gc");
+    }
+
+    org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+  }
+}
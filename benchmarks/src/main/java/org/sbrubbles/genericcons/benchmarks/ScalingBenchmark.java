@@ -0,0 +1,137 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.InMemoryMetrics;
+import org.sbrubbles.genericcons.Types;
+import org.sbrubbles.genericcons.TypesMetrics;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Throughput of {@code Types.check} and {@code Types.fromSuperclass} as the number of threads calling them grows,
+ * on platform threads and on virtual ones. Everything they share (the assignability cache, the signatures, the cons
+ * pool and the metrics) is lock-free, so throughput should grow with the threads up to the number of cores, and stay
+ * flat from there on, instead of collapsing.
+ * <p>
+ * Each invocation splits a fixed batch of calls among the threads and waits for them all, so the scores are calls per
+ * microsecond, whatever the number of threads. Virtual threads need Java 21 or later; on older JVMs, run with
+ * {@code -p kind=platform}.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+  private static final int BATCH = 1 << 16;
+
+  @Param({ "1", "2", "4", "8", "16", "64" })
+  private int threads;
+
+  @Param({ "platform", "virtual" })
+  private String kind;
+
+  @Param({ "plain", "metered" })
+  private String metrics;
+
+  private ExecutorService executor;
+  private TypesMetrics previousMetrics;
+  private List<? extends Type> types;
+  private List<Object> arguments;
+  private Class<?> subclass;
+
+  @Setup
+  public void setUp() throws Exception {
+    switch (kind) {
+      case "platform":
+        executor = Executors.newFixedThreadPool(threads);
+        break;
+      case "virtual":
+        executor = virtualThreads();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown kind: " + kind);
+    }
+
+    previousMetrics = Types.getMetrics();
+    switch (metrics) {
+      case "plain":
+        Types.setMetrics(TypesMetrics.NONE);
+        break;
+      case "metered":
+        Types.setMetrics(new InMemoryMetrics());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown metrics: " + metrics);
+    }
+
+    types = Arrays.asList(String.class, Number.class, Fixtures.LIST_OF_DOUBLE);
+    arguments = Arrays.asList("", 1, new ArrayList<Double>());
+    subclass = Fixtures.FN.getClass();
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    Types.setMetrics(previousMetrics);
+
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int check() throws Exception {
+    return run(() -> {
+      int result = 0;
+      for (int i = 0; i < BATCH / threads; i++) {
+        result += Types.check(types, arguments) ? 1 : 0;
+      }
+
+      return result;
+    });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int fromSuperclass() throws Exception {
+    return run(() -> {
+      int result = 0;
+      for (int i = 0; i < BATCH / threads; i++) {
+        result += Types.fromSuperclass(subclass, 1).size();
+      }
+
+      return result;
+    });
+  }
+
+  // runs task on every thread at once, and sums the results, so nothing gets optimized away
+  private int run(Callable<Integer> task) throws Exception {
+    List<Future<Integer>> futures = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      futures.add(executor.submit(task));
+    }
+
+    int result = 0;
+    for (Future<Integer> future : futures) {
+      result += future.get();
+    }
+
+    return result;
+  }
+
+  // Executors.newVirtualThreadPerTaskExecutor, through reflection, since this module still compiles for Java 8
+  private static ExecutorService virtualThreads() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("Virtual threads need Java 21 or later; use -p kind=platform", e);
+    }
+  }
+}
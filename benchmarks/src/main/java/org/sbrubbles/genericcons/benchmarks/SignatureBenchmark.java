@@ -0,0 +1,67 @@
+package org.sbrubbles.genericcons.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.sbrubbles.genericcons.Signature;
+import org.sbrubbles.genericcons.Types;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deriving a cons from others, by prepending a type or concatenating two conses: by decoding them into lists and
+ * consing the results back up, or with {@link Signature}s, which reuse the conses.
+ *
+ * @author Humberto Anjos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+  @Param({ "10", "100" })
+  private int length;
+
+  private Type cons;
+  private Type other;
+  private Signature signature;
+  private Signature otherSignature;
+
+  @Setup
+  public void setUp() {
+    cons = Types.cons(Fixtures.types(length));
+    other = Types.cons(Fixtures.types(4));
+    signature = Types.signature(cons);
+    otherSignature = Types.signature(other);
+  }
+
+  @Benchmark
+  public Type prependByRebuilding() {
+    List<Type> types = new ArrayList<>(length + 1);
+    types.add(Object.class);
+    types.addAll(Types.fromCons(cons));
+
+    return Types.cons(types);
+  }
+
+  @Benchmark
+  public Type prependSignature() {
+    return signature.prepend(Object.class).type();
+  }
+
+  @Benchmark
+  public Type concatByRebuilding() {
+    List<Type> types = new ArrayList<>(Types.fromCons(other));
+    types.addAll(Types.fromCons(cons));
+
+    return Types.cons(types);
+  }
+
+  @Benchmark
+  public Type concatSignature() {
+    return otherSignature.concat(signature).type();
+  }
+}
@@ -0,0 +1,46 @@
+package org.sbrubbles.genericcons.benchmarks.cold;
+
+import org.sbrubbles.genericcons.C;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classes for {@link org.sbrubbles.genericcons.benchmarks.ColdLookupBenchmark}, which loads them anew for each
+ * iteration. They have a package of their own, whose signature table is generated by
+ * {@link org.sbrubbles.genericcons.processor.ConsSignatureProcessor} when the benchmarks are compiled.
+ *
+ * @author Humberto Anjos
+ */
+public final class ColdFixtures {
+  private ColdFixtures() { /* preventing instantiation */ }
+
+  public abstract static class Base<Result, Args> {}
+
+  public interface Handler<Args> {}
+
+  public static class K0 extends Base<Integer, C<String, C<Integer, C<List<Double>, Map<String, ? extends Number>>>>>
+    implements Handler<C<String, Long>> {}
+
+  public static class K1 extends Base<String, C<Long, C<List<String>, Object[]>>>
+    implements Handler<C<Integer, C<Double, String>>> {}
+
+  public static class K2 extends Base<Void, C<Map<String, List<Integer>>, C<Serializable, Byte>>>
+    implements Handler<C<List<? super Integer>, Long>> {}
+
+  public static class K3 extends Base<Long, C<String, C<String, C<String, C<String, String>>>>>
+    implements Handler<C<Object, C<Object, Object>>> {}
+
+  public static class K4 extends Base<Integer, C<List<Map<String, Double>>, Short>>
+    implements Handler<C<String, C<List<Long>, Integer>>> {}
+
+  public static class K5 extends Base<Double, C<Character, C<Boolean, C<Float, List<? extends Number>>>>>
+    implements Handler<C<Map<Integer, String>, Double>> {}
+
+  public static class K6 extends Base<String, C<Integer[], C<List<String>, Map<Long, Long>>>>
+    implements Handler<C<Byte, C<Short, Integer>>> {}
+
+  public static class K7 extends Base<Object, C<String, C<List<List<Integer>>, Serializable>>>
+    implements Handler<C<Long, List<?>>> {}
+}
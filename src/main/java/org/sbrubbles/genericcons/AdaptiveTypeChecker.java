@@ -0,0 +1,385 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks objects against a list of types, with the same results as a {@link TypeChecker}, but specializing itself to
+ * the runtime classes it actually sees.
+ * <p>
+ * Whether an object passes a check depends only on its runtime class (or on it being null), and most call sites see
+ * only one or two classes per position. So each position keeps an inline cache of the classes seen there, and of
+ * whether they passed: the first time a class shows up, it's checked the usual way, and from then on it's looked up
+ * by reference comparison alone. A position which has seen a single class is <em>monomorphic</em>, one which has
+ * seen a few is <em>polymorphic</em>, and one which has seen more than the {@linkplain #limit() limit} gives up on
+ * caching, becoming <em>megamorphic</em>, and checks every object the usual way from then on.
+ * <p>
+ * Usage:
+ * <pre>
+ * AdaptiveTypeChecker checker = Types.compileAdaptive(Types.fromSuperclass(this.getClass(), 1)); // once, per site
+ *
+ * if (!checker.check(objects)) { // many times
+ *   // ...
+ * }
+ * </pre>
+ * <p>
+ * The {@linkplain #hits() hits}, {@linkplain #misses() misses} and {@linkplain #state(int) state} of each position
+ * show whether a call site stays specialized. Since the caches reflect the call site, checkers shouldn't be shared
+ * between unrelated ones; a plain {@link TypeChecker} is better for that. It's also as fast, if not faster, for types
+ * which are all plain classes, whose checks are already about as cheap as a cache lookup; the savings come from
+ * generic types and interfaces.
+ * <p>
+ * The caches only keep weak references to the classes, so a checker doesn't keep the class loaders of its arguments
+ * alive; collected classes take up a slot until the next miss, which drops them, so classes redeployed over and
+ * over don't push a position past the limit. Instances are safe to share between threads: the caches of each
+ * position are immutable, and replaced atomically as new classes are seen, so concurrent misses may drop a class,
+ * to be added on its next miss.
+ *
+ * @author Humberto Anjos
+ * @see Types#compileAdaptive(List, int)
+ */
+public final class AdaptiveTypeChecker {
+  /**
+   * How many classes each position caches by default, before becoming megamorphic.
+   */
+  public static final int DEFAULT_LIMIT = 4;
+
+  /**
+   * How specialized a position is, as per the classes it has seen.
+   */
+  public enum State {
+    /**
+     * No classes seen yet.
+     */
+    UNINITIALIZED,
+    /**
+     * A single class seen.
+     */
+    MONOMORPHIC,
+    /**
+     * More than one class seen, but no more than the limit.
+     */
+    POLYMORPHIC,
+    /**
+     * More classes seen than the limit; nothing is cached anymore.
+     */
+    MEGAMORPHIC
+  }
+
+  // what matches returns; hits are counted by the callers, once per check, to keep the adder out of the loop
+  private static final int PASSED = 0; // passed, and not found in the cache or null
+  private static final int HIT = 1;
+  private static final int FAILED_HIT = 2;
+  private static final int FAILED = 3; // failed, and not found in the cache or null
+
+  private static final InlineCache EMPTY = new InlineCache(new Ref[0], new boolean[0]);
+  private static final InlineCache MEGAMORPHIC = new InlineCache(new Ref[0], new boolean[0]);
+
+  private final TypeChecker checker;
+  private final int limit;
+  private final AtomicReferenceArray<InlineCache> caches;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  AdaptiveTypeChecker(List<? extends Type> types, int limit) {
+    this.checker = new TypeChecker(types);
+    this.limit = limit;
+    this.caches = new AtomicReferenceArray<>(checker.size());
+
+    final int SIZE = checker.size();
+    for (int i = 0; i < SIZE; i++) {
+      caches.set(i, EMPTY);
+    }
+  }
+
+  /**
+   * Returns the types this checker checks against.
+   *
+   * @return an immutable list of the types this checker checks against.
+   */
+  public List<? extends Type> types() {
+    return checker.types();
+  }
+
+  /**
+   * Returns how many objects this checker expects.
+   *
+   * @return how many objects this checker expects.
+   */
+  public int size() {
+    return checker.size();
+  }
+
+  /**
+   * Returns how many classes each position caches, before becoming megamorphic.
+   *
+   * @return how many classes each position caches.
+   */
+  public int limit() {
+    return limit;
+  }
+
+  /**
+   * Checks if the given objects are assignable to this checker's types, in order, with the same results as
+   * {@link TypeChecker#check(List)}.
+   *
+   * @param objects the objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @see Types#check(List, List)
+   */
+  public boolean check(List<?> objects) {
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS == TypesMetrics.NONE) {
+      return matchesAll(objects);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = false;
+    try {
+      result = matchesAll(objects);
+      return result;
+    } finally {
+      Types.checked(METRICS, START, result);
+    }
+  }
+
+  private boolean matchesAll(List<?> objects) {
+    if (objects == null || objects.size() != checker.size()) {
+      return false;
+    }
+
+    final int SIZE = checker.size();
+    int found = 0;
+    try {
+      for (int i = 0; i < SIZE; i++) {
+        int match = matches(i, objects.get(i));
+        if (match == HIT) {
+          found++;
+        } else if (match == FAILED_HIT) {
+          found++;
+          return false;
+        } else if (match == FAILED) {
+          return false;
+        }
+      }
+
+      return true;
+    } finally {
+      if (found > 0) {
+        hits.add(found);
+      }
+    }
+  }
+
+  /**
+   * Checks if the given objects are assignable to this checker's types, in order, with the same results as
+   * {@link TypeChecker#check(Object...)}.
+   *
+   * @param objects the objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @see #check(List)
+   */
+  public boolean check(Object... objects) {
+    return objects != null && check(objects, 0, objects.length);
+  }
+
+  /**
+   * Checks if the objects in {@code objects[offset, offset + length)} are assignable to this checker's types, in
+   * order, with the same results as {@link TypeChecker#check(Object[], int, int)}.
+   *
+   * @param objects an array holding the objects to check.
+   * @param offset  where in {@code objects} the objects to check start.
+   * @param length  how many objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @throws IndexOutOfBoundsException if {@code objects} is not null, and {@code offset} and {@code length} don't
+   *                                   describe a range within it.
+   * @see Types#check(List, Object[], int, int)
+   */
+  public boolean check(Object[] objects, int offset, int length) throws IndexOutOfBoundsException {
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS == TypesMetrics.NONE) {
+      return matchesAll(objects, offset, length);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = false;
+    try {
+      result = matchesAll(objects, offset, length);
+      return result;
+    } finally {
+      Types.checked(METRICS, START, result);
+    }
+  }
+
+  private boolean matchesAll(Object[] objects, int offset, int length) throws IndexOutOfBoundsException {
+    if (objects == null) {
+      return false;
+    }
+
+    Types.checkRange(objects, offset, length);
+
+    if (length != checker.size()) {
+      return false;
+    }
+
+    int found = 0;
+    try {
+      for (int i = 0; i < length; i++) {
+        int match = matches(i, objects[offset + i]);
+        if (match == HIT) {
+          found++;
+        } else if (match == FAILED_HIT) {
+          found++;
+          return false;
+        } else if (match == FAILED) {
+          return false;
+        }
+      }
+
+      return true;
+    } finally {
+      if (found > 0) {
+        hits.add(found);
+      }
+    }
+  }
+
+  private int matches(int i, Object object) {
+    if (object == null) { // nulls have no class to cache
+      return checker.matches(i, null) ? PASSED : FAILED;
+    }
+
+    final Class<?> RUNTIME_CLASS = object.getClass();
+    InlineCache cache = caches.get(i);
+
+    final Ref[] CLASSES = cache.classes;
+    for (int k = 0; k < CLASSES.length; k++) {
+      if (CLASSES[k].get() == RUNTIME_CLASS) {
+        return cache.results[k] ? HIT : FAILED_HIT;
+      }
+    }
+
+    misses.increment();
+    boolean result = checker.matches(i, object);
+    if (cache != MEGAMORPHIC) {
+      caches.compareAndSet(i, cache, cache.with(RUNTIME_CLASS, result, limit));
+    }
+
+    return result ? PASSED : FAILED;
+  }
+
+  /**
+   * Returns how specialized the given position is.
+   *
+   * @param position a position in {@link #types()}.
+   * @return how specialized the given position is.
+   * @throws IndexOutOfBoundsException if {@code position} isn't a position in {@link #types()}.
+   */
+  public State state(int position) throws IndexOutOfBoundsException {
+    InlineCache cache = caches.get(position);
+    if (cache == MEGAMORPHIC) {
+      return State.MEGAMORPHIC;
+    }
+
+    switch (cache.classes.length) {
+      case 0:
+        return State.UNINITIALIZED;
+      case 1:
+        return State.MONOMORPHIC;
+      default:
+        return State.POLYMORPHIC;
+    }
+  }
+
+  /**
+   * Returns the classes cached for the given position, in the order they were first seen. Collected classes are left
+   * out, and megamorphic positions cache nothing.
+   *
+   * @param position a position in {@link #types()}.
+   * @return an immutable list of the classes cached for the given position.
+   * @throws IndexOutOfBoundsException if {@code position} isn't a position in {@link #types()}.
+   */
+  public List<Class<?>> classes(int position) throws IndexOutOfBoundsException {
+    List<Class<?>> result = new ArrayList<>();
+    for (Ref ref : caches.get(position).classes) {
+      Class<?> type = ref.get();
+      if (type != null) {
+        result.add(type);
+      }
+    }
+
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * Returns how many non-null objects were found in the caches so far, over all positions.
+   *
+   * @return how many non-null objects were found in the caches so far.
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns how many non-null objects weren't found in the caches so far, and were checked the usual way; this
+   * includes all of those in megamorphic positions.
+   *
+   * @return how many non-null objects weren't found in the caches so far.
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "AdaptiveTypeChecker" + checker.types();
+  }
+
+  // the classes seen at some position, and whether they passed; immutable
+  private static final class InlineCache {
+    final Ref[] classes;
+    final boolean[] results;
+
+    InlineCache(Ref[] classes, boolean[] results) {
+      this.classes = classes;
+      this.results = results;
+    }
+
+    // collected classes are dropped first, so they don't count against the limit
+    InlineCache with(Class<?> type, boolean result, int limit) {
+      Ref[] newClasses = new Ref[classes.length + 1];
+      boolean[] newResults = new boolean[classes.length + 1];
+
+      int size = 0;
+      for (int k = 0; k < classes.length; k++) {
+        if (classes[k].get() != null) {
+          newClasses[size] = classes[k];
+          newResults[size] = results[k];
+          size++;
+        }
+      }
+
+      if (size >= limit) {
+        return MEGAMORPHIC;
+      }
+
+      newClasses[size] = new Ref(type);
+      newResults[size] = result;
+      size++;
+
+      return new InlineCache(Arrays.copyOf(newClasses, size), Arrays.copyOf(newResults, size));
+    }
+  }
+
+  private static final class Ref extends WeakReference<Class<?>> {
+    Ref(Class<?> referent) {
+      super(referent);
+    }
+  }
+}
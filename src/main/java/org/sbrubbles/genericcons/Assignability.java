@@ -0,0 +1,216 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+
+import java.lang.reflect.*;
+
+/**
+ * Checks if a runtime class is assignable to a declared type, with the same answers as
+ * {@link GenericTypeReflector#isSuperType(Type, Type)}, but tuned to what {@link Types#check(Type, Object)} sees.
+ * <p>
+ * Most checks don't need to look at type arguments at all, and are answered from erasures alone, through the
+ * {@link SupertypeIndex}: classes, runtime classes which don't extend the declared type's erasure, runtime classes
+ * which are raw (and so have only raw supertypes, as gentyref has it), and parameterized types whose arguments are all
+ * unbounded wildcards. The rest compare the declared type arguments with those of the runtime class' generic ancestor,
+ * which {@link ClassSignatures} resolves once per class, instead of walking the hierarchy on every call. The few cases
+ * left, such as ancestors which still mention type variables, or parameterized owner types, go to gentyref.
+ * <p>
+ * Types are told apart by checking if they're classes first: {@code Class} is final, so that's a single comparison,
+ * while failed {@code instanceof} checks against interfaces, such as {@code WildcardType}, scan all of the object's
+ * interfaces, which is surprisingly slow on some JVMs.
+ * <p>
+ * Declared types which aren't runtime classes, such as those {@link Dispatcher}s rank their signatures by, go straight
+ * to gentyref, as do type variables and wildcards, for which it throws an exception, like it always has.
+ *
+ * @author Humberto Anjos
+ */
+final class Assignability {
+  private Assignability() { /* preventing instantiation */ }
+
+  /**
+   * Checks if {@code runtimeClass} is assignable to {@code type}.
+   *
+   * @param type         a non-null declared type.
+   * @param runtimeClass a non-null runtime class.
+   * @return if {@code runtimeClass} is assignable to {@code type}.
+   */
+  static boolean isSuperType(Type type, Class<?> runtimeClass) {
+    if (type instanceof Class) {
+      return SupertypeIndex.isAssignable((Class<?>) type, runtimeClass);
+    }
+
+    if (type instanceof ParameterizedType) {
+      return isSuperType((ParameterizedType) type, runtimeClass);
+    }
+
+    if (type instanceof GenericArrayType) {
+      // gentyref compares array types by their components, so this does too
+      Type component = type;
+      Class<?> runtimeComponent = runtimeClass;
+      while (component instanceof GenericArrayType) {
+        if (!runtimeComponent.isArray()) {
+          return false;
+        }
+
+        component = ((GenericArrayType) component).getGenericComponentType();
+        runtimeComponent = runtimeComponent.getComponentType();
+      }
+
+      return (component instanceof ParameterizedType)
+        ? isSuperType((ParameterizedType) component, runtimeComponent)
+        : SupertypeIndex.isAssignable(GenericTypeReflector.erase(component), runtimeComponent);
+    }
+
+    // type variables, wildcards, and other implementations
+    return GenericTypeReflector.isSuperType(type, runtimeClass);
+  }
+
+  /**
+   * Checks if {@code subType} is assignable to {@code type}, with the same answers as
+   * {@link GenericTypeReflector#isSuperType(Type, Type)}.
+   *
+   * @param type    a non-null declared type.
+   * @param subType a non-null type.
+   * @return if {@code subType} is assignable to {@code type}.
+   */
+  static boolean isSuperType(Type type, Type subType) {
+    return (subType instanceof Class)
+      ? isSuperType(type, (Class<?>) subType)
+      : GenericTypeReflector.isSuperType(type, subType);
+  }
+
+  private static boolean isSuperType(ParameterizedType type, Class<?> runtimeClass) {
+    Class<?> raw = (Class<?>) type.getRawType();
+    if (!SupertypeIndex.isAssignable(raw, runtimeClass)) {
+      return false;
+    }
+
+    if (runtimeClass.getTypeParameters().length > 0) { // a raw runtime class, whose supertypes are all raw
+      return true;
+    }
+
+    Type owner = type.getOwnerType();
+    if (owner != null && !(owner instanceof Class) && owner instanceof ParameterizedType) {
+      return GenericTypeReflector.isSuperType(type, runtimeClass);
+    }
+
+    Type[] arguments = type.getActualTypeArguments();
+    if (areUnbounded(arguments)) {
+      return true;
+    }
+
+    // absent if it's raw somewhere along the way, or if runtimeClass is raw itself
+    ParameterizedType ancestor = ClassSignatures.of(runtimeClass).genericAncestor(raw).orElse(null);
+    if (ancestor == null) {
+      return true;
+    }
+
+    if (mentionsTypeVariables(ancestor)) { // from an enclosing class, which gentyref considers raw
+      return GenericTypeReflector.isSuperType(type, runtimeClass);
+    }
+
+    Type[] ancestorArguments = ancestor.getActualTypeArguments();
+    for (int i = 0; i < arguments.length; i++) {
+      if (!contains(arguments[i], ancestorArguments[i])) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // if the type argument argument contains the type argument of a runtime class' ancestor, as in JLS 4.5.1
+  private static boolean contains(Type argument, Type ancestorArgument) {
+    if (argument instanceof Class || !(argument instanceof WildcardType)) {
+      return argument == ancestorArgument || argument.equals(ancestorArgument);
+    }
+
+    WildcardType wildcard = (WildcardType) argument;
+    for (Type bound : wildcard.getUpperBounds()) {
+      boolean within = bound == Object.class || ((ancestorArgument instanceof Class)
+        ? isSuperType(bound, (Class<?>) ancestorArgument)
+        : GenericTypeReflector.isSuperType(bound, ancestorArgument));
+
+      if (!within) {
+        return false;
+      }
+    }
+
+    for (Type bound : wildcard.getLowerBounds()) {
+      boolean within = (ancestorArgument instanceof Class && bound instanceof Class)
+        ? SupertypeIndex.isAssignable((Class<?>) ancestorArgument, (Class<?>) bound)
+        : GenericTypeReflector.isSuperType(ancestorArgument, bound);
+
+      if (!within) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // if arguments are all ?s, which contain anything
+  private static boolean areUnbounded(Type[] arguments) {
+    for (Type argument : arguments) {
+      if (argument instanceof Class || !(argument instanceof WildcardType)) {
+        return false;
+      }
+
+      WildcardType wildcard = (WildcardType) argument;
+      Type[] upper = wildcard.getUpperBounds();
+      boolean bounded = upper.length > 1 || (upper.length == 1 && upper[0] != Object.class);
+
+      if (bounded || wildcard.getLowerBounds().length > 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean mentionsTypeVariables(Type type) {
+    // conses nest in their last type argument, so that one is walked iteratively
+    while (!(type instanceof Class) && type instanceof ParameterizedType) {
+      ParameterizedType p = (ParameterizedType) type;
+      if (mentionsTypeVariables(p.getOwnerType())) {
+        return true;
+      }
+
+      Type[] arguments = p.getActualTypeArguments();
+      for (int i = 0; i < arguments.length - 1; i++) {
+        if (mentionsTypeVariables(arguments[i])) {
+          return true;
+        }
+      }
+
+      type = (arguments.length == 0) ? null : arguments[arguments.length - 1];
+    }
+
+    if (type == null || type instanceof Class) {
+      return false;
+    }
+
+    if (type instanceof GenericArrayType) {
+      return mentionsTypeVariables(((GenericArrayType) type).getGenericComponentType());
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+      for (Type bound : w.getUpperBounds()) {
+        if (mentionsTypeVariables(bound)) {
+          return true;
+        }
+      }
+
+      for (Type bound : w.getLowerBounds()) {
+        if (mentionsTypeVariables(bound)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    return type instanceof TypeVariable;
+  }
+}
@@ -0,0 +1,285 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bounded, concurrent memo for {@link Assignability#isSuperType(Type, Class)}, keyed by the declared type and
+ * the runtime class being checked against it.
+ * <p>
+ * The answer for a given pair never changes, so there's no invalidation; the only concern is size. When the cache
+ * grows past its capacity, entries are evicted with a
+ * <a href="https://en.wikipedia.org/wiki/Page_replacement_algorithm#Clock">CLOCK</a> policy: every hit marks its
+ * entry as recently used, and the evicting thread sweeps the table with a hand, giving marked entries a second chance
+ * and removing the unmarked ones. The hand picks up where the last eviction left it, and wraps around at the end of
+ * the table, so every entry gets its turn. Only one thread evicts at a time; the others don't wait for it.
+ * <p>
+ * A capacity of zero turns the cache off, and every lookup goes straight to {@code Assignability}.
+ * <p>
+ * Both the types and the classes are only weakly referenced, so the cache doesn't keep any class loaders alive; entries
+ * whose type or class were collected are dropped on the next miss. Lookups use strong, short-lived probes, so a hit
+ * doesn't allocate any references.
+ *
+ * @author Humberto Anjos
+ */
+final class AssignabilityCache {
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final AtomicBoolean evicting = new AtomicBoolean(false);
+  private Iterator<Entry> hand; // only touched by the evicting thread
+  private volatile int capacity;
+
+  AssignabilityCache(int capacity) {
+    setCapacity(capacity);
+  }
+
+  /**
+   * Checks if {@code runtimeClass} is assignable to {@code type}, going through the cache if it's on.
+   *
+   * @param type         a non-null declared type.
+   * @param runtimeClass a non-null runtime class.
+   * @return if {@code runtimeClass} is assignable to {@code type}.
+   */
+  boolean isSuperType(Type type, Class<?> runtimeClass) {
+    if (capacity == 0) {
+      return Assignability.isSuperType(type, runtimeClass);
+    }
+
+    Entry entry = entries.get(new Probe(type, runtimeClass));
+
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS != TypesMetrics.NONE) {
+      METRICS.cacheAccessed(TypesMetrics.Cache.ASSIGNABILITY, entry != null);
+    }
+
+    if (entry != null) {
+      entry.touch();
+      return entry.result;
+    }
+
+    expunge();
+
+    boolean result = Assignability.isSuperType(type, runtimeClass);
+    if (entries.putIfAbsent(new WeakKey(type, runtimeClass, collected), new Entry(result)) == null
+      && entries.size() > capacity) {
+      evict();
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the maximum number of entries kept.
+   *
+   * @return the maximum number of entries kept.
+   */
+  int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the maximum number of entries kept, evicting entries if needed. Zero turns the cache off, and clears it.
+   *
+   * @param capacity the maximum number of entries kept.
+   * @throws IllegalArgumentException if {@code capacity} is negative.
+   */
+  void setCapacity(int capacity) throws IllegalArgumentException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Negative capacity: " + capacity);
+    }
+
+    this.capacity = capacity;
+    if (capacity == 0) {
+      entries.clear();
+    } else if (entries.size() > capacity) {
+      evict();
+    }
+  }
+
+  /**
+   * Checks if the answer for the given pair is cached right now, without marking it as used.
+   *
+   * @param type         a non-null declared type.
+   * @param runtimeClass a non-null runtime class.
+   * @return if the answer for the given pair is cached right now.
+   */
+  boolean contains(Type type, Class<?> runtimeClass) {
+    return entries.containsKey(new Probe(type, runtimeClass));
+  }
+
+  /**
+   * Returns how many entries are cached right now.
+   *
+   * @return how many entries are cached right now.
+   */
+  int size() {
+    expunge();
+    return entries.size();
+  }
+
+  /**
+   * Drops the entries whose type or class {@linkplain ClassLoaders#mentions(Type, ClassLoader) belong to}
+   * {@code loader}.
+   *
+   * @param loader a non-null class loader.
+   */
+  void evict(ClassLoader loader) {
+    expunge();
+    entries.keySet().removeIf(key -> ClassLoaders.belongsTo(key.runtimeClass(), loader)
+      || ClassLoaders.mentions(key.type(), loader));
+  }
+
+  // drops the entries whose type or class were collected
+  private void expunge() {
+    Reference<?> reference;
+    while ((reference = collected.poll()) != null) {
+      entries.remove(((Ref) reference).key);
+    }
+  }
+
+  private void evict() {
+    if (!evicting.compareAndSet(false, true)) {
+      return; // someone's already on it
+    }
+
+    try {
+      // two revolutions at most: the first may only clear marks, but the second is sure to remove something
+      int steps = 2 * entries.size() + 1;
+      while (steps-- > 0 && entries.size() > capacity) {
+        if (hand == null || !hand.hasNext()) { // wrapping around
+          hand = entries.values().iterator();
+          if (!hand.hasNext()) {
+            return;
+          }
+        }
+
+        Entry entry = hand.next();
+        if (entry.referenced) {
+          entry.referenced = false; // second chance
+        } else {
+          hand.remove();
+        }
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  // equal if they're about the same type and class; probes and weak keys are compared with each other
+  private abstract static class Key {
+    private final int hash;
+
+    Key(Type type, Class<?> runtimeClass) {
+      this.hash = 31 * type.hashCode() + runtimeClass.hashCode();
+    }
+
+    abstract Type type();
+
+    abstract Class<?> runtimeClass();
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key) o;
+      if (hash != other.hash) {
+        return false;
+      }
+
+      Type type = type();
+      Class<?> runtimeClass = runtimeClass();
+
+      // collected keys are only equal to themselves; equal canonical types are the same instance, so no deep equals
+      Type otherType = other.type();
+      return type != null && runtimeClass != null && runtimeClass == other.runtimeClass()
+        && (type == otherType || type.equals(otherType));
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  // a lookup key, only used for the duration of a lookup
+  private static final class Probe extends Key {
+    private final Type type;
+    private final Class<?> runtimeClass;
+
+    Probe(Type type, Class<?> runtimeClass) {
+      super(type, runtimeClass);
+
+      this.type = type;
+      this.runtimeClass = runtimeClass;
+    }
+
+    @Override
+    Type type() {
+      return type;
+    }
+
+    @Override
+    Class<?> runtimeClass() {
+      return runtimeClass;
+    }
+  }
+
+  // a stored key, which doesn't keep its type or class alive
+  private static final class WeakKey extends Key {
+    private final Ref type;
+    private final Ref runtimeClass;
+
+    WeakKey(Type type, Class<?> runtimeClass, ReferenceQueue<Object> queue) {
+      super(type, runtimeClass);
+
+      this.type = new Ref(type, this, queue);
+      this.runtimeClass = new Ref(runtimeClass, this, queue);
+    }
+
+    @Override
+    Type type() {
+      return (Type) type.get();
+    }
+
+    @Override
+    Class<?> runtimeClass() {
+      return (Class<?>) runtimeClass.get();
+    }
+  }
+
+  private static final class Ref extends WeakReference<Object> {
+    final WeakKey key;
+
+    Ref(Object referent, WeakKey key, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.key = key;
+    }
+  }
+
+  private static final class Entry {
+    final boolean result;
+    volatile boolean referenced;
+
+    Entry(boolean result) {
+      this.result = result;
+    }
+
+    void touch() {
+      if (!referenced) { // avoid writing to shared memory on every hit
+        referenced = true;
+      }
+    }
+  }
+}
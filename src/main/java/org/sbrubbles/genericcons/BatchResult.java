@@ -0,0 +1,108 @@
+package org.sbrubbles.genericcons;
+
+import java.util.BitSet;
+
+/**
+ * The outcome of checking a batch of rows against a {@link TypeChecker}: which rows passed, and where each of the
+ * others failed.
+ * <p>
+ * Instances are immutable, and therefore safe to share between threads.
+ *
+ * @author Humberto Anjos
+ * @see TypeChecker#checkAll(java.util.List)
+ * @see TypeChecker#checkColumns(Object[][], int, int)
+ */
+public final class BatchResult {
+  /**
+   * What {@link #firstFailure(int)} returns for rows which passed.
+   */
+  public static final int PASSED = -1;
+
+  private final int[] failures; // PASSED or the first failing position, per row
+  private final BitSet passes;
+  private final int passCount;
+
+  BatchResult(int[] failures) {
+    this.failures = failures;
+    this.passes = new BitSet(failures.length);
+
+    final int SIZE = failures.length;
+    for (int i = 0; i < SIZE; i++) {
+      if (failures[i] == PASSED) {
+        passes.set(i);
+      }
+    }
+
+    this.passCount = passes.cardinality();
+  }
+
+  /**
+   * Returns how many rows were checked.
+   *
+   * @return how many rows were checked.
+   */
+  public int size() {
+    return failures.length;
+  }
+
+  /**
+   * Returns if the given row passed.
+   *
+   * @param row which row.
+   * @return if the given row passed.
+   * @throws IndexOutOfBoundsException if {@code row} is not in {@code [0, size())}.
+   */
+  public boolean passed(int row) throws IndexOutOfBoundsException {
+    return firstFailure(row) == PASSED;
+  }
+
+  /**
+   * Returns the first position in the given row whose object didn't match, or {@link #PASSED} if the row passed.
+   * <p>
+   * Rows with the wrong number of objects fail at the first position they don't share with the checker: their own
+   * size, if it's smaller than the checker's, or the checker's otherwise. Null rows fail at 0.
+   *
+   * @param row which row.
+   * @return the first failing position in the given row, or {@link #PASSED}.
+   * @throws IndexOutOfBoundsException if {@code row} is not in {@code [0, size())}.
+   */
+  public int firstFailure(int row) throws IndexOutOfBoundsException {
+    if (row < 0 || row >= failures.length) {
+      throw new IndexOutOfBoundsException("No row " + row + " in a batch of " + failures.length);
+    }
+
+    return failures[row];
+  }
+
+  /**
+   * Returns which rows passed, as a bit set indexed by row.
+   *
+   * @return a fresh bit set with the indexes of the rows which passed.
+   */
+  public BitSet passes() {
+    return (BitSet) passes.clone();
+  }
+
+  /**
+   * Returns how many rows passed.
+   *
+   * @return how many rows passed.
+   */
+  public int passCount() {
+    return passCount;
+  }
+
+  /**
+   * Returns if every row passed.
+   *
+   * @return if every row passed.
+   */
+  public boolean allPassed() {
+    return passCount == failures.length;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchResult[" + passCount + "/" + failures.length + " passed]";
+  }
+}
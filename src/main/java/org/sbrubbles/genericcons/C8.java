@@ -0,0 +1,35 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.Type;
+
+/**
+ * A {@linkplain C cons} with eight slots, which holds 7 types at once, and then the rest. So
+ * <pre>
+ *   C8&lt;String, Integer, Long, Double, Float, Short, Byte, List&lt;Object&gt;&gt;
+ * </pre>
+ * represents the same list of types as
+ * <pre>
+ *   C&lt;String, C&lt;Integer, C&lt;Long, C&lt;Double, C&lt;Float, C&lt;Short, C&lt;Byte, List&lt;Object&gt;&gt;&gt;&gt;&gt;&gt;&gt;&gt;
+ * </pre>
+ * <p>
+ * The last slot may hold any cons, wide or not, so long lists nest 7 types per level instead of one, and
+ * {@link Types#fromCons(Type)} decodes them in a fraction of the steps. {@link Types#wideCons(java.util.List)}
+ * builds the widest encoding of a list of types.
+ * <p>
+ * This class isn't supposed to be instantiated or subclassed, and declares no fields or methods.
+ *
+ * @author Humberto Anjos
+ * @param <First> The first type.
+ * @param <Second> The second type.
+ * @param <Third> The third type.
+ * @param <Fourth> The fourth type.
+ * @param <Fifth> The fifth type.
+ * @param <Sixth> The sixth type.
+ * @param <Seventh> The seventh type.
+ * @param <Rest> The last type, or a cons holding the rest of the types.
+ * @see C
+ * @see Types#wideCons(java.util.List)
+ */
+public final class C8<First, Second, Third, Fourth, Fifth, Sixth, Seventh, Rest> {
+  private C8() { /* preventing instantiation */ }
+}
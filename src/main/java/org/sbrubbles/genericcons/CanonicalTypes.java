@@ -0,0 +1,562 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interning for types, as returned by {@link Types#canonicalize(Type)}: structurally equal types canonicalize to the
+ * same instance, whichever implementation they came from.
+ * <p>
+ * Canonical types are built bottom up, from canonical parts, so interning one only takes a shallow look: its parts
+ * are compared by identity, and its hash, computed once from theirs, is cached. Classes are canonical already, and
+ * type variables are kept as they are, since the JDK only considers its own type variables equal to each other.
+ * {@code C} conses become {@link ConsType}s, from a pool of their own, and are walked iteratively, so long conses
+ * don't overflow the stack. Wide conses become the equivalent {@code C} conses, so each list of types has a single
+ * canonical cons, however it was encoded.
+ * <p>
+ * Canonical types hash and compare like the JDK's, so they can be mixed freely with any other types. Like the
+ * {@linkplain ConsPool cons pool}, this pool only keeps weak references, so unused canonical types are collected.
+ *
+ * @author Humberto Anjos
+ */
+final class CanonicalTypes {
+  private static final int PARAMETERIZED = 0;
+  private static final int WILDCARD = 1;
+  private static final int ARRAY = 2;
+
+  private final ConsPool conses = new ConsPool(TypesMetrics.Cache.CANONICAL_TYPES);
+  private final ConcurrentMap<Key, Value> types = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Node> collected = new ReferenceQueue<>();
+
+  /**
+   * Returns the canonical instance of {@code type}.
+   *
+   * @param type a type, or null.
+   * @return the canonical instance of {@code type}, which equals it unless it's a wide cons, or null if it's null.
+   */
+  Type canonicalize(Type type) {
+    if (type == null || type instanceof Class || type instanceof Node || type instanceof TypeVariable) {
+      return type;
+    }
+
+    if (type instanceof ParameterizedType) {
+      if (Types.isCons(type)) {
+        return cons(type);
+      }
+
+      ParameterizedType p = (ParameterizedType) type;
+
+      Type[] arguments = p.getActualTypeArguments();
+      Type[] parts = new Type[arguments.length + 2];
+      parts[0] = p.getRawType();
+      parts[1] = canonicalize(p.getOwnerType());
+      for (int i = 0; i < arguments.length; i++) {
+        parts[i + 2] = canonicalize(arguments[i]);
+      }
+
+      return intern(PARAMETERIZED, parts);
+    }
+
+    if (type instanceof GenericArrayType) {
+      return intern(ARRAY, new Type[] { canonicalize(((GenericArrayType) type).getGenericComponentType()) });
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+      Type[] upper = w.getUpperBounds();
+      Type[] lower = w.getLowerBounds();
+
+      // the upper bounds, a null, and the lower bounds
+      Type[] parts = new Type[upper.length + 1 + lower.length];
+      for (int i = 0; i < upper.length; i++) {
+        parts[i] = canonicalize(upper[i]);
+      }
+      for (int i = 0; i < lower.length; i++) {
+        parts[upper.length + 1 + i] = canonicalize(lower[i]);
+      }
+
+      return intern(WILDCARD, parts);
+    }
+
+    return type; // some other implementation, which can't be taken apart
+  }
+
+  /**
+   * Returns the canonical parameterized type with the given parts, without checking the arguments against their
+   * bounds.
+   *
+   * @param rawType   a non-null class.
+   * @param ownerType the owner type, or null.
+   * @param arguments the type arguments.
+   * @return the canonical parameterized type.
+   */
+  Type parameterized(Class<?> rawType, Type ownerType, Type[] arguments) {
+    ParameterizedType type = new ResolvedParameterizedType(rawType, ownerType, arguments);
+    if (Types.isCons(type)) {
+      return cons(type);
+    }
+
+    Type[] parts = new Type[arguments.length + 2];
+    parts[0] = rawType;
+    parts[1] = canonicalize(ownerType);
+    for (int i = 0; i < arguments.length; i++) {
+      parts[i + 2] = canonicalize(arguments[i]);
+    }
+
+    return intern(PARAMETERIZED, parts);
+  }
+
+  /**
+   * Returns the canonical array type of {@code componentType}: a class, if {@code componentType} is one.
+   *
+   * @param componentType a non-null type.
+   * @return the canonical array type of {@code componentType}.
+   */
+  Type array(Type componentType) {
+    if (componentType instanceof Class) {
+      return Array.newInstance((Class<?>) componentType, 0).getClass();
+    }
+
+    return intern(ARRAY, new Type[] { canonicalize(componentType) });
+  }
+
+  /**
+   * Returns the canonical wildcard with the given bounds.
+   *
+   * @param upperBounds the upper bounds.
+   * @param lowerBounds the lower bounds.
+   * @return the canonical wildcard.
+   */
+  Type wildcard(Type[] upperBounds, Type[] lowerBounds) {
+    Type[] parts = new Type[upperBounds.length + 1 + lowerBounds.length];
+    for (int i = 0; i < upperBounds.length; i++) {
+      parts[i] = canonicalize(upperBounds[i]);
+    }
+    for (int i = 0; i < lowerBounds.length; i++) {
+      parts[upperBounds.length + 1 + i] = canonicalize(lowerBounds[i]);
+    }
+
+    return intern(WILDCARD, parts);
+  }
+
+  /**
+   * Returns how many canonical types are in the pool right now, conses included.
+   *
+   * @return how many canonical types are in the pool right now.
+   */
+  int size() {
+    expunge();
+    return types.size() + conses.size();
+  }
+
+  /**
+   * Drops the canonical types which {@linkplain ClassLoaders#mentions(Type, ClassLoader) mention} classes belonging
+   * to {@code loader}. They stay valid, but aren't canonical anymore.
+   *
+   * @param loader a non-null class loader.
+   */
+  void evict(ClassLoader loader) {
+    expunge();
+    types.values().removeIf(value -> ClassLoaders.mentions(value.get(), loader));
+    conses.evict(loader);
+  }
+
+  // walks the spine of a cons, wide links included, canonicalizing the types along the way, and conses them back up
+  private Type cons(Type type) {
+    List<Type> firsts = new ArrayList<>();
+
+    while (Types.isCons(type)) {
+      if (type instanceof ConsType) { // no need to clone the type arguments
+        firsts.add(canonicalize(((ConsType) type).first()));
+        type = ((ConsType) type).rest();
+      } else {
+        Type[] actualTypes = ((ParameterizedType) type).getActualTypeArguments();
+
+        final int LAST = actualTypes.length - 1;
+        for (int i = 0; i < LAST; i++) {
+          firsts.add(canonicalize(actualTypes[i]));
+        }
+        type = actualTypes[LAST];
+      }
+    }
+
+    Type result = canonicalize(type);
+    for (int i = firsts.size() - 1; i >= 0; i--) {
+      result = conses.intern(firsts.get(i), result); // the tail is canonical, as the pool requires
+    }
+
+    return result;
+  }
+
+  private Type intern(int kind, Type[] parts) {
+    expunge();
+
+    Probe probe = new Probe(kind, parts);
+    final TypesMetrics METRICS = Types.metrics();
+
+    boolean hit = true;
+    while (true) {
+      Value value = types.get(probe);
+      Node node = (value == null) ? null : value.get();
+      if (node != null) {
+        accessed(METRICS, hit);
+        return node;
+      }
+
+      hit = false; // even if someone else's type is used in the end, this call had to try to make its own
+
+      Node created = create(kind, parts, probe.hash);
+      Stored createdKey = new Stored(kind, probe.hash);
+      Value createdValue = new Value(createdKey, created, collected);
+      createdKey.value = createdValue;
+
+      // stored keys whose types were collected don't equal anything, so they never get in the way here
+      if (types.putIfAbsent(createdKey, createdValue) == null) {
+        accessed(METRICS, false);
+        return created;
+      }
+      // someone else got there first; try again with their type
+    }
+  }
+
+  private static void accessed(TypesMetrics metrics, boolean hit) {
+    if (metrics != TypesMetrics.NONE) {
+      metrics.cacheAccessed(TypesMetrics.Cache.CANONICAL_TYPES, hit);
+    }
+  }
+
+  private static Node create(int kind, Type[] parts, int hash) {
+    switch (kind) {
+      case PARAMETERIZED:
+        return new Parameterized(parts, hash);
+      case WILDCARD:
+        return new Wildcard(parts, hash);
+      default:
+        return new GenericArray(parts, hash);
+    }
+  }
+
+  // the same as the JDK's hashes, for each kind
+  private static int hash(int kind, Type[] parts) {
+    switch (kind) {
+      case PARAMETERIZED:
+        return hash(parts, 2, parts.length) ^ hashOf(parts[1]) ^ hashOf(parts[0]);
+      case WILDCARD:
+        int separator = separatorOf(parts);
+        return hash(parts, separator + 1, parts.length) ^ hash(parts, 0, separator);
+      default:
+        return hashOf(parts[0]);
+    }
+  }
+
+  // Arrays.hashCode, for parts[from, to)
+  private static int hash(Type[] parts, int from, int to) {
+    int result = 1;
+    for (int i = from; i < to; i++) {
+      result = 31 * result + hashOf(parts[i]);
+    }
+
+    return result;
+  }
+
+  private static int hashOf(Type type) {
+    return (type == null) ? 0 : type.hashCode();
+  }
+
+  private static int separatorOf(Type[] parts) {
+    int i = 0;
+    while (parts[i] != null) {
+      i++;
+    }
+
+    return i;
+  }
+
+  // drops the entries whose types were collected
+  private void expunge() {
+    Reference<? extends Node> reference;
+    while ((reference = collected.poll()) != null) {
+      Value value = (Value) reference;
+      types.remove(value.key, value);
+    }
+  }
+
+  // equal if they're of the same kind, with the same parts; probes and stored keys are compared with each other
+  private abstract static class Key {
+    final int kind;
+    final int hash;
+
+    Key(int kind, int hash) {
+      this.kind = kind;
+      this.hash = hash;
+    }
+
+    // null only for stored keys whose types were collected
+    abstract Type[] parts();
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key) o;
+      if (kind != other.kind || hash != other.hash) {
+        return false;
+      }
+
+      Type[] parts = parts();
+      Type[] otherParts = other.parts();
+      if (parts == null || otherParts == null || parts.length != otherParts.length) {
+        return false;
+      }
+
+      for (int i = 0; i < parts.length; i++) {
+        // canonical parts are the same instance if equal; type variables and such aren't canonical
+        if (parts[i] != otherParts[i]
+          && (parts[i] == null || isCanonical(parts[i]) || !parts[i].equals(otherParts[i]))) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private static boolean isCanonical(Type type) {
+      return type instanceof Class || type instanceof Node || type instanceof ConsType;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  // a lookup key, only used for the duration of a lookup
+  private static final class Probe extends Key {
+    private final Type[] parts;
+
+    Probe(int kind, Type[] parts) {
+      super(kind, hash(kind, parts));
+
+      this.parts = parts;
+    }
+
+    @Override
+    Type[] parts() {
+      return parts;
+    }
+  }
+
+  // the key of a canonical type in the pool, which reads its parts from the type, as long as there is one
+  private static final class Stored extends Key {
+    Value value; // set right after construction, and published along with it
+
+    Stored(int kind, int hash) {
+      super(kind, hash);
+    }
+
+    @Override
+    Type[] parts() {
+      Node node = value.get();
+      return (node == null) ? null : node.parts;
+    }
+  }
+
+  private static final class Value extends WeakReference<Node> {
+    final Key key;
+
+    Value(Key key, Node node, ReferenceQueue<Node> queue) {
+      super(node, queue);
+      this.key = key;
+    }
+  }
+
+  // a canonical type, made of canonical parts, with its hash computed once
+  private abstract static class Node implements Type {
+    final Type[] parts;
+    final int hash;
+
+    Node(Type[] parts, int hash) {
+      this.parts = parts;
+      this.hash = hash;
+    }
+
+    @Override
+    public final int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public final String toString() {
+      return getTypeName();
+    }
+  }
+
+  private static final class Parameterized extends Node implements ParameterizedType {
+    Parameterized(Type[] parts, int hash) {
+      super(parts, hash);
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      return Arrays.copyOfRange(parts, 2, parts.length);
+    }
+
+    @Override
+    public Type getRawType() {
+      return parts[0];
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return parts[1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (o instanceof Parameterized) {
+        return hash == ((Parameterized) o).hash && Arrays.equals(parts, ((Parameterized) o).parts);
+      }
+
+      if (!(o instanceof ParameterizedType)) {
+        return false;
+      }
+
+      ParameterizedType that = (ParameterizedType) o;
+      return parts[0].equals(that.getRawType())
+        && Objects.equals(parts[1], that.getOwnerType())
+        && Arrays.equals(getActualTypeArguments(), that.getActualTypeArguments());
+    }
+
+    @Override
+    public String getTypeName() {
+      StringBuilder result = new StringBuilder();
+
+      Class<?> raw = (Class<?>) parts[0];
+      if (parts[1] instanceof ParameterizedType) {
+        result.append(parts[1].getTypeName()).append('$').append(raw.getSimpleName());
+      } else {
+        result.append(raw.getName());
+      }
+
+      result.append('<');
+      for (int i = 2; i < parts.length; i++) {
+        if (i > 2) {
+          result.append(", ");
+        }
+
+        result.append(parts[i].getTypeName());
+      }
+
+      return result.append('>').toString();
+    }
+  }
+
+  private static final class Wildcard extends Node implements WildcardType {
+    private final int separator;
+
+    Wildcard(Type[] parts, int hash) {
+      super(parts, hash);
+
+      this.separator = separatorOf(parts);
+    }
+
+    @Override
+    public Type[] getUpperBounds() {
+      return Arrays.copyOfRange(parts, 0, separator);
+    }
+
+    @Override
+    public Type[] getLowerBounds() {
+      return Arrays.copyOfRange(parts, separator + 1, parts.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (o instanceof Wildcard) {
+        return hash == ((Wildcard) o).hash && Arrays.equals(parts, ((Wildcard) o).parts);
+      }
+
+      if (!(o instanceof WildcardType)) {
+        return false;
+      }
+
+      WildcardType that = (WildcardType) o;
+      return Arrays.equals(getUpperBounds(), that.getUpperBounds())
+        && Arrays.equals(getLowerBounds(), that.getLowerBounds());
+    }
+
+    @Override
+    public String getTypeName() {
+      Type[] bounds;
+      String prefix;
+
+      if (separator + 1 < parts.length) {
+        bounds = getLowerBounds();
+        prefix = "? super ";
+      } else if (separator == 0 || (separator == 1 && parts[0] == Object.class)) {
+        return "?";
+      } else {
+        bounds = getUpperBounds();
+        prefix = "? extends ";
+      }
+
+      StringBuilder result = new StringBuilder(prefix);
+      for (int i = 0; i < bounds.length; i++) {
+        if (i > 0) {
+          result.append(" & ");
+        }
+
+        result.append(bounds[i].getTypeName());
+      }
+
+      return result.toString();
+    }
+  }
+
+  private static final class GenericArray extends Node implements GenericArrayType {
+    GenericArray(Type[] parts, int hash) {
+      super(parts, hash);
+    }
+
+    @Override
+    public Type getGenericComponentType() {
+      return parts[0];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      return o instanceof GenericArrayType && parts[0].equals(((GenericArrayType) o).getGenericComponentType());
+    }
+
+    @Override
+    public String getTypeName() {
+      return parts[0].getTypeName() + "[]";
+    }
+  }
+}
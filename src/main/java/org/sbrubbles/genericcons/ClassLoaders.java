@@ -0,0 +1,143 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class loader bookkeeping for the caches, so they don't keep redeployed applications alive.
+ * <p>
+ * Two questions matter: which classes will outlive this library (those from the loaders it delegates to, which must
+ * not hold on to anything of this library's), and which cached types belong to a loader being
+ * {@linkplain Types#evict(ClassLoader) evicted}.
+ *
+ * @author Humberto Anjos
+ */
+final class ClassLoaders {
+  // the loaders this library's loader delegates to, and which will therefore outlive it. null is the bootstrap loader
+  private static final ClassLoader[] OUTLIVING = outliving(ClassLoaders.class.getClassLoader());
+
+  private ClassLoaders() { /* preventing instantiation */ }
+
+  /**
+   * Returns if {@code type} comes from a loader which will outlive this library, such as the JDK's, when this library
+   * is deployed inside an application. Caching anything of this library's in such classes (say, in a
+   * {@link ClassValue}) would keep the application's loader alive for as long as theirs.
+   *
+   * @param type a non-null class.
+   * @return if {@code type}'s loader is one of this library's loader's ancestors.
+   */
+  static boolean outlivesLibrary(Class<?> type) {
+    ClassLoader loader = type.getClassLoader();
+
+    for (ClassLoader ancestor : OUTLIVING) {
+      if (loader == ancestor) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns if {@code type} was defined by {@code loader}, or by any of its descendants.
+   *
+   * @param type   a class, or null.
+   * @param loader a non-null class loader.
+   * @return if {@code type} belongs to {@code loader}.
+   */
+  static boolean belongsTo(Class<?> type, ClassLoader loader) {
+    if (type == null) {
+      return false;
+    }
+
+    for (ClassLoader l = type.getClassLoader(); l != null; l = l.getParent()) {
+      if (l == loader) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns if {@code type} mentions, anywhere in its structure, a class which {@linkplain #belongsTo(Class,
+   * ClassLoader) belongs to} {@code loader}.
+   *
+   * @param type   a type, or null.
+   * @param loader a non-null class loader.
+   * @return if {@code type} mentions a class belonging to {@code loader}.
+   */
+  static boolean mentions(Type type, ClassLoader loader) {
+    // conses nest in their last type argument, so that one is walked iteratively
+    while (type instanceof ParameterizedType) {
+      ParameterizedType p = (ParameterizedType) type;
+      if (mentions(p.getRawType(), loader) || mentions(p.getOwnerType(), loader)) {
+        return true;
+      }
+
+      Type[] arguments = p.getActualTypeArguments();
+      for (int i = 0; i < arguments.length - 1; i++) {
+        if (mentions(arguments[i], loader)) {
+          return true;
+        }
+      }
+
+      type = (arguments.length > 0) ? arguments[arguments.length - 1] : null;
+    }
+
+    if (type == null) {
+      return false;
+    }
+
+    if (type instanceof Class) {
+      return belongsTo((Class<?>) type, loader);
+    }
+
+    if (type instanceof GenericArrayType) {
+      return mentions(((GenericArrayType) type).getGenericComponentType(), loader);
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+
+      for (Type bound : w.getUpperBounds()) {
+        if (mentions(bound, loader)) {
+          return true;
+        }
+      }
+
+      for (Type bound : w.getLowerBounds()) {
+        if (mentions(bound, loader)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    if (type instanceof TypeVariable) {
+      GenericDeclaration declaration = ((TypeVariable<?>) type).getGenericDeclaration();
+
+      return belongsTo((declaration instanceof Class)
+        ? (Class<?>) declaration
+        : ((Member) declaration).getDeclaringClass(), loader);
+    }
+
+    return false;
+  }
+
+  private static ClassLoader[] outliving(ClassLoader library) {
+    List<ClassLoader> result = new ArrayList<>();
+
+    if (library != null) { // nothing outlives the bootstrap loader
+      for (ClassLoader l = library.getParent(); l != null; l = l.getParent()) {
+        result.add(l);
+      }
+
+      result.add(null);
+    }
+
+    return result.toArray(new ClassLoader[0]);
+  }
+}
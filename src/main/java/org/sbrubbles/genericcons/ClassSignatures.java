@@ -0,0 +1,437 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+import com.coekie.gentyref.TypeFactory;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The decoded generic supertypes of a class, memoized per class.
+ * <p>
+ * Instances are kept in a {@link ClassValue}, so they live exactly as long as the class they describe, and are
+ * computed lazily: each supertype is only read when first asked for, from a {@linkplain SignatureTable precomputed
+ * table} if there is one, or through reflection otherwise, and each of its type arguments is only
+ * {@linkplain Types#fromCons(Type) decoded} when first asked for. A non-generic supertype is cached as an empty
+ * {@code Optional}, so repeated misses are as cheap as repeated hits.
+ * <p>
+ * Further ancestors are resolved on demand as well: the first time any ancestor is asked for, every ancestor is
+ * resolved at once, by substituting type variables along the way in the ancestors of each direct supertype, which are
+ * themselves resolved once per class. So deep hierarchies which share intermediate classes are only walked once.
+ * <p>
+ * Classes from the loaders this library's loader delegates to, such as the JDK's, are kept elsewhere, though: a
+ * {@code ClassValue} would store their signatures in them, keeping this library's loader, and any application it's
+ * deployed in, alive for as long as the JDK. So those are kept in a map of this library's own, which goes away with it.
+ * <p>
+ * The lists handed out are immutable, and the same instances are returned every time.
+ *
+ * @author Humberto Anjos
+ */
+final class ClassSignatures {
+  private static final ClassValue<ClassSignatures> CACHE = new ClassValue<ClassSignatures>() {
+    @Override
+    protected ClassSignatures computeValue(Class<?> type) {
+      return new ClassSignatures(type);
+    }
+  };
+
+  // the signatures of classes which outlive this library, which mustn't be kept in a ClassValue
+  private static final ConcurrentMap<Class<?>, ClassSignatures> OUTLIVING = new ConcurrentHashMap<>();
+
+  private final Class<?> baseClass;
+
+  // null means not computed yet. Racing threads compute equal values, and Optional and Decoded are immutable, so the
+  // races are benign
+  private volatile Optional<Decoded> superclass;
+  private final Optional<?>[] interfaces;
+
+  // each direct superinterface's raw class -> its position in the declaration; null means not computed yet
+  private volatile Map<Class<?>, Integer> interfacePositions;
+
+  // each direct superinterface's raw class -> its generic form, if it has one; null means not computed yet
+  private volatile Map<Class<?>, Optional<ParameterizedType>> genericInterfaces;
+
+  // every ancestor's raw class -> its generic form as seen from baseClass; null means not computed yet
+  private volatile Map<Class<?>, Type> ancestors;
+  private final ConcurrentMap<Class<?>, Optional<Decoded>> decodedAncestors = new ConcurrentHashMap<>();
+
+  private ClassSignatures(Class<?> baseClass) {
+    this.baseClass = baseClass;
+    this.interfaces = new Optional<?>[baseClass.getInterfaces().length];
+  }
+
+  /**
+   * Returns the signatures of the given class.
+   *
+   * @param baseClass a non-null class.
+   * @return the (cached) signatures of {@code baseClass}.
+   */
+  static ClassSignatures of(Class<?> baseClass) {
+    if (!ClassLoaders.outlivesLibrary(baseClass)) {
+      return CACHE.get(baseClass);
+    }
+
+    ClassSignatures result = OUTLIVING.get(baseClass);
+    if (result == null) {
+      ClassSignatures created = new ClassSignatures(baseClass);
+
+      result = OUTLIVING.putIfAbsent(baseClass, created);
+      if (result == null) {
+        result = created;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Forgets the signatures of the classes which belong to {@code loader}, as far as that's possible: those kept in a
+   * {@link ClassValue} live as long as their classes, but don't keep anything else alive.
+   *
+   * @param loader a non-null class loader.
+   */
+  static void evict(ClassLoader loader) {
+    OUTLIVING.keySet().removeIf(c -> ClassLoaders.belongsTo(c, loader));
+  }
+
+  /**
+   * Returns the decoded generic superclass, if there is one.
+   *
+   * @return the decoded generic superclass, if there is one.
+   */
+  Optional<Decoded> superclass() {
+    Optional<Decoded> result = superclass;
+    accessed(result != null);
+
+    if (result == null) {
+      Type[][] precomputed = PrecomputedSignatures.superclassOf(baseClass);
+
+      result = (precomputed != null)
+        ? Optional.of(new Decoded(baseClass.getSuperclass(), precomputed))
+        : Types.genericSuperclassOf(baseClass).map(Decoded::new);
+      superclass = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the decoded generic superinterface at {@code index}, if there is one.
+   *
+   * @param index which superinterface to return.
+   * @return the decoded generic superinterface at {@code index}, if there is one.
+   */
+  @SuppressWarnings("unchecked")
+  Optional<Decoded> superinterface(int index) {
+    if (index < 0 || index >= interfaces.length) {
+      return Optional.empty();
+    }
+
+    Optional<Decoded> result = (Optional<Decoded>) interfaces[index];
+    accessed(result != null);
+
+    if (result == null) {
+      Type[][] precomputed = PrecomputedSignatures.interfaceOf(baseClass, index);
+
+      result = (precomputed != null)
+        ? Optional.of(new Decoded(baseClass.getInterfaces()[index], precomputed))
+        : Types.genericInterfaceOf(baseClass, index).map(Decoded::new);
+      interfaces[index] = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the decoded generic superinterface whose raw type is {@code rawInterface}, if there is one. Unlike
+   * {@link #superinterface(int)}, this doesn't depend on the order in which the interfaces are declared.
+   *
+   * @param rawInterface the raw type of a direct superinterface.
+   * @return the decoded generic superinterface of type {@code rawInterface}, if there is one.
+   */
+  Optional<Decoded> superinterface(Class<?> rawInterface) {
+    return superinterface(positionOf(rawInterface));
+  }
+
+  /**
+   * Returns where in the base class' declaration is the direct superinterface whose raw type is {@code rawInterface}.
+   *
+   * @param rawInterface a class or interface.
+   * @return the position of {@code rawInterface} among the base class' superinterfaces, or -1 if it isn't one.
+   */
+  int positionOf(Class<?> rawInterface) {
+    Map<Class<?>, Integer> result = interfacePositions;
+    if (result == null) {
+      Class<?>[] raw = baseClass.getInterfaces();
+      Map<Class<?>, Integer> map = new HashMap<>();
+
+      for (int i = 0; i < raw.length; i++) {
+        map.put(raw[i], i);
+      }
+
+      result = Collections.unmodifiableMap(map);
+      interfacePositions = result;
+    }
+
+    return result.getOrDefault(rawInterface, -1);
+  }
+
+  /**
+   * Returns the direct generic superinterface whose raw type is {@code rawInterface}, as declared in the base class.
+   *
+   * @param rawInterface a class or interface.
+   * @return the generic superinterface of type {@code rawInterface}, if the base class has one.
+   */
+  Optional<ParameterizedType> genericInterface(Class<?> rawInterface) {
+    Map<Class<?>, Optional<ParameterizedType>> result = genericInterfaces;
+    if (result == null) {
+      Class<?>[] raw = baseClass.getInterfaces();
+      Type[] generic = baseClass.getGenericInterfaces();
+      Map<Class<?>, Optional<ParameterizedType>> map = new HashMap<>();
+
+      for (int i = 0; i < raw.length && i < generic.length; i++) {
+        map.put(raw[i], Optional.ofNullable(
+          (generic[i] instanceof ParameterizedType) ? (ParameterizedType) generic[i] : null));
+      }
+
+      result = Collections.unmodifiableMap(map);
+      genericInterfaces = result;
+    }
+
+    return result.getOrDefault(rawInterface, Optional.empty());
+  }
+
+  /**
+   * Returns the given ancestor of the base class, with all type variables resolved as far as possible from the base
+   * class. Only the base class' own type variables, if any, remain.
+   *
+   * @param ancestor a class or interface.
+   * @return the generic form of {@code ancestor}, if it's a generic ancestor of the base class.
+   */
+  Optional<ParameterizedType> genericAncestor(Class<?> ancestor) {
+    Type result = ancestors().get(ancestor);
+
+    return Optional.ofNullable((result instanceof ParameterizedType) ? (ParameterizedType) result : null);
+  }
+
+  /**
+   * Returns the given ancestor, {@linkplain #genericAncestor(Class) resolved} and decoded.
+   *
+   * @param ancestor a class or interface.
+   * @return the decoded ancestor, if it's a generic ancestor of the base class.
+   */
+  Optional<Decoded> ancestor(Class<?> ancestor) {
+    Optional<Decoded> result = decodedAncestors.get(ancestor);
+    accessed(result != null);
+
+    if (result == null) {
+      result = genericAncestor(ancestor).map(Decoded::new);
+
+      if (ancestors().containsKey(ancestor)) { // remembering non-ancestors would hold on to any class ever asked for
+        decodedAncestors.putIfAbsent(ancestor, result);
+      }
+    }
+
+    return result;
+  }
+
+  private Map<Class<?>, Type> ancestors() {
+    Map<Class<?>, Type> result = ancestors;
+    if (result == null) {
+      Map<Class<?>, Type> map = new HashMap<>();
+
+      addAncestors(baseClass.getGenericSuperclass(), map);
+      for (Type supertype : baseClass.getGenericInterfaces()) {
+        addAncestors(supertype, map);
+      }
+
+      result = Collections.unmodifiableMap(map);
+      ancestors = result;
+    }
+
+    return result;
+  }
+
+  // adds supertype, and its own (already resolved) ancestors with its type arguments plugged in
+  private static void addAncestors(Type supertype, Map<Class<?>, Type> map) {
+    if (supertype == null) {
+      return;
+    }
+
+    Class<?> raw = GenericTypeReflector.erase(supertype);
+    if (map.containsKey(raw)) { // already reached through another path, which Java guarantees is equivalent
+      return;
+    }
+
+    map.put(raw, supertype);
+
+    // a generic class used raw has all of its ancestors erased, as the JLS has it
+    boolean erased = !(supertype instanceof ParameterizedType) && raw.getTypeParameters().length > 0;
+    Map<TypeVariable<?>, Type> bindings = erased ? null : bindingsOf(supertype);
+
+    for (Map.Entry<Class<?>, Type> entry : of(raw).ancestors().entrySet()) {
+      map.putIfAbsent(entry.getKey(), erased ? entry.getKey() : substitute(entry.getValue(), bindings));
+    }
+  }
+
+  // the type variables of supertype's class (and owners), and what they're bound to
+  private static Map<TypeVariable<?>, Type> bindingsOf(Type supertype) {
+    Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+
+    for (Type t = supertype; t instanceof ParameterizedType; t = ((ParameterizedType) t).getOwnerType()) {
+      ParameterizedType p = (ParameterizedType) t;
+      TypeVariable<?>[] variables = ((Class<?>) p.getRawType()).getTypeParameters();
+      Type[] arguments = p.getActualTypeArguments();
+
+      for (int i = 0; i < variables.length && i < arguments.length; i++) {
+        bindings.put(variables[i], arguments[i]);
+      }
+    }
+
+    return bindings;
+  }
+
+  // type, with the variables in bindings replaced, all the way down, conses included
+  static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+    if (type instanceof TypeVariable) {
+      return bindings.getOrDefault(type, type);
+    }
+
+    if (type instanceof ParameterizedType) {
+      ParameterizedType p = (ParameterizedType) type;
+      Class<?> raw = (Class<?>) p.getRawType();
+      Type[] arguments = p.getActualTypeArguments();
+
+      boolean changed = false;
+      for (int i = 0; i < arguments.length; i++) {
+        Type argument = substitute(arguments[i], bindings);
+
+        changed |= argument != arguments[i];
+        arguments[i] = argument;
+      }
+
+      Type owner = substitute(p.getOwnerType(), bindings);
+      changed |= owner != p.getOwnerType();
+
+      if (!changed) {
+        return type;
+      }
+
+      return (raw == C.class)
+        ? new ConsType(arguments[0], arguments[1])
+        : new ResolvedParameterizedType(raw, owner, arguments);
+    }
+
+    if (type instanceof GenericArrayType) {
+      Type component = ((GenericArrayType) type).getGenericComponentType();
+      Type substituted = substitute(component, bindings);
+
+      return (substituted == component) ? type : TypeFactory.arrayOf(substituted);
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+      Type[] lower = w.getLowerBounds();
+      Type[] upper = w.getUpperBounds();
+
+      if (lower.length > 0) {
+        Type substituted = substitute(lower[0], bindings);
+        return (substituted == lower[0]) ? type : TypeFactory.wildcardSuper(substituted);
+      }
+
+      if (upper.length > 0) {
+        Type substituted = substitute(upper[0], bindings);
+        return (substituted == upper[0]) ? type : TypeFactory.wildcardExtends(substituted);
+      }
+
+      return type;
+    }
+
+    return type; // classes and nulls
+  }
+
+  private static void accessed(boolean hit) {
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS != TypesMetrics.NONE) {
+      METRICS.cacheAccessed(TypesMetrics.Cache.SIGNATURES, hit);
+    }
+  }
+
+  /**
+   * A generic supertype, along with the decoded type lists of each of its type arguments. Each argument is only
+   * decoded when first asked for, so a cons too long in one of them doesn't get in the way of the others; and the
+   * {@linkplain Types#getMaxConsLength() maximum length} is checked on every access, cached or not.
+   */
+  static final class Decoded {
+    private final Type type; // only for error messages
+    private final Type[] arguments; // null if precomputed
+
+    // null means not decoded yet. Racing threads decode equal, immutable lists, so the races are benign
+    private final List<?>[] decoded;
+
+    Decoded(ParameterizedType type) {
+      this.type = type;
+      this.arguments = type.getActualTypeArguments();
+      this.decoded = new List<?>[arguments.length];
+    }
+
+    Decoded(Class<?> rawType, Type[][] precomputed) {
+      this.type = rawType;
+      this.arguments = null;
+      this.decoded = new List<?>[precomputed.length];
+
+      for (int i = 0; i < precomputed.length; i++) {
+        Type[] types = new Type[precomputed[i].length];
+        for (int j = 0; j < types.length; j++) { // canonical, like those decoded from a canonical cons
+          types[j] = Types.canonicalize(precomputed[i][j]);
+        }
+
+        decoded[i] = TypeList.wrap(types, types.length);
+      }
+    }
+
+    /**
+     * Returns the decoded type list at {@code index}, with the same semantics as
+     * {@link Types#from(ParameterizedType, int)}.
+     *
+     * @param index where in the type argument list are the desired types.
+     * @return an immutable list of the types found in {@code index}.
+     * @throws IndexOutOfBoundsException if no type parameters were found at {@code index}.
+     * @throws IllegalArgumentException  if the cons is longer than {@linkplain Types#getMaxConsLength() the maximum
+     *                                   length}.
+     */
+    @SuppressWarnings("unchecked")
+    List<? extends Type> get(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+      if (index < 0 || index >= decoded.length) {
+        throw new IndexOutOfBoundsException("No type parameters in " + type + " at index " + index);
+      }
+
+      List<? extends Type> result = (List<? extends Type>) decoded[index];
+      if (result == null) { // decode checks the maximum length itself
+        result = Types.decode(Types.canonicalize(arguments[index]));
+        decoded[index] = result;
+      } else {
+        final int MAX = Types.getMaxConsLength();
+        if (result.size() > MAX) {
+          throw new IllegalArgumentException("Cons longer than the maximum length of " + MAX);
+        }
+      }
+
+      return result;
+    }
+
+    /**
+     * Decodes all of the type arguments, so later calls to {@link #get(int)} find them ready.
+     *
+     * @throws IllegalArgumentException if a cons is longer than {@linkplain Types#getMaxConsLength() the maximum
+     *                                  length}.
+     */
+    void decodeAll() throws IllegalArgumentException {
+      for (int i = 0; i < decoded.length; i++) {
+        get(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hash-consing for {@link ConsType}s: structurally equal conses built through the pool are the same instance.
+ * <p>
+ * Conses are built back to front, and each tail is interned before its head is consed onto it, so equal suffixes are
+ * shared, and looking up a cell costs only the head's hash plus an identity check on the tail (the last type in a
+ * cons isn't a cons, so it's compared with {@code equals}, unless it's a class).
+ * <p>
+ * The pool only keeps weak references to its conses, like {@link String#intern()}: a cons nobody else uses can be
+ * collected, and will simply be recreated if asked for again. The keys read their types from the conses themselves, so
+ * the pool doesn't hold on to any types, nor to their class loaders, either.
+ *
+ * @author Humberto Anjos
+ */
+final class ConsPool {
+  private final ConcurrentMap<Key, Value> conses = new ConcurrentHashMap<>();
+  private final ReferenceQueue<ConsType> collected = new ReferenceQueue<>();
+  private final TypesMetrics.Cache cache;
+
+  /**
+   * Creates a new, empty pool, which reports its hits and misses as {@link TypesMetrics.Cache#CONS_POOL}'s.
+   */
+  ConsPool() {
+    this(TypesMetrics.Cache.CONS_POOL);
+  }
+
+  /**
+   * Creates a new, empty pool, which reports its hits and misses as {@code cache}'s.
+   *
+   * @param cache the cache this pool reports as.
+   */
+  ConsPool(TypesMetrics.Cache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Returns the canonical {@code C<first, rest>}.
+   *
+   * @param first the head of the cons.
+   * @param rest  the tail of the cons, which should be canonical itself if it's a cons.
+   * @return the canonical {@code C<first, rest>}.
+   */
+  ConsType intern(Type first, Type rest) {
+    expunge();
+
+    Key key = new Probe(first, rest);
+    final TypesMetrics METRICS = Types.metrics();
+
+    boolean hit = true;
+    while (true) {
+      Value value = conses.get(key);
+      ConsType cons = (value == null) ? null : value.get();
+      if (cons != null) {
+        accessed(METRICS, hit);
+        return cons;
+      }
+
+      hit = false; // even if someone else's cons is used in the end, this call had to try to make its own
+
+      ConsType created = new ConsType(first, rest);
+      Stored createdKey = new Stored(key.hash);
+      Value createdValue = new Value(createdKey, created, collected);
+      createdKey.value = createdValue;
+
+      // stored keys whose conses were collected don't equal anything, so they never get in the way here
+      if (conses.putIfAbsent(createdKey, createdValue) == null) {
+        accessed(METRICS, false);
+        return created;
+      }
+      // someone else got there first; try again with their cons
+    }
+  }
+
+  private void accessed(TypesMetrics metrics, boolean hit) {
+    if (metrics != TypesMetrics.NONE) {
+      metrics.cacheAccessed(cache, hit);
+    }
+  }
+
+  /**
+   * Returns how many conses are in the pool right now.
+   *
+   * @return how many conses are in the pool right now.
+   */
+  int size() {
+    expunge();
+    return conses.size();
+  }
+
+  /**
+   * Drops the conses which {@linkplain ClassLoaders#mentions(Type, ClassLoader) mention} classes belonging to
+   * {@code loader}. They stay valid, but aren't canonical anymore.
+   *
+   * @param loader a non-null class loader.
+   */
+  void evict(ClassLoader loader) {
+    expunge();
+    conses.keySet().removeIf(key -> ClassLoaders.mentions(key.first(), loader)
+      || ClassLoaders.mentions(key.rest(), loader));
+  }
+
+  // drops entries whose conses were collected
+  private void expunge() {
+    Reference<? extends ConsType> reference;
+    while ((reference = collected.poll()) != null) {
+      Value value = (Value) reference;
+      conses.remove(value.key, value);
+    }
+  }
+
+  // equal if they're about the same first and rest; probes and stored keys are compared with each other
+  private abstract static class Key {
+    final int hash;
+
+    Key(int hash) {
+      this.hash = hash;
+    }
+
+    abstract Type first();
+
+    // null only for stored keys whose conses were collected
+    abstract Type rest();
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      Key other = (Key) o;
+      if (hash != other.hash) {
+        return false;
+      }
+
+      // interned tails are canonical, so identity suffices for them
+      Type rest = rest();
+      Type otherRest = other.rest();
+      return rest != null && otherRest != null
+        && (rest == otherRest || (!isCanonical(rest) && rest.equals(otherRest)))
+        && Objects.equals(first(), other.first());
+    }
+
+    static int hash(Type first, Type rest) {
+      return 31 * Objects.hashCode(first) + (isCanonical(rest) ? System.identityHashCode(rest) : rest.hashCode());
+    }
+
+    private static boolean isCanonical(Type rest) {
+      return rest instanceof ConsType || rest instanceof Class;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  // a lookup key, only used for the duration of a lookup
+  private static final class Probe extends Key {
+    private final Type first;
+    private final Type rest;
+
+    Probe(Type first, Type rest) {
+      super(hash(first, rest));
+
+      this.first = first;
+      this.rest = rest;
+    }
+
+    @Override
+    Type first() {
+      return first;
+    }
+
+    @Override
+    Type rest() {
+      return rest;
+    }
+  }
+
+  // the key of a cons in the pool, which reads its types from the cons, as long as there is one
+  private static final class Stored extends Key {
+    Value value; // set right after construction, and published along with it
+
+    Stored(int hash) {
+      super(hash);
+    }
+
+    @Override
+    Type first() {
+      ConsType cons = value.get();
+      return (cons == null) ? null : cons.first();
+    }
+
+    @Override
+    Type rest() {
+      ConsType cons = value.get();
+      return (cons == null) ? null : cons.rest();
+    }
+  }
+
+  private static final class Value extends WeakReference<ConsType> {
+    final Key key;
+
+    Value(Key key, ConsType cons, ReferenceQueue<ConsType> queue) {
+      super(cons, queue);
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@code C<First, Rest>} type, as built by {@link Types#cons(java.util.List)} when
+ * {@linkplain Types#setConsInterning(boolean) interning} is on, and by {@link Signature}s.
+ * <p>
+ * Equality and hashing follow the JDK's and gentyref's parameterized types, so instances can be compared and mixed
+ * with them freely. But since the hash is computed once, at construction, and tails are usually interned as well,
+ * both are cheap here: there's no need to walk the whole chain. The exception is a cons whose rest is a cons of
+ * another implementation, which would have to walk its chain to hash it; so that consing onto it stays cheap, its
+ * hash, and that of any conses built on top of it, is only computed when first asked for.
+ *
+ * @author Humberto Anjos
+ * @see ConsPool
+ */
+final class ConsType implements ParameterizedType {
+  private final Type first;
+  private final Type rest;
+  private int hash; // zero means not computed yet; racing threads compute the same value
+  private final int length; // zero if unknown, when the rest is a cons of another implementation
+  private volatile long fingerprint; // zero means not computed yet; racing threads compute the same value
+
+  ConsType(Type first, Type rest) {
+    this.first = first;
+    this.rest = rest;
+
+    if (rest instanceof ConsType) {
+      int restLength = ((ConsType) rest).length;
+      this.length = (restLength > 0 && restLength < Integer.MAX_VALUE) ? restLength + 1 : 0;
+    } else {
+      this.length = Types.isCons(rest) ? 0 : 2;
+    }
+
+    if (rest instanceof ConsType) {
+      int restHash = ((ConsType) rest).hash;
+      this.hash = (restHash == 0) ? 0 : hash(first, restHash);
+    } else {
+      this.hash = Types.isCons(rest) ? 0 : hash(first, Objects.hashCode(rest));
+    }
+  }
+
+  // the same as the JDK's and gentyref's: args ^ owner (null here) ^ raw type
+  private static int hash(Type first, int restHash) {
+    return (31 * (31 + Objects.hashCode(first)) + restHash) ^ C.class.hashCode();
+  }
+
+  /**
+   * Returns the first type in this cons.
+   *
+   * @return the first type in this cons.
+   */
+  Type first() {
+    return first;
+  }
+
+  /**
+   * Returns the rest of this cons, which may be another cons.
+   *
+   * @return the rest of this cons.
+   */
+  Type rest() {
+    return rest;
+  }
+
+  /**
+   * Returns how many types this cons represents, as {@link Types#fromCons(Type)} would decode them, or zero if that's
+   * not known without walking the chain. Computed once, at construction, from the rest's own length.
+   *
+   * @return how many types this cons represents, or zero if unknown.
+   */
+  int length() {
+    return length;
+  }
+
+  /**
+   * Returns if this cons' {@linkplain Fingerprints fingerprint} is already known.
+   *
+   * @return if this cons' fingerprint is already known.
+   */
+  boolean hasFingerprint() {
+    return fingerprint != 0;
+  }
+
+  /**
+   * Returns this cons' {@linkplain Fingerprints fingerprint}, if it's known.
+   *
+   * @return this cons' fingerprint, or zero if it isn't known.
+   */
+  long fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Remembers this cons' {@linkplain Fingerprints fingerprint}.
+   *
+   * @param fingerprint this cons' fingerprint.
+   */
+  void setFingerprint(long fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  @Override
+  public Type[] getActualTypeArguments() {
+    return new Type[] { first, rest };
+  }
+
+  @Override
+  public Type getRawType() {
+    return C.class;
+  }
+
+  @Override
+  public Type getOwnerType() {
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    // iterative, walking both spines together, since conses may be as long as the maximum length
+    ConsType cons = this;
+    Object that = o;
+    while (true) {
+      if (cons == that) {
+        return true;
+      }
+
+      Type rest;
+      if (that instanceof ConsType) {
+        ConsType other = (ConsType) that;
+        if (cons.hasFingerprint() && other.hasFingerprint() && cons.fingerprint != other.fingerprint) {
+          return false; // different fingerprints mean different structures, without walking any further
+        }
+
+        if (cons.hash != 0 && other.hash != 0 && cons.hash != other.hash) {
+          return false;
+        }
+
+        if (!Objects.equals(cons.first, other.first)) {
+          return false;
+        }
+
+        rest = other.rest;
+      } else if (that instanceof ParameterizedType) {
+        ParameterizedType other = (ParameterizedType) that;
+        if (other.getRawType() != C.class || other.getOwnerType() != null) {
+          return false;
+        }
+
+        Type[] arguments = other.getActualTypeArguments();
+        if (arguments.length != 2 || !Objects.equals(cons.first, arguments[0])) {
+          return false;
+        }
+
+        rest = arguments[1];
+      } else {
+        return false;
+      }
+
+      if (!(cons.rest instanceof ConsType)) {
+        return Objects.equals(cons.rest, rest);
+      }
+
+      cons = (ConsType) cons.rest;
+      that = rest;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hash;
+    if (result != 0) {
+      return result;
+    }
+
+    // iterative, since unhashed conses may pile up on top of each other
+    List<ConsType> unhashed = new ArrayList<>();
+    Type current = this;
+    while (current instanceof ConsType && ((ConsType) current).hash == 0) {
+      unhashed.add((ConsType) current);
+      current = ((ConsType) current).rest;
+    }
+
+    result = (current instanceof ConsType) ? ((ConsType) current).hash : Objects.hashCode(current);
+    for (int i = unhashed.size() - 1; i >= 0; i--) {
+      ConsType cons = unhashed.get(i);
+
+      result = hash(cons.first, result);
+      cons.hash = result;
+    }
+
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    // iterative, since conses can get quite long
+    StringBuilder result = new StringBuilder();
+    int depth = 0;
+
+    Type current = this;
+    while (current instanceof ConsType) {
+      ConsType cons = (ConsType) current;
+      result.append(C.class.getName()).append('<').append(cons.first.getTypeName()).append(", ");
+
+      depth++;
+      current = cons.rest;
+    }
+
+    result.append(current.getTypeName());
+    for (int i = 0; i < depth; i++) {
+      result.append('>');
+    }
+
+    return result.toString();
+  }
+}
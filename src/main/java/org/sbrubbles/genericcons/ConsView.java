@@ -0,0 +1,339 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A lazy, immutable view of the types represented by a {@linkplain C cons}, as {@link Types#fromCons(Type)} would
+ * decode them, but without decoding any more than asked for.
+ * <p>
+ * Often only the length of a cons, or the type at one position, is needed; {@code fromCons} would decode the whole
+ * chain anyway. Here, the types are decoded on demand, as far as the largest index asked for, and remembered for
+ * later calls. The length is computed once, on the first call to {@link #size()}, and conses built by
+ * {@link Types#cons(List)} with {@linkplain Types#setConsInterning(boolean) interning} on already know their length,
+ * so for those it's free. Iteration walks the cons directly, without copying anything.
+ * <p>
+ * {@link Types#check(List, List)} recognizes views, and checks the objects as it walks the cons, so a mismatch at the
+ * first position doesn't decode the rest of the chain.
+ * <p>
+ * As with {@code fromCons}, conses longer than {@linkplain Types#getMaxConsLength() the maximum length} are rejected
+ * with an {@link IllegalArgumentException}, but only when reached. Views are safe to share between threads.
+ *
+ * @author Humberto Anjos
+ * @see Types#consView(Type)
+ */
+public final class ConsView extends AbstractList<Type> implements RandomAccess {
+  private static final Prefix NOTHING = new Prefix(new Type[0], 0, null, true);
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final Type type;
+
+  // the types decoded so far, replaced by longer prefixes as needed. Racing threads decode the same types, and
+  // prefixes are never changed after being published, so the races are benign
+  private volatile Prefix prefix;
+  private volatile int size = -1; // -1 means not computed yet
+
+  ConsView(Type type) {
+    this.type = type;
+
+    if (type == null) {
+      this.prefix = NOTHING;
+      this.size = 0;
+    } else {
+      this.prefix = new Prefix(new Type[0], 0, type, false);
+
+      if (type instanceof ConsType && ((ConsType) type).length() > 0) {
+        this.size = ((ConsType) type).length();
+      } else if (!Types.isCons(type)) {
+        this.size = 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the type this is a view of.
+   *
+   * @return the type this is a view of.
+   */
+  public Type type() {
+    return type;
+  }
+
+  /**
+   * Returns the type at {@code index}, decoding the cons only as far as needed.
+   *
+   * @param index where in the cons the desired type is.
+   * @return the type at {@code index}.
+   * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than this view's size.
+   * @throws IllegalArgumentException  if the cons is longer than {@linkplain Types#getMaxConsLength() the maximum
+   *                                   length}, and {@code index} is past it.
+   */
+  @Override
+  public Type get(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Negative index: " + index);
+    }
+
+    final int KNOWN = size;
+    if (KNOWN >= 0 && index >= KNOWN) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + KNOWN);
+    }
+
+    Prefix p = prefix;
+    if (index >= p.size && !p.complete) {
+      p = extend(p, index);
+      prefix = p;
+    }
+
+    if (index >= p.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + p.size);
+    }
+
+    return p.types[index];
+  }
+
+  /**
+   * Returns how many types the cons represents. The chain is walked, without decoding anything, only on the first
+   * call, and not even then if its length is already known.
+   *
+   * @return how many types the cons represents.
+   * @throws IllegalArgumentException if the cons is longer than {@linkplain Types#getMaxConsLength() the maximum
+   *                                  length}.
+   */
+  @Override
+  public int size() throws IllegalArgumentException {
+    int result = size;
+    if (result < 0) {
+      final int MAX = Types.getMaxConsLength();
+      Prefix p = prefix;
+
+      result = p.size;
+      if (!p.complete) {
+        Cursor cursor = new Cursor(p.rest);
+        while (cursor.advance()) {
+          if (++result >= MAX) {
+            throw new IllegalArgumentException("Cons longer than the maximum length of " + MAX);
+          }
+        }
+
+        result++;
+      }
+
+      size = result;
+    }
+
+    return result;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return type == null;
+  }
+
+  @Override
+  public Iterator<Type> iterator() {
+    return new Iterator<Type>() {
+      private final int max = Types.getMaxConsLength();
+
+      private final Cursor cursor = new Cursor(type);
+      private boolean done = (type == null);
+      private int count = 0;
+
+      @Override
+      public boolean hasNext() {
+        return !done;
+      }
+
+      @Override
+      public Type next() {
+        if (done) {
+          throw new NoSuchElementException();
+        }
+
+        if (++count > max) {
+          throw new IllegalArgumentException("Cons longer than the maximum length of " + max);
+        }
+
+        if (!cursor.advance()) {
+          done = true;
+          return cursor.current;
+        }
+
+        return cursor.first;
+      }
+    };
+  }
+
+  /**
+   * Checks the given objects against the types in this view, as {@link Types#check(List, List)} would, walking the
+   * cons along with the objects, and stopping at the first mismatch.
+   *
+   * @param objects the objects to check.
+   * @return if the objects are compatible with the types in this view.
+   */
+  boolean matches(List<?> objects) {
+    final int SIZE = objects.size();
+    final int KNOWN = size;
+    if (KNOWN >= 0 && KNOWN != SIZE) {
+      return false;
+    }
+
+    if (type == null) {
+      return SIZE == 0;
+    }
+
+    Cursor cursor = new Cursor(type);
+    int i = 0;
+    while (cursor.advance()) {
+      if (i >= SIZE - 1) { // at least two types left, and at most one object
+        return false;
+      }
+
+      if (!Types.isAssignable(cursor.first, objects.get(i++))) {
+        return false;
+      }
+    }
+
+    return i == SIZE - 1 && Types.isAssignable(cursor.current, objects.get(i));
+  }
+
+  /**
+   * Like {@link #matches(List)}, but for the objects in {@code objects[offset, offset + length)}. The range must have
+   * already been checked.
+   *
+   * @param objects an array holding the objects to check.
+   * @param offset  where in {@code objects} the objects to check start.
+   * @param length  how many objects to check.
+   * @return if the objects are compatible with the types in this view.
+   */
+  boolean matches(Object[] objects, int offset, int length) {
+    final int KNOWN = size;
+    if (KNOWN >= 0 && KNOWN != length) {
+      return false;
+    }
+
+    if (type == null) {
+      return length == 0;
+    }
+
+    Cursor cursor = new Cursor(type);
+    int i = 0;
+    while (cursor.advance()) {
+      if (i >= length - 1) { // at least two types left, and at most one object
+        return false;
+      }
+
+      if (!Types.isAssignable(cursor.first, objects[offset + i++])) {
+        return false;
+      }
+    }
+
+    return i == length - 1 && Types.isAssignable(cursor.current, objects[offset + i]);
+  }
+
+  // decodes p further, until index is decoded or the cons is over
+  private static Prefix extend(Prefix p, int index) throws IllegalArgumentException {
+    final int MAX = Types.getMaxConsLength();
+
+    // a copy, since p may be in use elsewhere; grown geometrically, as far as the cons actually goes
+    Type[] types = Arrays.copyOf(p.types, (int) Math.min(Math.max(p.size * 2L, INITIAL_CAPACITY), MAX));
+    int size = p.size;
+    Cursor cursor = new Cursor(p.rest);
+    boolean complete = false;
+
+    // wide links are decoded whole, so what's left to decode is always a type
+    while ((size <= index || !cursor.betweenLinks()) && !complete) {
+      if (size == types.length) {
+        if (size >= MAX) {
+          throw new IllegalArgumentException("Cons longer than the maximum length of " + MAX);
+        }
+
+        types = Arrays.copyOf(types, (int) Math.min(size * 2L, MAX));
+      }
+
+      if (cursor.advance()) {
+        types[size++] = cursor.first;
+      } else {
+        types[size++] = cursor.current;
+        complete = true;
+      }
+    }
+
+    return new Prefix(types, size, complete ? null : cursor.current, complete);
+  }
+
+  // walks a cons one type at a time, reading each link only once
+  private static final class Cursor {
+    Type current;
+    Type first;
+
+    // the type arguments of the wide cons being walked, if any, and the next one to return
+    private Type[] wide;
+    private int next;
+
+    Cursor(Type type) {
+      this.current = type;
+    }
+
+    // moves past the next type, if current is a cons, keeping it in first
+    boolean advance() {
+      if (wide != null) {
+        first = wide[next++];
+        if (next == wide.length - 1) { // done with this link
+          current = wide[next];
+          wide = null;
+        }
+
+        return true;
+      }
+
+      if (current instanceof ConsType) { // no need to clone the type arguments
+        first = ((ConsType) current).first();
+        current = ((ConsType) current).rest();
+        return true;
+      }
+
+      if (Types.isCons(current)) {
+        Type[] actualTypes = ((ParameterizedType) current).getActualTypeArguments();
+
+        first = actualTypes[0];
+        if (actualTypes.length > 2) {
+          wide = actualTypes;
+          next = 1;
+        } else {
+          current = actualTypes[1];
+        }
+
+        return true;
+      }
+
+      return false;
+    }
+
+    // if current holds the rest of the cons, and not a wide cons partway through
+    boolean betweenLinks() {
+      return wide == null;
+    }
+  }
+
+  // the first size types of a cons, and what's left to decode; never changed after construction
+  private static final class Prefix {
+    final Type[] types;
+    final int size;
+    final Type rest;
+    final boolean complete;
+
+    Prefix(Type[] types, int size, Type rest, boolean complete) {
+      this.types = types;
+      this.size = size;
+      this.rest = rest;
+      this.complete = complete;
+    }
+  }
+}
@@ -0,0 +1,494 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Picks, among many handlers with declared signatures, the most specific one compatible with some runtime arguments.
+ * <p>
+ * Each handler declares a list of types, usually {@linkplain Types#fromSuperclass(Class, int) through a cons in its
+ * superclass}. Handlers are indexed by arity, and then, per position, by the erasure of their types; so the
+ * compatible handlers for a tuple of runtime classes are found by looking up each class' supertypes, instead of
+ * checking every handler. The result depends only on the arguments' runtime classes (and on which are null), so it is
+ * cached per tuple of classes, and repeated calls with the same kinds of arguments cost a single lookup.
+ * <p>
+ * Among the compatible handlers, one is more specific than another if each of its types is assignable to the other's
+ * type in the same position, but not the other way around. If there isn't a single most specific handler, the call
+ * is ambiguous: {@link #resolve(Object...)} complains, and {@link #mostSpecific(Object...)} returns all the
+ * contenders.
+ * <p>
+ * Usage:
+ * <pre>
+ * Dispatcher&lt;Handler&gt; dispatcher = Types.dispatcher(handlers, h -&gt; Types.fromSuperclass(h.getClass(), 0));
+ *
+ * dispatcher.resolve(args).ifPresent(h -&gt; h.handle(args));
+ * </pre>
+ * <p>
+ * The cache only keeps weak references to the classes, so a dispatcher doesn't keep the class loaders of its arguments
+ * alive; {@link Types#evict(ClassLoader)} drops their tuples right away. Instances are immutable, save for the cache,
+ * and safe to share between threads.
+ *
+ * @param <H> the type of the handlers.
+ * @author Humberto Anjos
+ * @see Types#dispatcher(Collection, Function)
+ */
+public final class Dispatcher<H> {
+  // beyond this many tuples, results are computed but not cached
+  private static final int MAX_CACHED_TUPLES = 4096;
+
+  // every supertype of a class, itself included, to look up in the erasure indexes
+  private static final ClassValue<Class<?>[]> SUPERTYPES = new ClassValue<Class<?>[]>() {
+    @Override
+    protected Class<?>[] computeValue(Class<?> type) {
+      Set<Class<?>> result = new LinkedHashSet<>();
+      collectSupertypes(type, result);
+
+      return result.toArray(new Class<?>[0]);
+    }
+  };
+
+  // every live dispatcher, for eviction
+  private static final Set<Dispatcher<?>> DISPATCHERS =
+    Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  private final List<H> handlers;
+  private final Map<Integer, Arity<H>> arities;
+  private final ConcurrentMap<Tuple, List<H>> cache = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Class<?>> collected = new ReferenceQueue<>();
+
+  Dispatcher(Collection<? extends H> handlers, Function<? super H, ? extends List<? extends Type>> signatures) {
+    this.handlers = Collections.unmodifiableList(new ArrayList<>(handlers));
+
+    Map<Integer, List<H>> handlersByArity = new HashMap<>();
+    Map<Integer, List<List<? extends Type>>> signaturesByArity = new HashMap<>();
+    for (H handler : this.handlers) {
+      if (handler == null) {
+        throw new NullPointerException("Null handler in " + handlers);
+      }
+
+      List<? extends Type> signature = signatures.apply(handler);
+      if (signature == null) {
+        throw new NullPointerException("No signature for " + handler);
+      }
+
+      handlersByArity.computeIfAbsent(signature.size(), k -> new ArrayList<>()).add(handler);
+      signaturesByArity.computeIfAbsent(signature.size(), k -> new ArrayList<>()).add(signature);
+    }
+
+    Map<Integer, Arity<H>> arities = new HashMap<>();
+    for (Map.Entry<Integer, List<H>> entry : handlersByArity.entrySet()) {
+      arities.put(entry.getKey(), new Arity<>(entry.getKey(), entry.getValue(), signaturesByArity.get(entry.getKey())));
+    }
+
+    this.arities = arities;
+    DISPATCHERS.add(this);
+  }
+
+  /**
+   * Returns the handlers, in the order they were given.
+   *
+   * @return an immutable list of the handlers.
+   */
+  public List<H> handlers() {
+    return handlers;
+  }
+
+  /**
+   * Returns the most specific handler compatible with the given arguments, if there is one.
+   *
+   * @param arguments the runtime arguments.
+   * @return the most specific compatible handler, or an empty {@code Optional} if no handler is compatible.
+   * @throws IllegalArgumentException if more than one handler is compatible, but none is more specific than all the
+   *                                  others.
+   * @see #mostSpecific(Object...)
+   */
+  public Optional<H> resolve(Object... arguments) throws IllegalArgumentException {
+    List<H> result = mostSpecific(arguments);
+
+    switch (result.size()) {
+      case 0:
+        return Optional.empty();
+      case 1:
+        return Optional.of(result.get(0));
+      default:
+        throw new IllegalArgumentException(
+          "Ambiguous call with " + Arrays.toString(arguments) + ": " + result);
+    }
+  }
+
+  /**
+   * Returns the compatible handlers with the given arguments which aren't less specific than any other compatible
+   * handler. That's a single handler for unambiguous calls, none if no handler is compatible, and all the contenders
+   * for ambiguous calls.
+   *
+   * @param arguments the runtime arguments.
+   * @return an immutable list of the most specific compatible handlers, in the order they were given.
+   */
+  public List<H> mostSpecific(Object... arguments) {
+    if (arguments == null) {
+      return Collections.emptyList();
+    }
+
+    Arity<H> arity = arities.get(arguments.length);
+    if (arity == null) {
+      return Collections.emptyList();
+    }
+
+    List<H> result = cache.get(new Probe(arguments));
+    if (result == null) {
+      result = arity.mostSpecific(arguments);
+
+      expunge();
+      if (cache.size() < MAX_CACHED_TUPLES) {
+        cache.putIfAbsent(new WeakTuple(arguments, collected), result);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Drops the cached tuples with classes which {@linkplain ClassLoaders#belongsTo(Class, ClassLoader) belong to}
+   * {@code loader}, from every dispatcher.
+   *
+   * @param loader a non-null class loader.
+   */
+  static void evict(ClassLoader loader) {
+    List<Dispatcher<?>> dispatchers;
+    synchronized (DISPATCHERS) {
+      dispatchers = new ArrayList<>(DISPATCHERS);
+    }
+
+    for (Dispatcher<?> dispatcher : dispatchers) {
+      dispatcher.expunge();
+      dispatcher.cache.keySet().removeIf(tuple -> tuple.mentions(loader));
+    }
+  }
+
+  /**
+   * Returns how many tuples are cached right now.
+   *
+   * @return how many tuples are cached right now.
+   */
+  int cacheSize() {
+    expunge();
+    return cache.size();
+  }
+
+  // drops the tuples with collected classes
+  private void expunge() {
+    Reference<?> reference;
+    while ((reference = collected.poll()) != null) {
+      cache.remove(((Ref) reference).tuple);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Dispatcher" + handlers;
+  }
+
+  private static void collectSupertypes(Class<?> type, Set<Class<?>> result) {
+    if (type == null || !result.add(type)) {
+      return;
+    }
+
+    if (type.isArray()) {
+      Class<?> component = type.getComponentType();
+      if (!component.isPrimitive()) { // arrays are covariant
+        for (Class<?> supertype : SUPERTYPES.get(component)) {
+          result.add(Array.newInstance(supertype, 0).getClass());
+        }
+      }
+
+      result.add(Object.class);
+      result.add(Cloneable.class);
+      result.add(java.io.Serializable.class);
+      return;
+    }
+
+    collectSupertypes(type.getSuperclass(), result);
+    for (Class<?> i : type.getInterfaces()) {
+      collectSupertypes(i, result);
+    }
+
+    if (type.isInterface()) { // not really a supertype, but erasures may well be Object
+      result.add(Object.class);
+    }
+  }
+
+  // the handlers with the same arity, indexed
+  private static final class Arity<H> {
+    private final List<H> handlers;
+    private final TypeChecker[] checkers;
+    private final List<Map<Class<?>, BitSet>> byErasure; // per position: erasure -> handlers with it there
+    private final BitSet[] nullable; // per position: handlers which accept null there
+    private final BitSet[] lessSpecific; // per handler: the handlers it's strictly more specific than
+
+    Arity(int size, List<H> handlers, List<List<? extends Type>> signatures) {
+      final int HANDLERS = handlers.size();
+
+      this.handlers = handlers;
+      this.checkers = new TypeChecker[HANDLERS];
+      this.byErasure = new ArrayList<>(size);
+      this.nullable = new BitSet[size];
+      this.lessSpecific = new BitSet[HANDLERS];
+
+      for (int p = 0; p < size; p++) {
+        byErasure.add(new HashMap<>());
+        nullable[p] = new BitSet(HANDLERS);
+      }
+
+      for (int h = 0; h < HANDLERS; h++) {
+        List<? extends Type> signature = signatures.get(h);
+        checkers[h] = Types.compile(signature);
+
+        for (int p = 0; p < size; p++) {
+          Class<?> erasure = erasureOf(signature.get(p));
+
+          if (erasure != null) { // no erasure means nothing matches there
+            byErasure.get(p).computeIfAbsent(erasure, k -> new BitSet(HANDLERS)).set(h);
+            nullable[p].set(h);
+          }
+        }
+      }
+
+      for (int h = 0; h < HANDLERS; h++) {
+        lessSpecific[h] = new BitSet(HANDLERS);
+
+        for (int other = 0; other < HANDLERS; other++) {
+          if (other != h
+            && isAtLeastAsSpecific(signatures.get(h), signatures.get(other))
+            && !isAtLeastAsSpecific(signatures.get(other), signatures.get(h))) {
+            lessSpecific[h].set(other);
+          }
+        }
+      }
+    }
+
+    List<H> mostSpecific(Object[] arguments) {
+      BitSet candidates = new BitSet();
+      candidates.set(0, handlers.size());
+
+      for (int p = 0; p < arguments.length && !candidates.isEmpty(); p++) {
+        candidates.and(candidatesAt(p, arguments[p]));
+      }
+
+      // the erasures matched; now for the full check
+      for (int h = candidates.nextSetBit(0); h >= 0; h = candidates.nextSetBit(h + 1)) {
+        if (!checkers[h].check(arguments)) {
+          candidates.clear(h);
+        }
+      }
+
+      BitSet result = (BitSet) candidates.clone();
+      for (int h = candidates.nextSetBit(0); h >= 0; h = candidates.nextSetBit(h + 1)) {
+        result.andNot(lessSpecific[h]);
+      }
+
+      List<H> list = new ArrayList<>(result.cardinality());
+      for (int h = result.nextSetBit(0); h >= 0; h = result.nextSetBit(h + 1)) {
+        list.add(handlers.get(h));
+      }
+
+      return Collections.unmodifiableList(list);
+    }
+
+    private BitSet candidatesAt(int p, Object argument) {
+      if (argument == null) {
+        return nullable[p];
+      }
+
+      BitSet result = new BitSet();
+      Map<Class<?>, BitSet> index = byErasure.get(p);
+      for (Class<?> supertype : SUPERTYPES.get(argument.getClass())) {
+        BitSet handlers = index.get(supertype);
+
+        if (handlers != null) {
+          result.or(handlers);
+        }
+      }
+
+      return result;
+    }
+
+    // null for types which match nothing, and Object for those which can't be narrowed down by erasure
+    private static Class<?> erasureOf(Type type) {
+      if (type == null || Types.isPrimitive(type)) {
+        return null;
+      }
+
+      if (type instanceof Class) {
+        return (Class<?>) type;
+      }
+
+      if (type instanceof ParameterizedType || type instanceof GenericArrayType) {
+        return GenericTypeReflector.erase(type);
+      }
+
+      return Object.class;
+    }
+
+    // if each type in a is assignable to the type in the same position in b
+    private static boolean isAtLeastAsSpecific(List<? extends Type> a, List<? extends Type> b) {
+      final int SIZE = a.size();
+      for (int p = 0; p < SIZE; p++) {
+        Type typeA = a.get(p);
+        Type typeB = b.get(p);
+
+        if (typeA == null || typeB == null) {
+          return false;
+        }
+
+        try {
+          if (!typeA.equals(typeB) && !Assignability.isSuperType(typeB, typeA)) {
+            return false;
+          }
+        } catch (RuntimeException e) { // some types (such as wildcards) can't be compared this way
+          return false;
+        }
+      }
+
+      return true;
+    }
+  }
+
+  // the runtime classes of some arguments, with null for null arguments. Probes and weak tuples are compared with each
+  // other
+  private abstract static class Tuple {
+    private final int hash;
+
+    Tuple(Object[] arguments) {
+      int hash = 1;
+      for (Object argument : arguments) {
+        hash = 31 * hash + ((argument == null) ? 0 : argument.getClass().hashCode());
+      }
+
+      this.hash = hash;
+    }
+
+    abstract int size();
+
+    // the class at i; null for null arguments, and for collected classes
+    abstract Class<?> get(int i);
+
+    // if the class at i was collected
+    abstract boolean isCollected(int i);
+
+    boolean mentions(ClassLoader loader) {
+      final int SIZE = size();
+      for (int i = 0; i < SIZE; i++) {
+        if (ClassLoaders.belongsTo(get(i), loader)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Tuple)) {
+        return false;
+      }
+
+      Tuple other = (Tuple) o;
+      if (hash != other.hash || size() != other.size()) {
+        return false;
+      }
+
+      final int SIZE = size();
+      for (int i = 0; i < SIZE; i++) {
+        // collected tuples are only equal to themselves
+        if (get(i) != other.get(i) || isCollected(i) || other.isCollected(i)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  // a lookup key, only used for the duration of a lookup
+  private static final class Probe extends Tuple {
+    private final Object[] arguments;
+
+    Probe(Object[] arguments) {
+      super(arguments);
+      this.arguments = arguments;
+    }
+
+    @Override
+    int size() {
+      return arguments.length;
+    }
+
+    @Override
+    Class<?> get(int i) {
+      return (arguments[i] == null) ? null : arguments[i].getClass();
+    }
+
+    @Override
+    boolean isCollected(int i) {
+      return false;
+    }
+  }
+
+  // a stored key, which doesn't keep its classes alive
+  private static final class WeakTuple extends Tuple {
+    private final Ref[] classes; // null for null arguments
+
+    WeakTuple(Object[] arguments, ReferenceQueue<Class<?>> queue) {
+      super(arguments);
+
+      this.classes = new Ref[arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        classes[i] = (arguments[i] == null) ? null : new Ref(arguments[i].getClass(), this, queue);
+      }
+    }
+
+    @Override
+    int size() {
+      return classes.length;
+    }
+
+    @Override
+    Class<?> get(int i) {
+      return (classes[i] == null) ? null : classes[i].get();
+    }
+
+    @Override
+    boolean isCollected(int i) {
+      return classes[i] != null && classes[i].get() == null;
+    }
+  }
+
+  private static final class Ref extends WeakReference<Class<?>> {
+    final WeakTuple tuple;
+
+    Ref(Class<?> referent, WeakTuple tuple, ReferenceQueue<Class<?>> queue) {
+      super(referent, queue);
+      this.tuple = tuple;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stable 64-bit structural hashes of types and type lists, as returned by {@link Types#fingerprint(Type)}.
+ * <p>
+ * A fingerprint depends only on the structure of a type, as read through the {@code java.lang.reflect} interfaces,
+ * and on class names, so it's the same for any implementation, and in any JVM. Conses are flattened: a type's
+ * fingerprint is that of the list {@link Types#fromCons(Type)} would decode from it.
+ * <p>
+ * Lists are hashed back to front, each type folded into the hash of the types after it; so a cons' fingerprint follows
+ * from its first type and the fingerprint of its rest. {@link ConsType}s memoize theirs, and since interned conses
+ * share their tails, fingerprinting a cons built on an already fingerprinted one only hashes the new types.
+ *
+ * @author Humberto Anjos
+ */
+final class Fingerprints {
+  // a different seed for each kind of type, so different structures don't collide trivially
+  private static final long NULL = 0x6e756c6cL;
+  private static final long EMPTY = 0x656d707479L;
+  private static final long CLASS = 0x636c617373L;
+  private static final long PARAMETERIZED = 0x706172616dL;
+  private static final long ARRAY = 0x6172726179L;
+  private static final long WILDCARD = 0x77696c64L;
+  private static final long VARIABLE = 0x7661726961L;
+  private static final long CONS = 0x636f6e73L;
+  private static final long OTHER = 0x6f74686572L;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final ClassValue<Long> CLASSES = new ClassValue<Long>() {
+    @Override
+    protected Long computeValue(Class<?> type) {
+      return type.isArray()
+        ? combine(ARRAY, element(type.getComponentType()))
+        : combine(CLASS, hash(type.getName()));
+    }
+  };
+
+  private Fingerprints() { /* preventing instantiation */ }
+
+  /**
+   * Returns the fingerprint of the list of types represented by {@code type}.
+   *
+   * @param type a type, possibly a cons.
+   * @return the fingerprint of {@code Types.fromCons(type)}.
+   */
+  static long of(Type type) {
+    return (type == null) ? EMPTY : suffix(type, EMPTY);
+  }
+
+  /**
+   * Returns the fingerprint of the given list of types, with each cons in it flattened, so that
+   * {@code of(types) == of(Types.cons(types))}.
+   *
+   * @param types a list of types.
+   * @return the fingerprint of {@code types}.
+   */
+  static long of(List<? extends Type> types) {
+    if (types instanceof ConsView) {
+      return of(((ConsView) types).type());
+    }
+
+    if (types instanceof Signature) {
+      return of(((Signature) types).type());
+    }
+
+    long result = EMPTY;
+    for (int i = types.size() - 1; i >= 0; i--) {
+      Type type = types.get(i);
+
+      result = (type == null) ? result : suffix(type, result); // Types.cons ignores nulls as well
+    }
+
+    return result;
+  }
+
+  // the fingerprint of the types in type, followed by the types whose fingerprint is tail
+  private static long suffix(Type type, long tail) {
+    if (!Types.isCons(type)) {
+      return combine(element(type), tail);
+    }
+
+    if (tail == EMPTY && type instanceof ConsType && ((ConsType) type).hasFingerprint()) {
+      return ((ConsType) type).fingerprint();
+    }
+
+    // walks the spine up to the end, or to a cons whose fingerprint is known, and folds back from there. Links are
+    // either ConsTypes, or the type arguments of other conses, wide ones included
+    List<Object> spine = new ArrayList<>();
+    Type current = type;
+    long result = tail;
+    while (true) {
+      if (current instanceof ConsType) {
+        ConsType cons = (ConsType) current;
+        if (tail == EMPTY && cons.hasFingerprint()) {
+          result = cons.fingerprint();
+          break;
+        }
+
+        spine.add(cons);
+        current = cons.rest();
+      } else if (Types.isCons(current)) {
+        Type[] arguments = ((ParameterizedType) current).getActualTypeArguments();
+
+        spine.add(arguments);
+        current = arguments[arguments.length - 1];
+      } else {
+        result = combine(element(current), tail);
+        break;
+      }
+    }
+
+    for (int i = spine.size() - 1; i >= 0; i--) {
+      Object link = spine.get(i);
+
+      if (link instanceof ConsType) {
+        result = combine(element(((ConsType) link).first()), result);
+
+        if (tail == EMPTY) {
+          ((ConsType) link).setFingerprint(result);
+        }
+      } else {
+        Type[] arguments = (Type[]) link;
+
+        for (int j = arguments.length - 2; j >= 0; j--) {
+          result = combine(element(arguments[j]), result);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  // the fingerprint of a single type, as an element of a list
+  private static long element(Type type) {
+    if (type == null) {
+      return NULL;
+    }
+
+    if (type instanceof Class) {
+      return CLASSES.get((Class<?>) type);
+    }
+
+    if (Types.isCons(type)) { // a cons nested in some other type
+      return combine(CONS, of(type));
+    }
+
+    if (type instanceof ParameterizedType) {
+      ParameterizedType p = (ParameterizedType) type;
+
+      long result = combine(PARAMETERIZED, element(p.getRawType()));
+      // raw owners are implied by the raw type, and some implementations leave them out
+      if (p.getOwnerType() instanceof ParameterizedType) {
+        result = combine(result, element(p.getOwnerType()));
+      }
+
+      for (Type argument : p.getActualTypeArguments()) {
+        result = combine(result, element(argument));
+      }
+
+      return result;
+    }
+
+    if (type instanceof GenericArrayType) { // the same as the equivalent array class, if there's one
+      return combine(ARRAY, element(((GenericArrayType) type).getGenericComponentType()));
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+
+      long result = WILDCARD;
+      for (Type bound : w.getUpperBounds()) {
+        result = combine(result, element(bound));
+      }
+
+      result = combine(result, NULL); // separates the upper bounds from the lower ones
+      for (Type bound : w.getLowerBounds()) {
+        result = combine(result, element(bound));
+      }
+
+      return result;
+    }
+
+    if (type instanceof TypeVariable) {
+      TypeVariable<?> v = (TypeVariable<?>) type;
+      GenericDeclaration declaration = v.getGenericDeclaration();
+
+      long result = combine(VARIABLE, hash(v.getName()));
+      return combine(result, (declaration instanceof Class)
+        ? element((Class<?>) declaration)
+        : hash(String.valueOf(declaration)));
+    }
+
+    return combine(OTHER, hash(type.getTypeName()));
+  }
+
+  // FNV-1a, over the chars
+  private static long hash(String s) {
+    long result = FNV_OFFSET;
+
+    final int LENGTH = s.length();
+    for (int i = 0; i < LENGTH; i++) {
+      result = (result ^ s.charAt(i)) * FNV_PRIME;
+    }
+
+    return result;
+  }
+
+  // order-dependent, and well mixed (SplitMix64's finalizer)
+  private static long combine(long a, long b) {
+    long z = a * 0x9e3779b97f4a7c15L + b;
+
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,240 @@
+package org.sbrubbles.genericcons;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@linkplain TypesMetrics Metrics} kept in memory, in striped counters and power-of-two histograms, for polling by
+ * whatever monitoring is around.
+ * <p>
+ * Every counter is a {@link LongAdder}, so recording is cheap and contention-free, at the cost of reads being only
+ * weakly consistent: a read concurrent with recording may see some updates and miss others.
+ * <p>
+ * Histograms have 64 buckets: bucket 0 counts zeroes, and bucket {@code i > 0} counts values in
+ * {@code [2^(i - 1), 2^i)}.
+ * <p>
+ * Usage:
+ * <pre>
+ * InMemoryMetrics metrics = new InMemoryMetrics();
+ * Types.setMetrics(metrics);
+ *
+ * // ... later, from a monitoring thread
+ * long checks = metrics.calls(TypesMetrics.Operation.CHECK);
+ * long p99 = metrics.latencyPercentile(TypesMetrics.Operation.CHECK, 0.99);
+ * </pre>
+ *
+ * @author Humberto Anjos
+ * @see Types#setMetrics(TypesMetrics)
+ */
+public final class InMemoryMetrics implements TypesMetrics {
+  private static final int BUCKETS = 64;
+
+  private final LongAdder[] calls = adders(Operation.values().length);
+  private final LongAdder[] nanos = adders(Operation.values().length);
+  private final LongAdder[] mismatches = adders(Operation.values().length);
+  private final LongAdder[][] latencies = new LongAdder[Operation.values().length][];
+  private final LongAdder[][] lengths = new LongAdder[Operation.values().length][];
+  private final LongAdder[] hits = adders(Cache.values().length);
+  private final LongAdder[] misses = adders(Cache.values().length);
+
+  /**
+   * Creates a new instance, with everything at zero.
+   */
+  public InMemoryMetrics() {
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = adders(BUCKETS);
+      lengths[i] = adders(BUCKETS);
+    }
+  }
+
+  @Override
+  public void called(Operation operation, long nanos) {
+    final int OP = operation.ordinal();
+
+    calls[OP].increment();
+    this.nanos[OP].add(nanos);
+    latencies[OP][bucketOf(nanos)].increment();
+  }
+
+  @Override
+  public void mismatched(Operation operation) {
+    mismatches[operation.ordinal()].increment();
+  }
+
+  @Override
+  public void decoded(Operation operation, int length) {
+    lengths[operation.ordinal()][bucketOf(length)].increment();
+  }
+
+  @Override
+  public void cacheAccessed(Cache cache, boolean hit) {
+    (hit ? hits : misses)[cache.ordinal()].increment();
+  }
+
+  /**
+   * Returns how many times the given operation ran.
+   *
+   * @param operation an operation.
+   * @return how many times {@code operation} ran.
+   */
+  public long calls(Operation operation) {
+    return calls[operation.ordinal()].sum();
+  }
+
+  /**
+   * Returns how long the given operation took, in total, in nanoseconds.
+   *
+   * @param operation an operation.
+   * @return how long {@code operation} took, in nanoseconds.
+   */
+  public long totalNanos(Operation operation) {
+    return nanos[operation.ordinal()].sum();
+  }
+
+  /**
+   * Returns how many times the given operation yielded a negative answer.
+   *
+   * @param operation an operation.
+   * @return how many times {@code operation} yielded a negative answer.
+   */
+  public long mismatches(Operation operation) {
+    return mismatches[operation.ordinal()].sum();
+  }
+
+  /**
+   * Returns how many times the answer was in the given cache.
+   *
+   * @param cache a cache.
+   * @return how many times {@code cache} was hit.
+   */
+  public long hits(Cache cache) {
+    return hits[cache.ordinal()].sum();
+  }
+
+  /**
+   * Returns how many times the answer wasn't in the given cache.
+   *
+   * @param cache a cache.
+   * @return how many times {@code cache} was missed.
+   */
+  public long misses(Cache cache) {
+    return misses[cache.ordinal()].sum();
+  }
+
+  /**
+   * Returns the histogram of the given operation's latencies, in nanoseconds.
+   *
+   * @param operation an operation.
+   * @return a fresh array with the counts in each bucket.
+   */
+  public long[] latencyHistogram(Operation operation) {
+    return sums(latencies[operation.ordinal()]);
+  }
+
+  /**
+   * Returns the histogram of the lengths of the type lists the given operation handled.
+   *
+   * @param operation an operation.
+   * @return a fresh array with the counts in each bucket.
+   */
+  public long[] lengthHistogram(Operation operation) {
+    return sums(lengths[operation.ordinal()]);
+  }
+
+  /**
+   * Returns an upper bound for the given percentile of the given operation's latencies, in nanoseconds: the upper
+   * limit of the bucket where the percentile falls. So it's never under the real value, and at most twice it.
+   *
+   * @param operation  an operation.
+   * @param percentile which percentile, between 0 and 1.
+   * @return an upper bound for the given percentile, or zero if nothing was recorded.
+   * @throws IllegalArgumentException if {@code percentile} isn't between 0 and 1.
+   */
+  public long latencyPercentile(Operation operation, double percentile) throws IllegalArgumentException {
+    if (!(percentile >= 0 && percentile <= 1)) {
+      throw new IllegalArgumentException("Percentile not between 0 and 1: " + percentile);
+    }
+
+    long[] histogram = latencyHistogram(operation);
+    long total = 0;
+    for (long count : histogram) {
+      total += count;
+    }
+
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += histogram[i];
+
+      if (seen >= rank) {
+        return (i == 0) ? 0 : (i == BUCKETS - 1) ? Long.MAX_VALUE : (1L << i) - 1;
+      }
+    }
+
+    return Long.MAX_VALUE; // not reachable, barring concurrent updates
+  }
+
+  /**
+   * Sets everything back to zero. Measurements concurrent with a reset may or may not survive it.
+   */
+  public void reset() {
+    for (LongAdder[] group : new LongAdder[][] { calls, nanos, mismatches, hits, misses }) {
+      resetAll(group);
+    }
+
+    for (int i = 0; i < latencies.length; i++) {
+      resetAll(latencies[i]);
+      resetAll(lengths[i]);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("InMemoryMetrics[");
+
+    for (Operation operation : Operation.values()) {
+      result.append(operation).append('=').append(calls(operation)).append(" calls/")
+        .append(totalNanos(operation)).append(" ns, ");
+    }
+
+    for (Cache cache : Cache.values()) {
+      result.append(cache).append('=').append(hits(cache)).append(" hits/")
+        .append(misses(cache)).append(" misses, ");
+    }
+
+    result.setLength(result.length() - 2);
+    return result.append(']').toString();
+  }
+
+  // 0 for 0, and 64 - leading zeroes otherwise, capped to the last bucket
+  private static int bucketOf(long value) {
+    return (value <= 0) ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+  }
+
+  private static LongAdder[] adders(int size) {
+    LongAdder[] result = new LongAdder[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = new LongAdder();
+    }
+
+    return result;
+  }
+
+  private static long[] sums(LongAdder[] adders) {
+    long[] result = new long[adders.length];
+    for (int i = 0; i < adders.length; i++) {
+      result[i] = adders[i].sum();
+    }
+
+    return result;
+  }
+
+  private static void resetAll(LongAdder[] adders) {
+    for (LongAdder adder : adders) {
+      adder.reset();
+    }
+  }
+}
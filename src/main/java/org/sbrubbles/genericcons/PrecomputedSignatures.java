@@ -0,0 +1,188 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds and queries the {@linkplain SignatureTable signature tables} generated at compile time, and the
+ * {@linkplain SignatureSnapshot snapshot} loaded at startup, if any; generated tables come first.
+ * <p>
+ * The table for a class is looked up by name, in the class' own package and class loader, so nothing here holds on to
+ * any class loaders. Any trouble with a table (missing, stale, broken) just means a {@code null}, and the caller falls
+ * back to reflection. Most packages have no table, and finding that out costs a {@code ClassNotFoundException}, so
+ * packages without one are remembered per loader, in a map which only weakly references the loaders.
+ * <p>
+ * Generated tables check that the raw supertypes are still the ones they were generated for, but can't see a change
+ * in type arguments alone without parsing the generic signatures, which is what they're there to avoid. That only
+ * happens when a class is recompiled without the processor, next to the table of an earlier compilation; and javac
+ * writes the classes of generated sources last. So a table is only trusted for classes whose class files are no newer
+ * than its own, as per their {@linkplain SignatureSnapshot#stampOf(Class, Map) stamps}. Classes in the same jar as
+ * their table have the same stamp, and classes which weren't loaded from a local directory or jar can't be told apart,
+ * so only the raw supertypes are checked for those.
+ *
+ * @author Humberto Anjos
+ */
+final class PrecomputedSignatures {
+  // one instance per generated table class
+  private static final ClassValue<Optional<SignatureTable>> TABLES = new ClassValue<Optional<SignatureTable>>() {
+    @Override
+    protected Optional<SignatureTable> computeValue(Class<?> type) {
+      if (!SignatureTable.class.isAssignableFrom(type)) {
+        return Optional.empty();
+      }
+
+      try {
+        return Optional.of((SignatureTable) type.getDeclaredConstructor().newInstance());
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return Optional.empty();
+      }
+    }
+  };
+
+  // each loader -> the packages it has no table for
+  private static final Map<ClassLoader, Set<String>> MISSING = Collections.synchronizedMap(new WeakHashMap<>());
+
+  // the stamps of the code sources seen so far
+  private static final Map<String, long[]> SOURCES = new ConcurrentHashMap<>();
+
+  // each table class -> the stamp of its class file, or NO_STAMP
+  private static final ClassValue<long[]> TABLE_STAMPS = new ClassValue<long[]>() {
+    @Override
+    protected long[] computeValue(Class<?> type) {
+      long[] stamp = SignatureSnapshot.stampOf(type, SOURCES);
+
+      return (stamp != null) ? stamp : NO_STAMP;
+    }
+  };
+
+  private static final long[] NO_STAMP = {};
+
+  // each class -> its package's table, if there is one, and the class is no newer than it
+  private static final ClassValue<Optional<SignatureTable>> GENERATED =
+    new ClassValue<Optional<SignatureTable>>() {
+      @Override
+      protected Optional<SignatureTable> computeValue(Class<?> type) {
+        Optional<SignatureTable> table = tableFor(type);
+        if (!table.isPresent()) {
+          return table;
+        }
+
+        long[] tableStamp = TABLE_STAMPS.get(table.get().getClass());
+        if (tableStamp == NO_STAMP) {
+          return table;
+        }
+
+        long[] classStamp = SignatureSnapshot.stampOf(type, SOURCES);
+        return (classStamp == null || classStamp[1] <= tableStamp[1]) ? table : Optional.empty();
+      }
+    };
+
+  private PrecomputedSignatures() { /* preventing instantiation */ }
+
+  /**
+   * Forgets which packages have no table, for {@code loader} and its descendants.
+   *
+   * @param loader a non-null class loader.
+   */
+  static void evict(ClassLoader loader) {
+    synchronized (MISSING) { // as required for iterating over a synchronized map
+      MISSING.keySet().removeIf(l -> {
+        for (ClassLoader ancestor = l; ancestor != null; ancestor = ancestor.getParent()) {
+          if (ancestor == loader) {
+            return true;
+          }
+        }
+
+        return false;
+      });
+    }
+  }
+
+  /**
+   * Returns the precomputed type lists of {@code baseClass}' generic superclass, if there are any.
+   *
+   * @param baseClass a non-null class.
+   * @return the precomputed type lists, or {@code null}.
+   */
+  static Type[][] superclassOf(Class<?> baseClass) {
+    Type[][] result = superclassOf(generatedTableFor(baseClass), baseClass);
+
+    return (result != null) ? result : superclassOf(SignatureSnapshot.current(), baseClass);
+  }
+
+  /**
+   * Returns the precomputed type lists of {@code baseClass}' generic superinterface at {@code index}, if there are
+   * any.
+   *
+   * @param baseClass a non-null class.
+   * @param index     which superinterface.
+   * @return the precomputed type lists, or {@code null}.
+   */
+  static Type[][] interfaceOf(Class<?> baseClass, int index) {
+    Type[][] result = interfaceOf(generatedTableFor(baseClass), baseClass, index);
+
+    return (result != null) ? result : interfaceOf(SignatureSnapshot.current(), baseClass, index);
+  }
+
+  private static Type[][] superclassOf(SignatureTable table, Class<?> baseClass) {
+    if (table == null) {
+      return null;
+    }
+
+    try {
+      return table.superclassSignature(baseClass);
+    } catch (RuntimeException | LinkageError e) { // a broken table; fall back to reflection
+      return null;
+    }
+  }
+
+  private static Type[][] interfaceOf(SignatureTable table, Class<?> baseClass, int index) {
+    if (table == null) {
+      return null;
+    }
+
+    try {
+      return table.interfaceSignature(baseClass, index);
+    } catch (RuntimeException | LinkageError e) { // a broken table; fall back to reflection
+      return null;
+    }
+  }
+
+  private static SignatureTable generatedTableFor(Class<?> baseClass) {
+    return GENERATED.get(baseClass).orElse(null);
+  }
+
+  private static Optional<SignatureTable> tableFor(Class<?> baseClass) {
+    ClassLoader loader = baseClass.getClassLoader();
+    if (loader == null || baseClass.isArray() || baseClass.isPrimitive()) { // no tables for these
+      return Optional.empty();
+    }
+
+    String name = baseClass.getName();
+    int lastDot = name.lastIndexOf('.');
+    String packageName = (lastDot < 0) ? "" : name.substring(0, lastDot);
+
+    Set<String> missing = MISSING.computeIfAbsent(loader, l -> ConcurrentHashMap.newKeySet());
+    if (missing.contains(packageName)) {
+      return Optional.empty();
+    }
+
+    String tableName = packageName.isEmpty()
+      ? SignatureTable.SIMPLE_NAME
+      : packageName + "." + SignatureTable.SIMPLE_NAME;
+
+    try {
+      return TABLES.get(Class.forName(tableName, false, loader));
+    } catch (ClassNotFoundException e) {
+      missing.add(packageName);
+      return Optional.empty();
+    } catch (LinkageError e) {
+      return Optional.empty();
+    }
+  }
+}
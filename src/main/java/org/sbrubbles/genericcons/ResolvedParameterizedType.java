@@ -0,0 +1,87 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A parameterized type built by substituting type variables in another, when resolving a class' ancestors.
+ * <p>
+ * gentyref's {@link com.coekie.gentyref.TypeFactory} can't be used here, since it checks the type arguments against
+ * their bounds, and a type variable substituted for another is rarely provably within the original's bounds.
+ * <p>
+ * Equality and hashing are compatible with the JDK's implementation, so these can be compared with any other
+ * parameterized types.
+ *
+ * @author Humberto Anjos
+ */
+final class ResolvedParameterizedType implements ParameterizedType {
+  private final Class<?> rawType;
+  private final Type ownerType;
+  private final Type[] typeArguments;
+
+  ResolvedParameterizedType(Class<?> rawType, Type ownerType, Type[] typeArguments) {
+    this.rawType = rawType;
+    this.ownerType = ownerType;
+    this.typeArguments = typeArguments;
+  }
+
+  @Override
+  public Type[] getActualTypeArguments() {
+    return typeArguments.clone();
+  }
+
+  @Override
+  public Type getRawType() {
+    return rawType;
+  }
+
+  @Override
+  public Type getOwnerType() {
+    return ownerType;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof ParameterizedType)) {
+      return false;
+    }
+
+    ParameterizedType that = (ParameterizedType) o;
+    return rawType.equals(that.getRawType())
+      && Objects.equals(ownerType, that.getOwnerType())
+      && Arrays.equals(typeArguments, that.getActualTypeArguments());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(typeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+
+    if (ownerType instanceof ParameterizedType) {
+      result.append(ownerType.getTypeName()).append('$').append(rawType.getSimpleName());
+    } else {
+      result.append(rawType.getName());
+    }
+
+    result.append('<');
+    for (int i = 0; i < typeArguments.length; i++) {
+      if (i > 0) {
+        result.append(", ");
+      }
+
+      result.append(typeArguments[i].getTypeName());
+    }
+
+    return result.append('>').toString();
+  }
+}
@@ -0,0 +1,293 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * An immutable, persistent list of types, stored as the {@linkplain C cons} {@link Types#cons(List)} would build for
+ * it, so that deriving one signature from another reuses the cons instead of decoding and rebuilding it:
+ * <ul>
+ *   <li>{@link #prepend(Type)} conses a type onto the existing cons, in constant time;</li>
+ *   <li>{@link #concat(Signature)} and {@link #append(Type)} rebuild only this signature's types, on top of the
+ *   other signature's cons;</li>
+ *   <li>{@link #subList(int, int)} shares the tail of the cons for suffixes, and rebuilds only the types asked for
+ *   otherwise.</li>
+ * </ul>
+ * <p>
+ * Usage:
+ * <pre>
+ * Signature handler = Types.signature(Types.fromSuperclass(Max.class, 1)); // [String, String, String]
+ * Signature withContext = handler.prepend(Context.class); // shares handler's cons
+ *
+ * Type cons = withContext.type(); // C&lt;Context, C&lt;String, C&lt;String, String&gt;&gt;&gt;
+ * </pre>
+ * <p>
+ * As in {@code cons}, conses given to any of these methods are flattened, and nulls are skipped. The conses built here
+ * equal (and hash like) those of {@code cons} and of the compiler, but aren't
+ * {@linkplain Types#setConsInterning(boolean) interned}. Reading a type by index walks the cons, but only once: later
+ * reads, and iteration, go through a {@link ConsView}. Signatures are safe to share between threads.
+ *
+ * @author Humberto Anjos
+ * @see Types#signature(Type)
+ * @see Types#signature(List)
+ */
+public final class Signature extends AbstractList<Type> {
+  private static final Signature EMPTY = new Signature(null, 0);
+
+  private final Type type;
+  private final int size;
+  private volatile ConsView view; // created on the first read; racing threads create equivalent views
+
+  private Signature(Type type, int size) {
+    this.type = type;
+    this.size = size;
+  }
+
+  /**
+   * Returns the signature of the types represented by {@code type}, as decoded by {@link Types#fromCons(Type)}.
+   *
+   * @param type a type, possibly a cons, or null.
+   * @return the signature of the types represented by {@code type}.
+   * @throws IllegalArgumentException if the cons is longer than {@linkplain Types#getMaxConsLength() the maximum
+   *                                  length}.
+   */
+  static Signature of(Type type) throws IllegalArgumentException {
+    if (type == null) {
+      return EMPTY;
+    }
+
+    ConsView view = new ConsView(type);
+    Signature result = new Signature(type, view.size());
+    result.view = view;
+
+    return result;
+  }
+
+  /**
+   * Returns the signature of the given types, with conses flattened and nulls skipped, as in {@link Types#cons(List)}.
+   *
+   * @param types a list of types.
+   * @return the signature of the given types.
+   * @throws IllegalArgumentException if a cons in the list, or the flattened list itself, is longer than
+   *                                  {@linkplain Types#getMaxConsLength() the maximum length}.
+   */
+  static Signature of(List<? extends Type> types) throws IllegalArgumentException {
+    Signature result = EMPTY;
+
+    ListIterator<? extends Type> iterator = types.listIterator(types.size());
+    while (iterator.hasPrevious()) {
+      result = result.prepend(iterator.previous());
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the type encoding this signature, as {@link Types#cons(List)} would: null if it's empty, the type itself if
+   * it has only one, or a cons otherwise.
+   *
+   * @return the type encoding this signature.
+   */
+  public Type type() {
+    return type;
+  }
+
+  /**
+   * Returns a signature with {@code first} before this signature's types. This signature's cons becomes the rest of
+   * the new one, so it takes constant time, unless {@code first} is a cons itself, which is flattened.
+   *
+   * @param first the type to prepend, possibly a cons, or null.
+   * @return a signature with {@code first} before this signature's types.
+   * @throws IllegalArgumentException if the result would be longer than {@linkplain Types#getMaxConsLength() the
+   *                                  maximum length}.
+   */
+  public Signature prepend(Type first) throws IllegalArgumentException {
+    if (first == null) {
+      return this;
+    }
+
+    if (Types.isCons(first)) {
+      return of(first).concat(this);
+    }
+
+    if (size == 0) {
+      return new Signature(first, 1);
+    }
+
+    final int SIZE = checkedSize(size + 1L);
+    return new Signature(new ConsType(first, type), SIZE);
+  }
+
+  /**
+   * Returns a signature with {@code last} after this signature's types. Conses end in their last type, so this
+   * rebuilds the whole cons, though in a single pass.
+   *
+   * @param last the type to append, possibly a cons, or null.
+   * @return a signature with {@code last} after this signature's types.
+   * @throws IllegalArgumentException if the result would be longer than {@linkplain Types#getMaxConsLength() the
+   *                                  maximum length}.
+   */
+  public Signature append(Type last) throws IllegalArgumentException {
+    return (last == null) ? this : concat(of(last));
+  }
+
+  /**
+   * Returns a signature with the types of {@code other} after this signature's types. The new cons is built on top of
+   * {@code other}'s, so only this signature's types are consed again.
+   *
+   * @param other another signature.
+   * @return a signature with the types of this one, followed by those of {@code other}.
+   * @throws NullPointerException     if {@code other} is null.
+   * @throws IllegalArgumentException if the result would be longer than {@linkplain Types#getMaxConsLength() the
+   *                                  maximum length}.
+   */
+  public Signature concat(Signature other) throws NullPointerException, IllegalArgumentException {
+    if (other == null) {
+      throw new NullPointerException("No signature given");
+    }
+
+    if (other.size == 0) {
+      return this;
+    }
+
+    if (size == 0) {
+      return other;
+    }
+
+    final int SIZE = checkedSize((long) size + other.size);
+    return new Signature(consOnto(toArray(new Type[size]), size, other.type), SIZE);
+  }
+
+  /**
+   * Returns the signature of the types in {@code [fromIndex, toIndex)}. Suffixes share this signature's cons when it
+   * was built here or by {@link Types#cons(List)}; anything else is rebuilt from the types asked for.
+   *
+   * @param fromIndex where the new signature starts, inclusive.
+   * @param toIndex   where the new signature ends, exclusive.
+   * @return the signature of the types in {@code [fromIndex, toIndex)}.
+   * @throws IndexOutOfBoundsException if {@code fromIndex} is negative, or {@code toIndex} is greater than this
+   *                                   signature's size.
+   * @throws IllegalArgumentException  if {@code fromIndex} is greater than {@code toIndex}.
+   */
+  @Override
+  public Signature subList(int fromIndex, int toIndex) throws IndexOutOfBoundsException, IllegalArgumentException {
+    if (fromIndex < 0 || toIndex > size) {
+      throw new IndexOutOfBoundsException(
+        "Range [" + fromIndex + ", " + toIndex + ") out of bounds for length " + size);
+    }
+
+    if (fromIndex > toIndex) {
+      throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+    }
+
+    if (fromIndex == toIndex) {
+      return EMPTY;
+    }
+
+    if (fromIndex == 0 && toIndex == size) {
+      return this;
+    }
+
+    if (toIndex == size) { // a suffix, which may already be in the cons
+      Type rest = type;
+      int i = 0;
+      while (i < fromIndex && isPlainCons(rest)) {
+        rest = (rest instanceof ConsType)
+          ? ((ConsType) rest).rest()
+          : ((ParameterizedType) rest).getActualTypeArguments()[1];
+        i++;
+      }
+
+      if (i == fromIndex) {
+        return new Signature(rest, size - fromIndex);
+      }
+    }
+
+    final int LENGTH = toIndex - fromIndex;
+    Type[] types = new Type[LENGTH];
+
+    Iterator<Type> iterator = view().iterator();
+    for (int i = 0; i < toIndex; i++) {
+      Type next = iterator.next();
+
+      if (i >= fromIndex) {
+        types[i - fromIndex] = next;
+      }
+    }
+
+    return (LENGTH == 1)
+      ? new Signature(types[0], 1)
+      : new Signature(consOnto(types, LENGTH - 1, types[LENGTH - 1]), LENGTH);
+  }
+
+  /**
+   * Returns the type at {@code index}.
+   *
+   * @param index where in this signature the desired type is.
+   * @return the type at {@code index}.
+   * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than this signature's size.
+   */
+  @Override
+  public Type get(int index) throws IndexOutOfBoundsException {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    return view().get(index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<Type> iterator() {
+    return view().iterator();
+  }
+
+  /**
+   * Returns a lazy view of this signature's cons, for reading.
+   *
+   * @return a lazy view of this signature's cons.
+   */
+  ConsView view() {
+    ConsView result = view;
+    if (result == null) {
+      result = new ConsView(type);
+      view = result;
+    }
+
+    return result;
+  }
+
+  // size, if it's within the maximum length, as in Types.fromCons
+  private static int checkedSize(long size) throws IllegalArgumentException {
+    final int MAX = Types.getMaxConsLength();
+    if (size > MAX) {
+      throw new IllegalArgumentException("Cons longer than the maximum length of " + MAX);
+    }
+
+    return (int) size;
+  }
+
+  // conses types[0, length) onto rest, back to front
+  private static Type consOnto(Type[] types, int length, Type rest) {
+    Type result = rest;
+    for (int i = length - 1; i >= 0; i--) {
+      result = new ConsType(types[i], result);
+    }
+
+    return result;
+  }
+
+  // if type is a C<First, Rest>, so its rest is a suffix of the same list
+  private static boolean isPlainCons(Type type) {
+    return type instanceof ConsType
+      || (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == C.class);
+  }
+}
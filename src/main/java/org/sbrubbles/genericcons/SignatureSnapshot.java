@@ -0,0 +1,455 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeFactory;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@linkplain SignatureTable signature table} saved to disk by one process and memory-mapped by the next, so a
+ * restarted JVM can skip the reflection and decoding it did last time.
+ * <p>
+ * The file holds, for each class, its name, a stamp and the flattened type lists of each type argument of its generic
+ * supertypes. Only the names of the classes are read when the file is {@linkplain #load(Path) loaded}; everything else
+ * is read from the mapped file when first asked for, using the asking class' own loader, and only if the class still
+ * has the same stamp. Stale or unreadable entries are ignored, and reflection takes over.
+ * <p>
+ * The stamp is the size and last modification time of the class file, or of the jar it's in, like build tools and
+ * class data sharing check theirs. Reading the class file itself would be more precise, but costs more than the
+ * reflection this is meant to save: checking a CRC32 made a cold lookup about twice as slow as plain reflection. So
+ * only the file's attributes are read, and each jar's only once per snapshot. Classes not loaded from a local
+ * directory or jar have no stamp, and aren't saved.
+ * <p>
+ * Types that can't be written down by name (type variables, or members of generic classes) aren't saved; their
+ * supertypes are left for reflection.
+ *
+ * @author Humberto Anjos
+ * @see Types#exportSnapshot(Collection, Path)
+ * @see Types#loadSnapshot(Path)
+ */
+final class SignatureSnapshot implements SignatureTable {
+  private static final int MAGIC = 0x47435353; // "GCSS"
+  private static final int VERSION = 2;
+
+  private static final int SUPERCLASS = -1; // the supertype index of the superclass; interfaces go from 0
+
+  // type tags
+  private static final byte CLASS = 0;
+  private static final byte PARAMETERIZED = 1;
+  private static final byte ARRAY = 2;
+  private static final byte WILDCARD = 3;
+
+  private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+  // marks directories among the stamps of code sources, since their class files are stamped one by one
+  private static final long[] DIRECTORY = {};
+
+  static {
+    for (Class<?> c : Arrays.asList(boolean.class, byte.class, char.class, short.class, int.class, long.class,
+      float.class, double.class, void.class)) {
+      PRIMITIVES.put(c.getName(), c);
+    }
+  }
+
+  private static volatile SignatureSnapshot current;
+
+  private final ByteBuffer buffer; // shared, so only read with absolute gets, or through duplicates
+  private final Map<String, Integer> entries; // class name -> where its entry starts
+  private final Map<String, long[]> sources = new ConcurrentHashMap<>(); // code source -> its stamp, read once
+
+  // a class' entry is only trusted if its class file still has the same stamp
+  private final ClassValue<Boolean> fresh = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      Integer offset = entries.get(type.getName());
+      if (offset == null) {
+        return false;
+      }
+
+      long[] stamp = stampOf(type, sources);
+      return stamp != null && stamp[0] == buffer.getLong(offset) && stamp[1] == buffer.getLong(offset + 8);
+    }
+  };
+
+  private SignatureSnapshot(ByteBuffer buffer, Map<String, Integer> entries) {
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  /**
+   * Returns the snapshot in use, if there's one.
+   *
+   * @return the snapshot in use, or {@code null}.
+   */
+  static SignatureSnapshot current() {
+    return current;
+  }
+
+  /**
+   * Sets the snapshot in use.
+   *
+   * @param snapshot the snapshot to use, or {@code null} for none.
+   */
+  static void install(SignatureSnapshot snapshot) {
+    current = snapshot;
+  }
+
+  /**
+   * Returns how many classes this snapshot has entries for.
+   *
+   * @return how many classes this snapshot has entries for.
+   */
+  int size() {
+    return entries.size();
+  }
+
+  @Override
+  public Type[][] superclassSignature(Class<?> baseClass) {
+    return signature(baseClass, SUPERCLASS);
+  }
+
+  @Override
+  public Type[][] interfaceSignature(Class<?> baseClass, int index) {
+    return (index < 0) ? null : signature(baseClass, index);
+  }
+
+  private Type[][] signature(Class<?> baseClass, int supertypeIndex) {
+    if (baseClass == null || baseClass.isArray() || baseClass.isPrimitive() || !fresh.get(baseClass)) {
+      return null;
+    }
+
+    ByteBuffer in = buffer.duplicate();
+    in.position(entries.get(baseClass.getName()) + 16); // skipping the stamp
+
+    try {
+      final int SUPERTYPES = in.getInt();
+      for (int s = 0; s < SUPERTYPES; s++) {
+        int index = in.getInt();
+        int length = in.getInt();
+
+        if (index != supertypeIndex) {
+          in.position(in.position() + length);
+          continue;
+        }
+
+        Type[][] result = new Type[in.getInt()][];
+        for (int p = 0; p < result.length; p++) {
+          result[p] = new Type[in.getInt()];
+
+          for (int t = 0; t < result[p].length; t++) {
+            result[p][t] = readType(in, baseClass.getClassLoader());
+          }
+        }
+
+        return result;
+      }
+    } catch (ClassNotFoundException | LinkageError | RuntimeException e) { // unreadable; fall back to reflection
+      return null;
+    }
+
+    return null;
+  }
+
+  /**
+   * Memory-maps and indexes the given snapshot file.
+   *
+   * @param file a file written by {@link #write(Collection, Path)}.
+   * @return the loaded snapshot.
+   * @throws IOException if the file couldn't be read, or isn't a snapshot.
+   */
+  static SignatureSnapshot load(Path file) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid after closing
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException("Not a signature snapshot: " + file);
+      }
+
+      final int SIZE = buffer.getInt();
+      Map<String, Integer> entries = new HashMap<>(SIZE * 2);
+      for (int i = 0; i < SIZE; i++) {
+        String name = readString(buffer);
+        int length = buffer.getInt();
+
+        entries.put(name, buffer.position());
+        buffer.position(buffer.position() + length);
+      }
+
+      return new SignatureSnapshot(buffer, entries);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Truncated signature snapshot: " + file, e);
+    }
+  }
+
+  /**
+   * Resolves the given classes through reflection, and writes their signatures to {@code file}. Classes without a
+   * class file to stamp, or without any generic supertypes that can be written down, are left out.
+   *
+   * @param classes the classes to save.
+   * @param file    where to save them.
+   * @return how many classes were saved.
+   * @throws IOException if the file couldn't be written.
+   */
+  static int write(Collection<? extends Class<?>> classes, Path file) throws IOException {
+    ByteArrayOutputStream entries = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(entries);
+
+    Map<String, long[]> sources = new HashMap<>();
+    int count = 0;
+    for (Class<?> c : new LinkedHashSet<>(classes)) {
+      byte[] entry = entryOf(c, sources);
+
+      if (entry != null) {
+        writeString(out, c.getName());
+        out.writeInt(entry.length);
+        out.write(entry);
+        count++;
+      }
+    }
+
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(count);
+      entries.writeTo(output);
+    }
+
+    return count;
+  }
+
+  // the stamp and supertypes of c, or null if there's nothing worth saving
+  private static byte[] entryOf(Class<?> c, Map<String, long[]> sources) throws IOException {
+    if (c.isArray() || c.isPrimitive()) {
+      return null;
+    }
+
+    long[] stamp = stampOf(c, sources);
+    if (stamp == null) {
+      return null;
+    }
+
+    ByteArrayOutputStream supertypes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(supertypes);
+
+    int count = 0;
+    if (writeSupertype(out, SUPERCLASS, Types.genericSuperclassOf(c))) {
+      count++;
+    }
+
+    final int INTERFACES = c.getInterfaces().length;
+    for (int i = 0; i < INTERFACES; i++) {
+      if (writeSupertype(out, i, Types.genericInterfaceOf(c, i))) {
+        count++;
+      }
+    }
+
+    if (count == 0) {
+      return null;
+    }
+
+    ByteArrayOutputStream entry = new ByteArrayOutputStream();
+    DataOutputStream entryOut = new DataOutputStream(entry);
+    entryOut.writeLong(stamp[0]);
+    entryOut.writeLong(stamp[1]);
+    entryOut.writeInt(count);
+    supertypes.writeTo(entryOut);
+
+    return entry.toByteArray();
+  }
+
+  private static boolean writeSupertype(DataOutputStream out, int index, Optional<ParameterizedType> supertype)
+    throws IOException {
+    if (!supertype.isPresent()) {
+      return false;
+    }
+
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    DataOutputStream blockOut = new DataOutputStream(block);
+
+    try {
+      Type[] arguments = supertype.get().getActualTypeArguments();
+      blockOut.writeInt(arguments.length);
+
+      for (Type argument : arguments) {
+        List<? extends Type> types = Types.decode(argument);
+        blockOut.writeInt(types.size());
+
+        for (Type type : types) {
+          if (!writeType(blockOut, type)) {
+            return false;
+          }
+        }
+      }
+    } catch (IllegalArgumentException e) { // a cons too long to decode; reflection will complain in due time
+      return false;
+    }
+
+    out.writeInt(index);
+    out.writeInt(block.size());
+    block.writeTo(out);
+    return true;
+  }
+
+  // false if type can't be written down
+  private static boolean writeType(DataOutputStream out, Type type) throws IOException {
+    if (type instanceof Class) {
+      out.writeByte(CLASS);
+      writeString(out, ((Class<?>) type).getName());
+      return true;
+    }
+
+    if (type instanceof ParameterizedType) {
+      ParameterizedType p = (ParameterizedType) type;
+      if (!(p.getRawType() instanceof Class) || (p.getOwnerType() != null && !(p.getOwnerType() instanceof Class))) {
+        return false;
+      }
+
+      Type[] arguments = p.getActualTypeArguments();
+      out.writeByte(PARAMETERIZED);
+      writeString(out, ((Class<?>) p.getRawType()).getName());
+      out.writeInt(arguments.length);
+      for (Type argument : arguments) {
+        if (!writeType(out, argument)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    if (type instanceof GenericArrayType) {
+      out.writeByte(ARRAY);
+      return writeType(out, ((GenericArrayType) type).getGenericComponentType());
+    }
+
+    if (type instanceof WildcardType) {
+      WildcardType w = (WildcardType) type;
+      Type[] lower = w.getLowerBounds();
+      Type[] upper = w.getUpperBounds();
+
+      out.writeByte(WILDCARD);
+      if (lower.length > 0) {
+        out.writeByte(1); // ? super
+        return writeType(out, lower[0]);
+      } else if (upper.length > 0 && upper[0] != Object.class) {
+        out.writeByte(2); // ? extends
+        return writeType(out, upper[0]);
+      } else {
+        out.writeByte(0); // ?
+        return true;
+      }
+    }
+
+    return false; // type variables and whatever else
+  }
+
+  private static Type readType(ByteBuffer in, ClassLoader loader) throws ClassNotFoundException {
+    byte tag = in.get();
+
+    switch (tag) {
+      case CLASS:
+        return classFor(readString(in), loader);
+      case PARAMETERIZED:
+        Class<?> raw = classFor(readString(in), loader);
+        Type[] arguments = new Type[in.getInt()];
+        for (int i = 0; i < arguments.length; i++) {
+          arguments[i] = readType(in, loader);
+        }
+
+        return TypeFactory.parameterizedClass(raw, arguments);
+      case ARRAY:
+        return TypeFactory.arrayOf(readType(in, loader));
+      case WILDCARD:
+        switch (in.get()) {
+          case 1:
+            return TypeFactory.wildcardSuper(readType(in, loader));
+          case 2:
+            return TypeFactory.wildcardExtends(readType(in, loader));
+          default:
+            return TypeFactory.unboundWildcard();
+        }
+      default:
+        throw new IllegalArgumentException("Unknown type tag " + tag);
+    }
+  }
+
+  private static Class<?> classFor(String name, ClassLoader loader) throws ClassNotFoundException {
+    Class<?> primitive = PRIMITIVES.get(name);
+
+    return (primitive != null) ? primitive : Class.forName(name, false, loader);
+  }
+
+  /**
+   * Returns the stamp of the given class: the size and last modification time of its class file, or of the jar it's
+   * in.
+   *
+   * @param c       a non-array, non-primitive class.
+   * @param sources the stamps of the code sources seen so far, so each jar is only looked at once.
+   * @return the stamp of {@code c}, or {@code null} if it wasn't loaded from a local directory or jar.
+   */
+  static long[] stampOf(Class<?> c, Map<String, long[]> sources) {
+    try {
+      CodeSource source = c.getProtectionDomain().getCodeSource();
+      URL location = (source == null) ? null : source.getLocation();
+      if (location == null || !"file".equals(location.getProtocol())) {
+        return null;
+      }
+
+      String key = location.toExternalForm(); // cheaper than a path, and just as unique
+      long[] stamp = sources.get(key);
+      if (stamp == null) {
+        BasicFileAttributes attributes = Files.readAttributes(Paths.get(location.toURI()), BasicFileAttributes.class);
+        stamp = attributes.isDirectory()
+          ? DIRECTORY
+          : new long[] { attributes.size(), attributes.lastModifiedTime().toMillis() };
+        sources.put(key, stamp);
+      }
+
+      if (stamp == DIRECTORY) {
+        return stampOf(Paths.get(location.toURI()).resolve(c.getName().replace('.', '/') + ".class"));
+      }
+
+      return stamp;
+    } catch (IOException | URISyntaxException | RuntimeException e) { // no class file to stamp
+      return null;
+    }
+  }
+
+  private static long[] stampOf(Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+    return new long[] { attributes.size(), attributes.lastModifiedTime().toMillis() };
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,99 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.Type;
+
+/**
+ * A table of precomputed signatures: the {@linkplain Types#fromCons(Type) decoded type lists} of generic supertypes,
+ * known ahead of time.
+ * <p>
+ * Tables are generated at compile time by {@link org.sbrubbles.genericcons.processor.ConsSignatureProcessor}, one per
+ * package, as a class named {@value #SIMPLE_NAME}. {@link Types#fromSuperclass(Class, int)} and
+ * {@link Types#fromInterface(Class, int)} look for the table in the base class' package first, and only resort to
+ * reflection if the class isn't there. The generated tables don't parse generic signatures: they only check that the
+ * raw supertypes are still the ones they were generated for, and the library ignores tables older than the classes
+ * they describe.
+ * <p>
+ * This interface is meant for generated code; there should be no need to implement or call it directly.
+ *
+ * @author Humberto Anjos
+ * @see org.sbrubbles.genericcons.processor.ConsSignatureProcessor
+ */
+public interface SignatureTable {
+  /**
+   * The simple name of the generated tables, which are expected in the same package as the classes they describe.
+   */
+  String SIMPLE_NAME = "GenericConsSignatures";
+
+  /**
+   * Returns the decoded type lists of each type argument in {@code baseClass}' generic superclass, or {@code null} if
+   * {@code baseClass} isn't in this table, or its raw superclass changed since the table was generated.
+   *
+   * @param baseClass a class.
+   * @return the decoded type lists of {@code baseClass}' superclass, or {@code null}.
+   */
+  Type[][] superclassSignature(Class<?> baseClass);
+
+  /**
+   * Returns the decoded type lists of each type argument in {@code baseClass}' generic superinterface at
+   * {@code index}, or {@code null} if {@code baseClass} isn't in this table, or its raw superinterfaces changed since
+   * the table was generated.
+   *
+   * @param baseClass a class.
+   * @param index     which of {@code baseClass}' superinterfaces.
+   * @return the decoded type lists of {@code baseClass}' superinterface at {@code index}, or {@code null}.
+   */
+  Type[][] interfaceSignature(Class<?> baseClass, int index);
+
+  /**
+   * Returns the canonical parameterized type with the given raw type and type arguments, and the raw type's
+   * declaring class as its owner, like reflection would. Unlike gentyref's
+   * {@link com.coekie.gentyref.TypeFactory}, this doesn't check the arguments against their bounds, which the
+   * compiler already did.
+   *
+   * @param rawType   a non-null class.
+   * @param arguments the type arguments.
+   * @return the canonical parameterized type.
+   */
+  static Type parameterizedClass(Class<?> rawType, Type... arguments) {
+    return Types.canonicalTypes().parameterized(rawType, rawType.getDeclaringClass(), arguments);
+  }
+
+  /**
+   * Returns the canonical array type of {@code componentType}.
+   *
+   * @param componentType a non-null type.
+   * @return the canonical array type of {@code componentType}; a class, if {@code componentType} is one.
+   */
+  static Type arrayOf(Type componentType) {
+    return Types.canonicalTypes().array(componentType);
+  }
+
+  /**
+   * Returns the canonical wildcard {@code ? extends bound}.
+   *
+   * @param bound a non-null type.
+   * @return the canonical wildcard {@code ? extends bound}.
+   */
+  static Type wildcardExtends(Type bound) {
+    return Types.canonicalTypes().wildcard(new Type[] { bound }, new Type[0]);
+  }
+
+  /**
+   * Returns the canonical wildcard {@code ? super bound}.
+   *
+   * @param bound a non-null type.
+   * @return the canonical wildcard {@code ? super bound}.
+   */
+  static Type wildcardSuper(Type bound) {
+    return Types.canonicalTypes().wildcard(new Type[] { Object.class }, new Type[] { bound });
+  }
+
+  /**
+   * Returns the canonical wildcard {@code ?}.
+   *
+   * @return the canonical wildcard {@code ?}.
+   */
+  static Type unboundWildcard() {
+    return Types.canonicalTypes().wildcard(new Type[] { Object.class }, new Type[0]);
+  }
+}
@@ -0,0 +1,231 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An index of the interfaces each class implements, so that checking if a class implements an interface is a single
+ * bit probe.
+ * <p>
+ * The JVM already answers {@code isAssignableFrom} for superclasses in constant time, by looking the superclass up at
+ * its depth in the class' hierarchy. But interfaces are looked for in a list of all of the class' interfaces, and
+ * only the last one found is cached; so a call site which checks a class against several interfaces, or against
+ * interfaces it doesn't implement, scans the list on most calls. Here, each interface gets a small int ID when first
+ * seen, and each class the set of IDs of all of its interfaces (its superclasses' and superinterfaces' included), as a
+ * bitset, computed once from those of its direct supertypes.
+ * <p>
+ * The IDs and bitsets are kept in {@link ClassValue}s, so they live exactly as long as the classes they describe. Unlike
+ * {@link ClassSignatures}, there's no need to keep those of the JDK's classes elsewhere: the values are only
+ * {@code Integer}s and {@code long[]}s, which don't keep this library's loader alive. The index grows as new classes
+ * are seen, concurrently: racing threads may both compute a class' bitset, or an interface's ID, but only one is kept.
+ * <p>
+ * The IDs of collected interfaces are reused, lowest first, so redeploying an application doesn't keep making the
+ * bitsets longer. That's safe because a class keeps its interfaces alive: by the time an interface's ID is free again,
+ * every class whose bitset has its bit set was collected too. Interfaces which may be collected are weakly tracked
+ * here, and their IDs reclaimed the next time an interface needs one; those which
+ * {@linkplain ClassLoaders#outlivesLibrary(Class) outlive this library} keep theirs, untracked.
+ *
+ * @author Humberto Anjos
+ */
+final class SupertypeIndex {
+  private static final long[] NONE = {};
+
+  // the IDs handed out, guarded by FREE, which holds those reclaimed from collected interfaces
+  private static final BitSet FREE = new BitSet();
+  private static final Set<Slot> SLOTS = new HashSet<>();
+  private static final ReferenceQueue<Class<?>> COLLECTED = new ReferenceQueue<>();
+  private static int bound = 0; // one past the highest ID handed out
+
+  // only for interfaces
+  private static final ClassValue<Integer> IDS = new ClassValue<Integer>() {
+    @Override
+    protected Integer computeValue(Class<?> type) {
+      for (Class<?> superinterface : type.getInterfaces()) { // so they get smaller IDs, and shorter bitsets
+        IDS.get(superinterface);
+      }
+
+      return allocate(type);
+    }
+  };
+
+  // bit i is set if the class is, or implements, the interface whose ID is i
+  private static final ClassValue<long[]> INTERFACES = new ClassValue<long[]>() {
+    @Override
+    protected long[] computeValue(Class<?> type) {
+      return interfacesOf(type);
+    }
+  };
+
+  private SupertypeIndex() { /* preventing instantiation */ }
+
+  /**
+   * Checks if {@code runtimeClass} is assignable to {@code type}, like {@code type.isAssignableFrom(runtimeClass)}.
+   *
+   * @param type         a non-null class.
+   * @param runtimeClass a non-null class.
+   * @return if {@code runtimeClass} is assignable to {@code type}.
+   */
+  static boolean isAssignable(Class<?> type, Class<?> runtimeClass) {
+    if (type == runtimeClass) {
+      return true;
+    }
+
+    // the JVM's own check is as fast for classes, and arrays and primitives aren't indexed
+    if (!type.isInterface() || runtimeClass.isArray() || runtimeClass.isPrimitive()) {
+      return type.isAssignableFrom(runtimeClass);
+    }
+
+    return implementsInterface(runtimeClass, IDS.get(type));
+  }
+
+  /**
+   * Checks if {@code object} is an instance of {@code type}, like {@code type.isInstance(object)}.
+   *
+   * @param type   a non-null class.
+   * @param object an object, or null.
+   * @return if {@code object} is an instance of {@code type}.
+   */
+  static boolean isInstance(Class<?> type, Object object) {
+    return object != null && isAssignable(type, object.getClass());
+  }
+
+  /**
+   * Returns the ID of {@code type} in the index, for {@link #isInstance(int, Class, Object)}.
+   *
+   * @param type a non-null class.
+   * @return the ID of {@code type}, if it's an interface, or -1 otherwise.
+   */
+  static int idOf(Class<?> type) {
+    return type.isInterface() ? IDS.get(type) : -1;
+  }
+
+  /**
+   * Checks if {@code object} is an instance of {@code type}, like {@link #isInstance(Class, Object)}, but with
+   * {@code type}'s ID already looked up.
+   *
+   * @param id     {@code type}'s {@linkplain #idOf(Class) ID}.
+   * @param type   a non-null class.
+   * @param object an object, or null.
+   * @return if {@code object} is an instance of {@code type}.
+   */
+  static boolean isInstance(int id, Class<?> type, Object object) {
+    if (object == null) {
+      return false;
+    }
+
+    Class<?> runtimeClass = object.getClass();
+    if (id < 0 || runtimeClass == type || runtimeClass.isArray()) {
+      return type.isInstance(object);
+    }
+
+    return implementsInterface(runtimeClass, id);
+  }
+
+  /**
+   * Returns one past the highest ID handed out so far, which bounds how many bits a bitset may take. Reused IDs don't
+   * make it grow.
+   *
+   * @return one past the highest ID handed out so far.
+   */
+  static int idBound() {
+    synchronized (FREE) {
+      return bound;
+    }
+  }
+
+  // the lowest free ID, reclaiming those of collected interfaces first. An ID lost to a race is only reclaimed along
+  // with its interface, if at all
+  private static int allocate(Class<?> type) {
+    synchronized (FREE) {
+      Reference<? extends Class<?>> reference;
+      while ((reference = COLLECTED.poll()) != null) {
+        Slot slot = (Slot) reference;
+        SLOTS.remove(slot);
+        FREE.set(slot.value);
+      }
+
+      int value = FREE.nextSetBit(0);
+      if (value < 0) {
+        value = bound++;
+      } else {
+        FREE.clear(value);
+      }
+
+      if (!ClassLoaders.outlivesLibrary(type)) {
+        SLOTS.add(new Slot(type, value, COLLECTED));
+      }
+
+      return value;
+    }
+  }
+
+  private static boolean implementsInterface(Class<?> runtimeClass, int id) {
+    long[] interfaces = INTERFACES.get(runtimeClass);
+
+    final int WORD = id >>> 6;
+    return WORD < interfaces.length && (interfaces[WORD] & (1L << id)) != 0;
+  }
+
+  // from the bitsets of type's direct supertypes
+  private static long[] interfacesOf(Class<?> type) {
+    Class<?> superclass = type.getSuperclass();
+    long[] result = (superclass == null) ? NONE : INTERFACES.get(superclass);
+
+    boolean shared = true; // the superclass' bitset is reused by classes which add no interfaces of their own
+    for (Class<?> i : type.getInterfaces()) {
+      long[] other = INTERFACES.get(i);
+      if (!covers(result, other)) {
+        result = or(result, other, shared);
+        shared = false;
+      }
+    }
+
+    if (type.isInterface()) {
+      final int ID = IDS.get(type);
+
+      result = or(result, new long[(ID >>> 6) + 1], shared);
+      result[ID >>> 6] |= 1L << ID;
+    }
+
+    return result;
+  }
+
+  // if all of other's bits are set in bits
+  private static boolean covers(long[] bits, long[] other) {
+    for (int i = 0; i < other.length; i++) {
+      if ((other[i] & ~(i < bits.length ? bits[i] : 0)) != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  // bits | other, in bits itself if it's not shared and long enough
+  private static long[] or(long[] bits, long[] other, boolean shared) {
+    long[] result = (shared || bits.length < other.length)
+      ? Arrays.copyOf(bits, Math.max(bits.length, other.length))
+      : bits;
+
+    for (int i = 0; i < other.length; i++) {
+      result[i] |= other[i];
+    }
+
+    return result;
+  }
+
+  // tracks an interface's ID, to be reclaimed once the interface is collected; kept reachable in SLOTS until then
+  private static final class Slot extends WeakReference<Class<?>> {
+    final int value;
+
+    Slot(Class<?> type, int value, ReferenceQueue<Class<?>> queue) {
+      super(type, queue);
+      this.value = value;
+    }
+  }
+}
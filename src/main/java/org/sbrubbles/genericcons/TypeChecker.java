@@ -0,0 +1,407 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A precompiled version of {@link Types#check(List, List)}, for a fixed list of types.
+ * <p>
+ * All the work that depends only on the types is done once, when the checker is {@linkplain Types#compile(List)
+ * built}: null and primitive types are marked as matching nothing, plain classes are reduced to an instanceof test
+ * (a bit probe in the {@link SupertypeIndex}, for interfaces), and only the genuinely generic types fall back to
+ * {@link Types#check(Type, Object)}, after their erasure has already filtered out the obvious mismatches.
+ * <p>
+ * Usage:
+ * <pre>
+ * TypeChecker checker = Types.compile(Types.fromSuperclass(this.getClass(), 1)); // once
+ *
+ * if (!checker.check(objects)) { // many times
+ *   // ...
+ * }
+ * </pre>
+ * <p>
+ * Batches of rows can be checked in one go, either {@linkplain #checkAll(List) row by row} or
+ * {@linkplain #checkColumns(Object[][], int, int) column by column}, optionally split across a {@link ForkJoinPool}.
+ * <p>
+ * Instances are immutable, and therefore safe to share between threads.
+ *
+ * @author Humberto Anjos
+ * @see Types#compile(List)
+ */
+public final class TypeChecker {
+  // how each position is checked
+  private static final byte NEVER = 0; // null or primitive types; nothing matches
+  private static final byte CLASS = 1; // non-primitive classes; an instanceof test suffices
+  private static final byte GENERIC = 2; // everything else; erasure as a pre-filter, then the full check
+
+  // how many rows a batch task checks by itself, without splitting further
+  private static final int BATCH_SLICE = 1024;
+
+  private final Type[] types;
+  private final Class<?>[] erasures; // null where there's no erasure to pre-filter with
+  private final int[] ids; // the erasures' IDs in the SupertypeIndex, or -1
+  private final byte[] modes;
+  private final List<Type> typeList;
+
+  TypeChecker(List<? extends Type> types) {
+    final int SIZE = types.size();
+
+    this.types = types.toArray(new Type[SIZE]);
+    this.typeList = Collections.unmodifiableList(Arrays.asList(this.types.clone())); // as given, before canonicalizing
+    this.erasures = new Class<?>[SIZE];
+    this.ids = new int[SIZE];
+    this.modes = new byte[SIZE];
+
+    for (int i = 0; i < SIZE; i++) {
+      Type type = Types.canonicalize(this.types[i]); // cheaper to hash, for the assignability cache
+      this.types[i] = type;
+
+      if (type == null || Types.isPrimitive(type)) {
+        modes[i] = NEVER;
+      } else if (type instanceof Class) {
+        modes[i] = CLASS;
+        erasures[i] = (Class<?>) type;
+      } else {
+        modes[i] = GENERIC;
+
+        // only these are known to be assignable only from subclasses of their erasure
+        if (type instanceof ParameterizedType || type instanceof GenericArrayType) {
+          erasures[i] = GenericTypeReflector.erase(type);
+        }
+      }
+
+      ids[i] = (erasures[i] == null) ? -1 : SupertypeIndex.idOf(erasures[i]);
+    }
+  }
+
+  /**
+   * Returns the types this checker checks against.
+   *
+   * @return an immutable list of the types this checker checks against.
+   */
+  public List<? extends Type> types() {
+    return typeList;
+  }
+
+  /**
+   * Returns how many objects this checker expects.
+   *
+   * @return how many objects this checker expects.
+   */
+  public int size() {
+    return types.length;
+  }
+
+  /**
+   * Checks if the given objects are assignable to this checker's types, in order. Equivalent to (but faster than)
+   * {@code Types.check(this.types(), objects)}.
+   *
+   * @param objects the objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @see Types#check(List, List)
+   */
+  public boolean check(List<?> objects) {
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS == TypesMetrics.NONE) {
+      return matchesAll(objects);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = matchesAll(objects);
+    Types.checked(METRICS, START, result);
+    return result;
+  }
+
+  private boolean matchesAll(List<?> objects) {
+    if (objects == null || objects.size() != types.length) {
+      return false;
+    }
+
+    final int SIZE = types.length;
+    for (int i = 0; i < SIZE; i++) {
+      if (!matches(i, objects.get(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks if the given objects are assignable to this checker's types, in order. Handy for checking varargs as they
+   * come, without wrapping them in a list; no allocations are needed.
+   *
+   * @param objects the objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @see #check(List)
+   */
+  public boolean check(Object... objects) {
+    return objects != null && check(objects, 0, objects.length);
+  }
+
+  /**
+   * Checks if the objects in {@code objects[offset, offset + length)} are assignable to this checker's types, in
+   * order.
+   *
+   * @param objects an array holding the objects to check.
+   * @param offset  where in {@code objects} the objects to check start.
+   * @param length  how many objects to check.
+   * @return if the given objects are compatible with this checker's types.
+   * @throws IndexOutOfBoundsException if {@code objects} is not null, and {@code offset} and {@code length} don't
+   *                                   describe a range within it.
+   * @see Types#check(List, Object[], int, int)
+   */
+  public boolean check(Object[] objects, int offset, int length) throws IndexOutOfBoundsException {
+    final TypesMetrics METRICS = Types.metrics();
+    if (METRICS == TypesMetrics.NONE) {
+      return matchesAll(objects, offset, length);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = false;
+    try {
+      result = matchesAll(objects, offset, length);
+      return result;
+    } finally {
+      Types.checked(METRICS, START, result);
+    }
+  }
+
+  private boolean matchesAll(Object[] objects, int offset, int length) throws IndexOutOfBoundsException {
+    if (objects == null) {
+      return false;
+    }
+
+    Types.checkRange(objects, offset, length);
+
+    if (length != types.length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (!matches(i, objects[offset + i])) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks each of the given rows against this checker's types, as {@link #check(List)} would.
+   *
+   * @param rows the rows to check.
+   * @return which rows passed, and where each of the others failed.
+   * @throws NullPointerException if {@code rows} is null.
+   */
+  public BatchResult checkAll(List<? extends List<?>> rows) throws NullPointerException {
+    return checkAll(rows, null);
+  }
+
+  /**
+   * Checks each of the given rows against this checker's types, as {@link #check(List)} would, splitting large
+   * batches across {@code pool}.
+   *
+   * @param rows the rows to check.
+   * @param pool where to run the checks, or null to run them all in the calling thread.
+   * @return which rows passed, and where each of the others failed.
+   * @throws NullPointerException if {@code rows} is null.
+   */
+  public BatchResult checkAll(List<? extends List<?>> rows, ForkJoinPool pool) throws NullPointerException {
+    if (rows == null) {
+      throw new NullPointerException("No rows given");
+    }
+
+    final Object[] rowArray = rows.toArray(); // random access, whatever the list
+    final int[] failures = new int[rowArray.length];
+
+    run(pool, rowArray.length, (from, to) -> {
+      for (int r = from; r < to; r++) {
+        failures[r] = firstFailure((List<?>) rowArray[r]);
+      }
+    });
+
+    return new BatchResult(failures);
+  }
+
+  /**
+   * Checks a batch of rows laid out in columns: {@code columns[i][offset + r]} holds the object in position {@code i}
+   * of row {@code r}, for each {@code r} in {@code [0, length)}. Each row is checked as {@link #check(List)} would,
+   * but a whole column at a time, so the work for each position is done only once per column.
+   *
+   * @param columns one array per position, holding that position's objects.
+   * @param offset  where in each column the rows start.
+   * @param length  how many rows to check.
+   * @return which rows passed, and where each of the others failed.
+   * @throws NullPointerException      if {@code columns} or any of its columns is null.
+   * @throws IllegalArgumentException  if there isn't exactly one column per position.
+   * @throws IndexOutOfBoundsException if {@code offset} and {@code length} don't describe a range within every column.
+   */
+  public BatchResult checkColumns(Object[][] columns, int offset, int length)
+    throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException {
+    return checkColumns(columns, offset, length, null);
+  }
+
+  /**
+   * Checks a batch of rows laid out in columns, as {@link #checkColumns(Object[][], int, int)} does, splitting large
+   * batches across {@code pool}.
+   *
+   * @param columns one array per position, holding that position's objects.
+   * @param offset  where in each column the rows start.
+   * @param length  how many rows to check.
+   * @param pool    where to run the checks, or null to run them all in the calling thread.
+   * @return which rows passed, and where each of the others failed.
+   * @throws NullPointerException      if {@code columns} or any of its columns is null.
+   * @throws IllegalArgumentException  if there isn't exactly one column per position.
+   * @throws IndexOutOfBoundsException if {@code offset} and {@code length} don't describe a range within every column.
+   */
+  public BatchResult checkColumns(Object[][] columns, int offset, int length, ForkJoinPool pool)
+    throws NullPointerException, IllegalArgumentException, IndexOutOfBoundsException {
+    if (columns == null) {
+      throw new NullPointerException("No columns given");
+    }
+
+    if (columns.length != types.length) {
+      throw new IllegalArgumentException("Expected " + types.length + " columns, got " + columns.length);
+    }
+
+    if (length < 0) {
+      throw new IndexOutOfBoundsException("Negative length: " + length);
+    }
+
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] == null) {
+        throw new NullPointerException("No column at position " + i);
+      }
+
+      Types.checkRange(columns[i], offset, length);
+    }
+
+    final int[] failures = new int[length];
+    Arrays.fill(failures, BatchResult.PASSED);
+
+    run(pool, length, (from, to) -> {
+      for (int i = 0; i < columns.length; i++) {
+        checkColumn(i, columns[i], offset, failures, from, to);
+      }
+    });
+
+    return new BatchResult(failures);
+  }
+
+  private int firstFailure(List<?> row) {
+    if (row == null) {
+      return 0;
+    }
+
+    final int SIZE = Math.min(row.size(), types.length);
+    for (int i = 0; i < SIZE; i++) {
+      if (!matches(i, row.get(i))) {
+        return i;
+      }
+    }
+
+    return (row.size() == types.length) ? BatchResult.PASSED : SIZE;
+  }
+
+  // checks rows [from, to) of column i, skipping those which already failed
+  private void checkColumn(int i, Object[] column, int offset, int[] failures, int from, int to) {
+    switch (modes[i]) {
+      case CLASS:
+        final Class<?> erasure = erasures[i];
+        final int ID = ids[i];
+
+        for (int r = from; r < to; r++) {
+          Object object = column[offset + r];
+
+          if (failures[r] == BatchResult.PASSED && object != null && !SupertypeIndex.isInstance(ID, erasure, object)) {
+            failures[r] = i;
+          }
+        }
+        break;
+      case GENERIC:
+        for (int r = from; r < to; r++) {
+          if (failures[r] == BatchResult.PASSED && !matches(i, column[offset + r])) {
+            failures[r] = i;
+          }
+        }
+        break;
+      default:
+        for (int r = from; r < to; r++) {
+          if (failures[r] == BatchResult.PASSED) {
+            failures[r] = i;
+          }
+        }
+    }
+  }
+
+  private static void run(ForkJoinPool pool, int length, RowRange range) {
+    if (pool == null || length <= BATCH_SLICE) {
+      range.check(0, length);
+    } else {
+      pool.invoke(new BatchTask(range, 0, length));
+    }
+  }
+
+  // a range of rows to check; each row is written by exactly one task, so no synchronization is needed
+  private interface RowRange {
+    void check(int from, int to);
+  }
+
+  @SuppressWarnings("serial") // never serialized
+  private static final class BatchTask extends RecursiveAction {
+    private final RowRange range;
+    private final int from;
+    private final int to;
+
+    BatchTask(RowRange range, int from, int to) {
+      this.range = range;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BATCH_SLICE) {
+        range.check(from, to);
+        return;
+      }
+
+      final int MIDDLE = (from + to) >>> 1;
+      invokeAll(new BatchTask(range, from, MIDDLE), new BatchTask(range, MIDDLE, to));
+    }
+  }
+
+  // if object is assignable to the type at position i; also used by AdaptiveTypeChecker, on its misses
+  boolean matches(int i, Object object) {
+    switch (modes[i]) {
+      case CLASS:
+        return object == null || SupertypeIndex.isInstance(ids[i], erasures[i], object);
+      case GENERIC:
+        if (object == null) { // generic types are never primitive
+          return true;
+        }
+
+        if (erasures[i] != null && !SupertypeIndex.isInstance(ids[i], erasures[i], object)) {
+          return false;
+        }
+
+        return Types.isAssignable(types[i], object);
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TypeChecker" + typeList;
+  }
+}
@@ -0,0 +1,147 @@
+package org.sbrubbles.genericcons;
+
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A compact, immutable list of types, as returned by {@link Types#fromCons(Type)}.
+ * <p>
+ * Most lists hold only a few types, so there are specialized variants for the empty and single-type cases; longer
+ * lists are backed by an array, without any extra copies. The hash code is computed once and then cached.
+ *
+ * @author Humberto Anjos
+ */
+abstract class TypeList extends AbstractList<Type> implements RandomAccess {
+  static final TypeList EMPTY = new Empty();
+
+  private int hash; // zero means not computed yet; racing threads compute the same value
+
+  private TypeList() { /* only the variants below */ }
+
+  /**
+   * Returns a list with the single given type.
+   *
+   * @param type a type.
+   * @return a list holding only {@code type}.
+   */
+  static TypeList of(Type type) {
+    return new Single(type);
+  }
+
+  /**
+   * Returns a list with the first {@code size} types in the given array, which is used as is if it's the right size.
+   * The caller must not change the array afterwards.
+   *
+   * @param types an array of types.
+   * @param size  how many types in {@code types} to use.
+   * @return a list holding the first {@code size} types in {@code types}.
+   */
+  static TypeList wrap(Type[] types, int size) {
+    switch (size) {
+      case 0:
+        return EMPTY;
+      case 1:
+        return new Single(types[0]);
+      default:
+        return new Many(types.length == size ? types : Arrays.copyOf(types, size));
+    }
+  }
+
+  /**
+   * Copies this list into {@code buffer}, as far as it fits, without any allocations.
+   *
+   * @param buffer where to copy this list's types.
+   * @return this list's size, which may be larger than what was copied.
+   */
+  abstract int copyInto(Type[] buffer);
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      h = super.hashCode();
+      hash = h;
+    }
+
+    return h;
+  }
+
+  private static final class Empty extends TypeList {
+    @Override
+    public Type get(int index) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: 0");
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    int copyInto(Type[] buffer) {
+      return 0;
+    }
+  }
+
+  private static final class Single extends TypeList {
+    private final Type type;
+
+    Single(Type type) {
+      this.type = type;
+    }
+
+    @Override
+    public Type get(int index) {
+      if (index != 0) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: 1");
+      }
+
+      return type;
+    }
+
+    @Override
+    public int size() {
+      return 1;
+    }
+
+    @Override
+    int copyInto(Type[] buffer) {
+      if (buffer.length > 0) {
+        buffer[0] = type;
+      }
+
+      return 1;
+    }
+  }
+
+  private static final class Many extends TypeList {
+    private final Type[] types;
+
+    Many(Type[] types) {
+      this.types = types;
+    }
+
+    @Override
+    public Type get(int index) {
+      return types[index];
+    }
+
+    @Override
+    public int size() {
+      return types.length;
+    }
+
+    @Override
+    public Object[] toArray() {
+      return Arrays.copyOf(types, types.length, Object[].class);
+    }
+
+    @Override
+    int copyInto(Type[] buffer) {
+      System.arraycopy(types, 0, buffer, 0, Math.min(types.length, buffer.length));
+      return types.length;
+    }
+  }
+}
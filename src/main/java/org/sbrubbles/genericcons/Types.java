@@ -1,11 +1,15 @@
 package org.sbrubbles.genericcons;
 
-import com.coekie.gentyref.GenericTypeReflector;
 import com.coekie.gentyref.TypeFactory;
+import org.sbrubbles.genericcons.TypesMetrics.Operation;
 
+import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -28,6 +32,35 @@ import java.util.stream.Collectors;
  * @see C
  */
 public final class Types {
+  /**
+   * The default capacity of the assignability cache.
+   *
+   * @see #setAssignabilityCacheCapacity(int)
+   */
+  public static final int DEFAULT_ASSIGNABILITY_CACHE_CAPACITY = 4096;
+
+  /**
+   * The default maximum length of a cons.
+   *
+   * @see #setMaxConsLength(int)
+   */
+  public static final int DEFAULT_MAX_CONS_LENGTH = 1 << 16;
+
+  private static final AssignabilityCache ASSIGNABILITY_CACHE =
+    new AssignabilityCache(DEFAULT_ASSIGNABILITY_CACHE_CAPACITY);
+
+  private static final ConsPool CONS_POOL = new ConsPool();
+
+  private static final CanonicalTypes CANONICAL_TYPES = new CanonicalTypes();
+
+  // the cons classes, indexed by their number of type parameters
+  private static final Class<?>[] CONSES = { null, null, C.class, C3.class, C4.class, C5.class, C6.class, C7.class,
+    C8.class };
+
+  private static volatile int maxConsLength = DEFAULT_MAX_CONS_LENGTH;
+  private static volatile boolean consInterning = false;
+  private static volatile TypesMetrics metrics = TypesMetrics.NONE;
+
   private Types() { /* preventing instantiation */ }
 
   /**
@@ -35,12 +68,28 @@ public final class Types {
    * <p>
    * Null types match nothing, and neither will primitive types (such as {@code int.class}), since Java's autoboxing
    * will convert {@code object} to the equivalent reference type (such as {@code Integer}).
+   * <p>
+   * Since the answer depends only on {@code type} and {@code object}'s class, it is memoized in a bounded cache. See
+   * {@link #setAssignabilityCacheCapacity(int)}.
    *
    * @param type   a type.
    * @param object an object.
    * @return if the object's runtime type is compatible with the given type.
    */
   public static boolean check(Type type, Object object) {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return isAssignable(type, object);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = isAssignable(type, object);
+    checked(METRICS, START, result);
+    return result;
+  }
+
+  // check(Type, Object), minus the metrics
+  static boolean isAssignable(Type type, Object object) {
     if (type == null) { // nothing matches a null type
       return false;
     }
@@ -49,7 +98,34 @@ public final class Types {
       return !Types.isPrimitive(type);
     }
 
-    return GenericTypeReflector.isSuperType(type, object.getClass());
+    if (type instanceof Class) { // a bit probe at most, which is cheaper than a cache lookup
+      return SupertypeIndex.isAssignable((Class<?>) type, object.getClass());
+    }
+
+    return ASSIGNABILITY_CACHE.isSuperType(type, object.getClass());
+  }
+
+  /**
+   * Returns the maximum number of (type, class) pairs whose assignability {@link #check(Type, Object)} remembers.
+   *
+   * @return the capacity of the assignability cache, or zero if it's off.
+   * @see #setAssignabilityCacheCapacity(int)
+   */
+  public static int getAssignabilityCacheCapacity() {
+    return ASSIGNABILITY_CACHE.getCapacity();
+  }
+
+  /**
+   * Sets the maximum number of (type, class) pairs whose assignability {@link #check(Type, Object)} remembers. Once
+   * full, the least recently used pairs are evicted first (approximately). Zero turns the cache off.
+   * <p>
+   * The default is {@value #DEFAULT_ASSIGNABILITY_CACHE_CAPACITY}.
+   *
+   * @param capacity the new capacity of the assignability cache, or zero to turn it off.
+   * @throws IllegalArgumentException if {@code capacity} is negative.
+   */
+  public static void setAssignabilityCacheCapacity(int capacity) throws IllegalArgumentException {
+    ASSIGNABILITY_CACHE.setCapacity(capacity);
   }
 
   /**
@@ -60,17 +136,41 @@ public final class Types {
    * @return if the given objects are compatible with the given types.
    */
   public static boolean check(List<? extends Type> types, List<?> objects) {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return checkAll(types, objects);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = false;
+    try {
+      result = checkAll(types, objects);
+      return result;
+    } finally {
+      checked(METRICS, START, result);
+    }
+  }
+
+  private static boolean checkAll(List<? extends Type> types, List<?> objects) {
     if (types == null || objects == null) {
       return false; // null never checks true
     }
 
+    if (types instanceof ConsView) { // checked while decoding, so mismatches end early
+      return ((ConsView) types).matches(objects);
+    }
+
+    if (types instanceof Signature) {
+      return ((Signature) types).view().matches(objects);
+    }
+
     if (types.size() != objects.size()) { // different sizes never check true
       return false;
     }
 
     final int SIZE = types.size();
     for (int i = 0; i < SIZE; i++) {
-      if (!Types.check(types.get(i), objects.get(i))) {
+      if (!isAssignable(types.get(i), objects.get(i))) {
         return false;
       }
     }
@@ -78,6 +178,153 @@ public final class Types {
     return true;
   }
 
+  /**
+   * Checks if the objects in {@code objects[offset, offset + length)} are assignable to the given types, in the given
+   * order. Same as {@link #check(List, List)}, but straight from an array, so varargs can be checked without wrapping
+   * them in a list.
+   *
+   * @param types   the types to check against.
+   * @param objects an array holding the objects to check.
+   * @param offset  where in {@code objects} the objects to check start.
+   * @param length  how many objects to check.
+   * @return if the given objects are compatible with the given types.
+   * @throws IndexOutOfBoundsException if {@code objects} is not null, and {@code offset} and {@code length} don't
+   *                                   describe a range within it.
+   */
+  public static boolean check(List<? extends Type> types, Object[] objects, int offset, int length)
+    throws IndexOutOfBoundsException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return checkAll(types, objects, offset, length);
+    }
+
+    final long START = System.nanoTime();
+    boolean result = false;
+    try {
+      result = checkAll(types, objects, offset, length);
+      return result;
+    } finally {
+      checked(METRICS, START, result);
+    }
+  }
+
+  private static boolean checkAll(List<? extends Type> types, Object[] objects, int offset, int length) {
+    if (types == null || objects == null) {
+      return false; // null never checks true
+    }
+
+    checkRange(objects, offset, length);
+
+    if (types instanceof ConsView) { // checked while decoding, so mismatches end early
+      return ((ConsView) types).matches(objects, offset, length);
+    }
+
+    if (types instanceof Signature) {
+      return ((Signature) types).view().matches(objects, offset, length);
+    }
+
+    if (types.size() != length) { // different sizes never check true
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (!isAssignable(types.get(i), objects[offset + i])) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Compiles the given types into a reusable {@link TypeChecker}, which checks objects against them with the same
+   * semantics as {@link #check(List, List)}, but with all the type-dependent work done up front.
+   * <p>
+   * Useful when the same types are checked over and over, as with lists obtained from
+   * {@link #fromSuperclass(Class, int)}.
+   *
+   * @param types the types to check against.
+   * @return a checker for the given types.
+   * @throws NullPointerException if {@code types} is null.
+   * @see #check(List, List)
+   */
+  public static TypeChecker compile(List<? extends Type> types) throws NullPointerException {
+    if (types == null) {
+      throw new NullPointerException("No types given");
+    }
+
+    return new TypeChecker(types);
+  }
+
+  /**
+   * Compiles the given types into an {@link AdaptiveTypeChecker}, which caches up to
+   * {@value AdaptiveTypeChecker#DEFAULT_LIMIT} runtime classes per position.
+   *
+   * @param types the types to check against.
+   * @return a checker for the given types, which specializes itself to the runtime classes it sees.
+   * @throws NullPointerException if {@code types} is null.
+   * @see #compileAdaptive(List, int)
+   */
+  public static AdaptiveTypeChecker compileAdaptive(List<? extends Type> types) throws NullPointerException {
+    return compileAdaptive(types, AdaptiveTypeChecker.DEFAULT_LIMIT);
+  }
+
+  /**
+   * Compiles the given types into an {@link AdaptiveTypeChecker}, which checks objects like {@link #compile(List)}'s
+   * checkers, but remembers the runtime classes seen at each position, and whether they passed, so that repeated
+   * checks with the same classes are mere reference comparisons. Positions which see more than {@code limit} classes
+   * stop caching them.
+   * <p>
+   * Meant for a single call site, such as a method checking the types of its arguments, which usually sees only a few
+   * classes per position.
+   *
+   * @param types the types to check against.
+   * @param limit how many classes each position caches, at most.
+   * @return a checker for the given types, which specializes itself to the runtime classes it sees.
+   * @throws NullPointerException     if {@code types} is null.
+   * @throws IllegalArgumentException if {@code limit} isn't positive.
+   * @see AdaptiveTypeChecker
+   */
+  public static AdaptiveTypeChecker compileAdaptive(List<? extends Type> types, int limit)
+    throws NullPointerException, IllegalArgumentException {
+    if (types == null) {
+      throw new NullPointerException("No types given");
+    }
+
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Non-positive limit: " + limit);
+    }
+
+    return new AdaptiveTypeChecker(types, limit);
+  }
+
+  /**
+   * Builds a {@link Dispatcher}, which picks the most specific of the given handlers compatible with some runtime
+   * arguments, as per {@link #check(List, List)}. Each handler's signature is computed once, here.
+   * <p>
+   * Usually, handlers declare their signatures through a cons in their superclass:
+   * <pre>
+   * Dispatcher&lt;Handler&gt; dispatcher = Types.dispatcher(handlers, h -&gt; Types.fromSuperclass(h.getClass(), 0));
+   * </pre>
+   *
+   * @param handlers   the handlers to choose from.
+   * @param signatures what each handler accepts.
+   * @param <H>        the type of the handlers.
+   * @return a dispatcher for the given handlers.
+   * @throws NullPointerException if {@code handlers} or {@code signatures} are null, or if there's a null handler or
+   *                              signature.
+   * @see Dispatcher
+   */
+  public static <H> Dispatcher<H> dispatcher(
+    Collection<? extends H> handlers, Function<? super H, ? extends List<? extends Type>> signatures)
+    throws NullPointerException {
+    if (handlers == null || signatures == null) {
+      throw new NullPointerException("Handlers and signatures are both required");
+    }
+
+    return new Dispatcher<>(handlers, signatures);
+  }
+
   /**
    * Returns {@linkplain #fromCons(Type) the list of types} {@code type} holds in {@code index}.
    * This class provides some methods to fetch parameterized types from common sources.
@@ -119,6 +366,23 @@ public final class Types {
    * @see #fromInterface(Class, int)
    */
   public static List<? extends Type> from(ParameterizedType type, int index)
+    throws NullPointerException, IndexOutOfBoundsException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return typesIn(type, index);
+    }
+
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = typesIn(type, index);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM, START, result);
+    }
+  }
+
+  private static List<? extends Type> typesIn(ParameterizedType type, int index)
     throws NullPointerException, IndexOutOfBoundsException {
     if (type == null) {
       throw new NullPointerException("No generic type given");
@@ -129,15 +393,18 @@ public final class Types {
       throw new IndexOutOfBoundsException("No type parameters in " + type + " at index " + index);
     }
 
-    return fromCons(typeArguments[index]);
+    return decode(typeArguments[index]);
   }
 
   /**
    * Searches {@code baseClass}' superclass for {@linkplain #fromCons(Type) the list of types} in {@code index}.
+   * <p>
+   * The results are memoized per class: the superclass is only read and decoded on the first call, and later calls
+   * return the same immutable list. Classes without a generic superclass are remembered as well.
    *
    * @param baseClass the class whose generic superclass holds the desired types.
    * @param index     where in {@code baseClass}' superclass' type argument list is the desired type.
-   * @return a list of the types found in {@code index}.
+   * @return an immutable list of the types found in {@code index}.
    * @throws NullPointerException      if {@code baseClass} is null.
    * @throws NoSuchElementException    if {@code baseClass}' superclass isn't generic.
    * @throws IndexOutOfBoundsException if no type parameters were found in {@code baseClass}' superclass at
@@ -146,25 +413,41 @@ public final class Types {
    */
   public static List<? extends Type> fromSuperclass(Class<?> baseClass, int index)
     throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
-    if (baseClass == null) {
-      throw new NullPointerException("No base class given");
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return superclassTypes(baseClass, index);
+    }
+
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = superclassTypes(baseClass, index);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM, START, result);
     }
+  }
 
-    Optional<ParameterizedType> supertype = genericSuperclassOf(baseClass);
-    if (!supertype.isPresent()) {
-      throw new NoSuchElementException("No generic superclass found for " + baseClass);
+  private static List<? extends Type> superclassTypes(Class<?> baseClass, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (baseClass == null) {
+      throw new NullPointerException("No base class given");
     }
 
-    return from(supertype.get(), index);
+    return ClassSignatures.of(baseClass).superclass()
+      .orElseThrow(() -> new NoSuchElementException("No generic superclass found for " + baseClass))
+      .get(index);
   }
 
   /**
    * Searches {@code baseClass}' first superinterface for {@linkplain #fromCons(Type) the list of types} in
    * {@code index}.
+   * <p>
+   * The results are memoized per class, like {@link #fromSuperclass(Class, int)}.
    *
    * @param baseClass the class whose first superinterface holds the desired types.
    * @param index     where in {@code baseClass}' first superinterface's type argument list is the desired type.
-   * @return a list of the types found in {@code index}.
+   * @return an immutable list of the types found in {@code index}.
    * @throws NullPointerException      if {@code baseClass} is null.
    * @throws NoSuchElementException    if {@code baseClass} doesn't have a superinterface, or it's first superinterface
    *                                   isn't generic.
@@ -173,17 +456,150 @@ public final class Types {
    * @see #from(ParameterizedType, int)
    */
   public static List<? extends Type> fromInterface(Class<?> baseClass, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return interfaceTypes(baseClass, index);
+    }
+
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = interfaceTypes(baseClass, index);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM, START, result);
+    }
+  }
+
+  private static List<? extends Type> interfaceTypes(Class<?> baseClass, int index)
     throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
     if (baseClass == null) {
       throw new NullPointerException("No base class given");
     }
 
-    Optional<ParameterizedType> supertype = genericInterfaceOf(baseClass, 0);
-    if (!supertype.isPresent()) {
-      throw new NoSuchElementException("No generic superinterface in " + baseClass + " at index 0");
+    return ClassSignatures.of(baseClass).superinterface(0)
+      .orElseThrow(() -> new NoSuchElementException("No generic superinterface in " + baseClass + " at index 0"))
+      .get(index);
+  }
+
+  /**
+   * Searches the superinterface of {@code baseClass} whose raw type is {@code rawInterface} for
+   * {@linkplain #fromCons(Type) the list of types} in {@code index}. Unlike {@link #fromInterface(Class, int)}, this
+   * finds any direct superinterface, wherever it's declared, and keeps working if the declaration order changes.
+   * <p>
+   * Superinterfaces are found through a per-class index from raw type to position, built on the first call; the
+   * results are memoized per class, like {@link #fromSuperclass(Class, int)}.
+   *
+   * @param baseClass    the class one of whose superinterfaces holds the desired types.
+   * @param rawInterface the raw type of the superinterface which holds the desired types.
+   * @param index        where in the superinterface's type argument list is the desired type.
+   * @return an immutable list of the types found in {@code index}.
+   * @throws NullPointerException      if {@code baseClass} or {@code rawInterface} are null.
+   * @throws NoSuchElementException    if {@code rawInterface} isn't a generic superinterface of {@code baseClass}.
+   * @throws IndexOutOfBoundsException if no type parameters were found in the superinterface at {@code index}.
+   * @see #genericInterfaceOf(Class, Class)
+   */
+  public static List<? extends Type> fromInterface(Class<?> baseClass, Class<?> rawInterface, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return interfaceTypes(baseClass, rawInterface, index);
     }
 
-    return from(supertype.get(), index);
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = interfaceTypes(baseClass, rawInterface, index);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM, START, result);
+    }
+  }
+
+  private static List<? extends Type> interfaceTypes(Class<?> baseClass, Class<?> rawInterface, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (baseClass == null || rawInterface == null) {
+      throw new NullPointerException("Base class and interface are both required");
+    }
+
+    return ClassSignatures.of(baseClass).superinterface(rawInterface)
+      .orElseThrow(() -> new NoSuchElementException(
+        "No generic superinterface " + rawInterface.getName() + " in " + baseClass))
+      .get(index);
+  }
+
+  /**
+   * Like {@link #fromSuperclass(Class, int)}, but copies the types into {@code buffer} instead of returning a list.
+   * Since the results are memoized, this doesn't allocate anything after the first call.
+   * <p>
+   * If {@code buffer} is too small, only the types that fit are copied, but the total is still returned; so callers
+   * can check the result against {@code buffer.length} and retry with a larger buffer if needed.
+   *
+   * @param baseClass the class whose generic superclass holds the desired types.
+   * @param index     where in {@code baseClass}' superclass' type argument list is the desired type.
+   * @param buffer    where to copy the types found.
+   * @return how many types were found in {@code index}.
+   * @throws NullPointerException      if {@code baseClass} or {@code buffer} are null.
+   * @throws NoSuchElementException    if {@code baseClass}' superclass isn't generic.
+   * @throws IndexOutOfBoundsException if no type parameters were found in {@code baseClass}' superclass at
+   *                                   {@code index}.
+   * @see #fromSuperclass(Class, int)
+   */
+  public static int fromSuperclass(Class<?> baseClass, int index, Type[] buffer)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (buffer == null) {
+      throw new NullPointerException("No buffer given");
+    }
+
+    return ((TypeList) fromSuperclass(baseClass, index)).copyInto(buffer);
+  }
+
+  /**
+   * Like {@link #fromInterface(Class, int)}, but copies the types into {@code buffer} instead of returning a list,
+   * with the same semantics as {@link #fromSuperclass(Class, int, Type[])}.
+   *
+   * @param baseClass the class whose first superinterface holds the desired types.
+   * @param index     where in {@code baseClass}' first superinterface's type argument list is the desired type.
+   * @param buffer    where to copy the types found.
+   * @return how many types were found in {@code index}.
+   * @throws NullPointerException      if {@code baseClass} or {@code buffer} are null.
+   * @throws NoSuchElementException    if {@code baseClass} doesn't have a superinterface, or it's first superinterface
+   *                                   isn't generic.
+   * @throws IndexOutOfBoundsException if no type parameters were found in {@code baseClass}' first superinterface at
+   *                                   {@code index}.
+   * @see #fromInterface(Class, int)
+   */
+  public static int fromInterface(Class<?> baseClass, int index, Type[] buffer)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (buffer == null) {
+      throw new NullPointerException("No buffer given");
+    }
+
+    return ((TypeList) fromInterface(baseClass, index)).copyInto(buffer);
+  }
+
+  /**
+   * Like {@link #fromInterface(Class, Class, int)}, but copies the types into {@code buffer} instead of returning a
+   * list, with the same semantics as {@link #fromSuperclass(Class, int, Type[])}.
+   *
+   * @param baseClass    the class one of whose superinterfaces holds the desired types.
+   * @param rawInterface the raw type of the superinterface which holds the desired types.
+   * @param index        where in the superinterface's type argument list is the desired type.
+   * @param buffer       where to copy the types found.
+   * @return how many types were found in {@code index}.
+   * @throws NullPointerException      if {@code baseClass}, {@code rawInterface} or {@code buffer} are null.
+   * @throws NoSuchElementException    if {@code rawInterface} isn't a generic superinterface of {@code baseClass}.
+   * @throws IndexOutOfBoundsException if no type parameters were found in the superinterface at {@code index}.
+   * @see #fromInterface(Class, Class, int)
+   */
+  public static int fromInterface(Class<?> baseClass, Class<?> rawInterface, int index, Type[] buffer)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (buffer == null) {
+      throw new NullPointerException("No buffer given");
+    }
+
+    return ((TypeList) fromInterface(baseClass, rawInterface, index)).copyInto(buffer);
   }
 
   /**
@@ -199,32 +615,286 @@ public final class Types {
    *   <tr><td>C&lt;String, Number&gt;</td><td>[String, Number]</td></tr>
    *   <tr><td>C&lt;String, C&lt;Number, Object&gt;&gt;</td><td>[String, Number, Object]</td></tr>
    *   <tr><td>C&lt;String, C&lt;Number, C&lt;Object, List&lt;Double&gt;&gt;&gt;</td><td>[String, Number, Object, List&lt;Double&gt;]</td></tr>
+   *   <tr><td>C4&lt;String, Number, Object, List&lt;Double&gt;&gt;</td><td>[String, Number, Object, List&lt;Double&gt;]</td></tr>
+   *   <tr><td>C3&lt;String, Number, C&lt;Object, List&lt;Double&gt;&gt;&gt;</td><td>[String, Number, Object, List&lt;Double&gt;]</td></tr>
    * </table>
+   * <p>
+   * The wider conses, {@link C3} to {@link C8}, hold several types per level, and mix freely with {@code C}.
+   * <p>
+   * The cons is walked iteratively, so arbitrarily deep conses won't overflow the stack, but it won't be decoded past
+   * {@linkplain #setMaxConsLength(int) a maximum length}. The result is an immutable, random-access list.
    *
    * @param type a type.
-   * @return the list of the types represented by the given type.
+   * @return an immutable list of the types represented by the given type.
+   * @throws IllegalArgumentException if the cons is longer than {@linkplain #getMaxConsLength() the maximum length}.
    * @see #cons(List)
    */
-  public static List<? extends Type> fromCons(Type type) {
+  public static List<? extends Type> fromCons(Type type) throws IllegalArgumentException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return decode(type);
+    }
+
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = decode(type);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM_CONS, START, result);
+    }
+  }
+
+  // fromCons(Type), minus the metrics
+  static List<? extends Type> decode(Type type) throws IllegalArgumentException {
     if (type == null) {
-      return Collections.emptyList();
+      return TypeList.EMPTY;
+    }
+
+    if (!isCons(type)) { // the most common case, so no buffers needed
+      return TypeList.of(type);
+    }
+
+    final int MAX = maxConsLength;
+
+    Type[] buffer = new Type[8];
+    int size = 0;
+    while (isCons(type)) {
+      if (type instanceof ConsType) { // no need to clone the type arguments
+        buffer = ensureRoom(buffer, size + 2, MAX); // always leave room for the last type
+        buffer[size++] = ((ConsType) type).first();
+        type = ((ConsType) type).rest();
+      } else {
+        Type[] actualTypes = ((ParameterizedType) type).getActualTypeArguments();
+        final int FIRSTS = actualTypes.length - 1; // one for a C, more for the wider conses
+
+        buffer = ensureRoom(buffer, size + FIRSTS + 1, MAX);
+        System.arraycopy(actualTypes, 0, buffer, size, FIRSTS);
+        size += FIRSTS;
+        type = actualTypes[FIRSTS];
+      }
+    }
+
+    buffer[size++] = type;
+    return TypeList.wrap(buffer, size);
+  }
+
+  // buffer, or a larger copy with room for length types, as long as that's no more than max
+  private static Type[] ensureRoom(Type[] buffer, int length, int max) throws IllegalArgumentException {
+    if (length > max) {
+      throw new IllegalArgumentException("Cons longer than the maximum length of " + max);
+    }
+
+    if (length <= buffer.length) {
+      return buffer;
+    }
+
+    return Arrays.copyOf(buffer, Math.min(Math.max(buffer.length * 2, length), max));
+  }
+
+  /**
+   * Returns a lazy {@linkplain ConsView view} of the types represented by the given type, with the same contents as
+   * {@link #fromCons(Type)}, but decoded only as far as needed: the size, or the type at one position, don't require
+   * decoding the whole cons. Also, {@link #check(List, List)} checks objects against a view as it decodes it, stopping
+   * at the first mismatch.
+   *
+   * @param type a type.
+   * @return a lazy view of the types represented by the given type.
+   * @see #fromCons(Type)
+   */
+  public static ConsView consView(Type type) {
+    return new ConsView(type);
+  }
+
+  /**
+   * Returns a persistent {@linkplain Signature signature} of the types represented by the given type, as decoded by
+   * {@link #fromCons(Type)}, which can derive other signatures while reusing {@code type}'s cons.
+   *
+   * @param type a type, possibly a cons, or null.
+   * @return a signature of the types represented by {@code type}.
+   * @throws IllegalArgumentException if the cons is longer than {@linkplain #getMaxConsLength() the maximum length}.
+   * @see Signature#type()
+   */
+  public static Signature signature(Type type) throws IllegalArgumentException {
+    return Signature.of(type);
+  }
+
+  /**
+   * Returns a persistent {@linkplain Signature signature} of the given types, with any conses among them flattened
+   * and nulls skipped, as in {@link #cons(List)}.
+   *
+   * @param types a list of types.
+   * @return a signature of the given types.
+   * @throws NullPointerException     if {@code types} is null.
+   * @throws IllegalArgumentException if a cons in the list, or the flattened list itself, is longer than
+   *                                  {@linkplain #getMaxConsLength() the maximum length}.
+   */
+  public static Signature signature(List<? extends Type> types) throws NullPointerException, IllegalArgumentException {
+    if (types == null) {
+      throw new NullPointerException("No types given");
+    }
+
+    return Signature.of(types);
+  }
+
+  /**
+   * Returns the canonical instance of {@code type}: an immutable type, equal to {@code type} and hashing like it, which
+   * is the same instance for all equal types, whichever implementation they came from (the JDK's, gentyref's, or this
+   * library's own). So canonical types compare by identity, and their hashes are computed only once, which makes them
+   * cheap keys for maps and caches.
+   * <p>
+   * Parameterized types, wildcards and generic arrays are rebuilt from their canonicalized parts, and {@code C} conses
+   * become interned conses, like those of {@link #cons(List)} with {@linkplain #setConsInterning(boolean) interning}
+   * on, though from a pool of their own. Wide conses are the exception to equality: they become the equivalent
+   * {@code C} conses, so {@code C3<String, Number, Object>} canonicalizes to the same instance as
+   * {@code C<String, C<Number, Object>>}. Classes are canonical already, and type variables, as well as types of
+   * unknown implementations, are returned as they are. Canonical types are only weakly held, like interned conses.
+   *
+   * @param type a type, or null.
+   * @return the canonical instance of {@code type}, or null if it's null.
+   */
+  public static Type canonicalize(Type type) {
+    return CANONICAL_TYPES.canonicalize(type);
+  }
+
+  /**
+   * Returns a stable 64-bit structural hash of the list of types represented by {@code type}, as decoded by
+   * {@link #fromCons(Type)}. So {@code fingerprint(type) == fingerprint(fromCons(type))}, and equal types have equal
+   * fingerprints, whatever their implementation (the JDK's, gentyref's, or this library's own).
+   * <p>
+   * Fingerprints depend only on the structure of the types and on class names, so they're the same from one JVM to the
+   * next, and fit as cache keys or routing keys. Different types may still share a fingerprint, though unlikely; so
+   * they're a fast pre-filter before a deep comparison, not a replacement for it. Conses built by {@link #cons(List)}
+   * with {@linkplain #setConsInterning(boolean) interning} on memoize their fingerprints, and share those of their
+   * tails, so they're cheap to fingerprint again.
+   *
+   * @param type a type, possibly a cons.
+   * @return the fingerprint of the list of types represented by {@code type}.
+   * @see #fingerprint(List)
+   */
+  public static long fingerprint(Type type) {
+    return Fingerprints.of(type);
+  }
+
+  /**
+   * Returns a stable 64-bit structural hash of the given types, with any conses among them flattened, as
+   * {@link #cons(List)} would. So {@code fingerprint(types) == fingerprint(cons(types))}. Null types are skipped, as
+   * in {@code cons}.
+   *
+   * @param types a list of types.
+   * @return the fingerprint of {@code types}.
+   * @throws NullPointerException if {@code types} is null.
+   * @see #fingerprint(Type)
+   */
+  public static long fingerprint(List<? extends Type> types) throws NullPointerException {
+    if (types == null) {
+      throw new NullPointerException("No types given");
     }
 
-    List<Type> result = new ArrayList<>();
+    return Fingerprints.of(types);
+  }
+
+  /**
+   * Like {@link #fromCons(Type)}, but writes the types into {@code buffer} instead of returning a list.
+   * <p>
+   * If {@code buffer} is too small, only the types that fit are written, but the whole cons is still walked and its
+   * total length returned; so callers can check the result against {@code buffer.length} and retry with a larger
+   * buffer if needed. Conses built by {@link #cons(List)} with {@linkplain #setConsInterning(boolean) interning} on
+   * are walked without any allocations at all.
+   *
+   * @param type   a type.
+   * @param buffer where to write the types represented by the given type.
+   * @return how many types the given type represents.
+   * @throws NullPointerException     if {@code buffer} is null.
+   * @throws IllegalArgumentException if the cons is longer than {@linkplain #getMaxConsLength() the maximum length}.
+   * @see #fromCons(Type)
+   */
+  public static int fromCons(Type type, Type[] buffer) throws NullPointerException, IllegalArgumentException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return decode(type, buffer);
+    }
 
-    // end of recursion, add it and return
-    if (!(type instanceof ParameterizedType) ||
-      ((ParameterizedType) type).getRawType() != C.class) {
-      result.add(type);
+    final long START = System.nanoTime();
+    int result = -1;
+    try {
+      result = decode(type, buffer);
       return result;
+    } finally {
+      METRICS.called(Operation.FROM_CONS, System.nanoTime() - START);
+      if (result >= 0) {
+        METRICS.decoded(Operation.FROM_CONS, result);
+      }
+    }
+  }
+
+  private static int decode(Type type, Type[] buffer) throws NullPointerException, IllegalArgumentException {
+    if (buffer == null) {
+      throw new NullPointerException("No buffer given");
+    }
+
+    if (type == null) {
+      return 0;
     }
 
-    Type[] actualTypes = ((ParameterizedType) type).getActualTypeArguments();
+    final int MAX = maxConsLength;
 
-    result.add(actualTypes[0]);
-    result.addAll(fromCons(actualTypes[1]));
+    int size = 0;
+    while (isCons(type)) {
+      if (type instanceof ConsType) {
+        if (size < buffer.length) {
+          buffer[size] = ((ConsType) type).first();
+        }
+        size++;
+        type = ((ConsType) type).rest();
+      } else {
+        Type[] actualTypes = ((ParameterizedType) type).getActualTypeArguments();
+        final int FIRSTS = actualTypes.length - 1; // one for a C, more for the wider conses
 
-    return result;
+        if (size < buffer.length) {
+          System.arraycopy(actualTypes, 0, buffer, size, Math.min(FIRSTS, buffer.length - size));
+        }
+        size += FIRSTS;
+        type = actualTypes[FIRSTS];
+      }
+
+      if (size >= MAX) { // always leave room for the last type
+        throw new IllegalArgumentException("Cons longer than the maximum length of " + MAX);
+      }
+    }
+
+    if (size < buffer.length) {
+      buffer[size] = type;
+    }
+
+    return size + 1;
+  }
+
+  /**
+   * Returns the maximum number of types {@link #fromCons(Type)} will decode from a single cons.
+   *
+   * @return the maximum number of types {@code fromCons} will decode from a single cons.
+   * @see #setMaxConsLength(int)
+   */
+  public static int getMaxConsLength() {
+    return maxConsLength;
+  }
+
+  /**
+   * Sets the maximum number of types {@link #fromCons(Type)} will decode from a single cons. Longer conses will be
+   * rejected with an {@link IllegalArgumentException}, instead of eating up memory.
+   * <p>
+   * The default is {@value #DEFAULT_MAX_CONS_LENGTH}.
+   *
+   * @param maxConsLength the maximum length of a cons.
+   * @throws IllegalArgumentException if {@code maxConsLength} is less than 1.
+   */
+  public static void setMaxConsLength(int maxConsLength) throws IllegalArgumentException {
+    if (maxConsLength < 1) {
+      throw new IllegalArgumentException("Maximum cons length must be positive: " + maxConsLength);
+    }
+
+    Types.maxConsLength = maxConsLength;
   }
 
   /**
@@ -271,6 +941,302 @@ public final class Types {
         : null);
   }
 
+  /**
+   * Returns the generic superinterface of {@code baseClass} whose raw type is {@code rawInterface}, if there is one.
+   * Unlike {@link #genericInterfaceOf(Class, int)}, this doesn't depend on the order in which the interfaces are
+   * declared.
+   *
+   * @param baseClass    a class.
+   * @param rawInterface the raw type of one of {@code baseClass}' direct superinterfaces.
+   * @return the generic superinterface of {@code baseClass} of type {@code rawInterface}, if there is one.
+   * @see #fromInterface(Class, Class, int)
+   */
+  public static Optional<ParameterizedType> genericInterfaceOf(Class<?> baseClass, Class<?> rawInterface) {
+    if (baseClass == null || rawInterface == null) {
+      return Optional.empty();
+    }
+
+    return ClassSignatures.of(baseClass).genericInterface(rawInterface);
+  }
+
+  /**
+   * Returns {@code ancestor} as seen from {@code baseClass}, if it's a generic ancestor of {@code baseClass}, anywhere
+   * up the hierarchy. Unlike {@link #genericSuperclassOf(Class)} and {@link #genericInterfaceOf(Class, int)}, which
+   * only look at direct supertypes, this walks the whole hierarchy, substituting type variables on the way, conses
+   * included. So, given
+   * <pre>
+   * class Base&lt;T&gt; extends Fn&lt;C&lt;T, String&gt;&gt; { &#47;* ... *&#47; }
+   * class Derived extends Base&lt;Integer&gt; { &#47;* ... *&#47; }
+   * </pre>
+   * {@code genericSupertypeOf(Derived.class, Fn.class)} returns {@code Fn<C<Integer, String>>}. Only
+   * {@code baseClass}' own type variables, if it has any, are left unresolved.
+   * <p>
+   * The ancestors of each class are resolved once and memoized, so classes sharing deep hierarchies don't walk them
+   * again.
+   *
+   * @param baseClass a class.
+   * @param ancestor  a generic class or interface.
+   * @return {@code ancestor}, parameterized as seen from {@code baseClass}, if it's a generic ancestor of
+   * {@code baseClass}. Ancestors used raw somewhere along the way aren't generic anymore.
+   * @see #fromSupertype(Class, Class, int)
+   */
+  public static Optional<ParameterizedType> genericSupertypeOf(Class<?> baseClass, Class<?> ancestor) {
+    if (baseClass == null || ancestor == null) {
+      return Optional.empty();
+    }
+
+    return ClassSignatures.of(baseClass).genericAncestor(ancestor);
+  }
+
+  /**
+   * Searches {@code baseClass}' ancestor {@code ancestor}, {@linkplain #genericSupertypeOf(Class, Class) wherever it is
+   * in the hierarchy}, for {@linkplain #fromCons(Type) the list of types} in {@code index}. Handy for classes which
+   * don't extend or implement {@code ancestor} directly, where {@link #fromSuperclass(Class, int)} won't do.
+   * <p>
+   * The results are memoized per class and ancestor, like {@link #fromSuperclass(Class, int)}.
+   *
+   * @param baseClass the class one of whose ancestors holds the desired types.
+   * @param ancestor  the ancestor which holds the desired types.
+   * @param index     where in {@code ancestor}'s type argument list is the desired type.
+   * @return an immutable list of the types found in {@code index}.
+   * @throws NullPointerException      if {@code baseClass} or {@code ancestor} are null.
+   * @throws NoSuchElementException    if {@code ancestor} isn't a generic ancestor of {@code baseClass}.
+   * @throws IndexOutOfBoundsException if no type parameters were found in {@code ancestor} at {@code index}.
+   * @see #genericSupertypeOf(Class, Class)
+   */
+  public static List<? extends Type> fromSupertype(Class<?> baseClass, Class<?> ancestor, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return ancestorTypes(baseClass, ancestor, index);
+    }
+
+    final long START = System.nanoTime();
+    List<? extends Type> result = null;
+    try {
+      result = ancestorTypes(baseClass, ancestor, index);
+      return result;
+    } finally {
+      decoded(METRICS, Operation.FROM, START, result);
+    }
+  }
+
+  private static List<? extends Type> ancestorTypes(Class<?> baseClass, Class<?> ancestor, int index)
+    throws NullPointerException, NoSuchElementException, IndexOutOfBoundsException {
+    if (baseClass == null || ancestor == null) {
+      throw new NullPointerException("Base class and ancestor are both required");
+    }
+
+    return ClassSignatures.of(baseClass).ancestor(ancestor)
+      .orElseThrow(() -> new NoSuchElementException("No generic ancestor " + ancestor.getName() + " in " + baseClass))
+      .get(index);
+  }
+
+  /**
+   * Resolves the generic superclasses and superinterfaces of the given classes ahead of time, in parallel on the
+   * {@linkplain ForkJoinPool#commonPool() common pool}, so that {@link #fromSuperclass(Class, int)} and
+   * {@link #fromInterface(Class, int)} find them already decoded.
+   * <p>
+   * Meant for startup, when many classes are known to be needed soon: instead of each first request paying for its
+   * own classes, they're all paid for at once, and the cost is {@linkplain WarmUpReport reported}. Classes which fail
+   * to resolve (say, because of a cons {@linkplain #getMaxConsLength() too long}) are reported, and left to fail
+   * again when actually used.
+   *
+   * @param classes the classes to resolve.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if {@code classes} is null or holds a null.
+   * @see #warmUp(Collection, ForkJoinPool)
+   */
+  public static WarmUpReport warmUp(Collection<? extends Class<?>> classes) throws NullPointerException {
+    return warmUp(classes, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Resolves the generic superclasses and superinterfaces of the given classes ahead of time, in parallel on
+   * {@code pool}.
+   *
+   * @param classes the classes to resolve.
+   * @param pool    where to resolve them.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if {@code classes} is null or holds a null, or {@code pool} is null.
+   * @see #warmUp(Collection)
+   */
+  public static WarmUpReport warmUp(Collection<? extends Class<?>> classes, ForkJoinPool pool)
+    throws NullPointerException {
+    if (classes == null) {
+      throw new NullPointerException("No classes given");
+    }
+
+    if (pool == null) {
+      throw new NullPointerException("No pool given");
+    }
+
+    return WarmUp.run(classes, pool);
+  }
+
+  /**
+   * Loads (without initializing) and {@linkplain #warmUp(Collection) warms up} every class in the given package and
+   * its subpackages, as found in {@code loader}'s directories and jars, on the
+   * {@linkplain ForkJoinPool#commonPool() common pool}. Classes which can't be loaded are reported as failures.
+   *
+   * @param packageName the package to scan, such as {@code "com.example.handlers"}.
+   * @param loader      where to look for and load the classes.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if any argument is null.
+   * @throws IOException          if the package's directories or jars couldn't be read.
+   * @see #warmUp(Collection)
+   */
+  public static WarmUpReport warmUpPackage(String packageName, ClassLoader loader)
+    throws NullPointerException, IOException {
+    return warmUpPackage(packageName, loader, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Loads (without initializing) and {@linkplain #warmUp(Collection) warms up} every class in the given package and
+   * its subpackages, on {@code pool}.
+   *
+   * @param packageName the package to scan, such as {@code "com.example.handlers"}.
+   * @param loader      where to look for and load the classes.
+   * @param pool        where to load and resolve the classes.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if any argument is null.
+   * @throws IOException          if the package's directories or jars couldn't be read.
+   * @see #warmUpPackage(String, ClassLoader)
+   */
+  public static WarmUpReport warmUpPackage(String packageName, ClassLoader loader, ForkJoinPool pool)
+    throws NullPointerException, IOException {
+    if (packageName == null || loader == null || pool == null) {
+      throw new NullPointerException("Package, loader and pool are all required");
+    }
+
+    return WarmUp.run(WarmUp.classesInPackage(packageName, loader), loader, pool);
+  }
+
+  /**
+   * Loads (without initializing) and {@linkplain #warmUp(Collection) warms up} every class named in the given index
+   * file, on the {@linkplain ForkJoinPool#commonPool() common pool}. The index is a UTF-8 text file with one binary
+   * class name per line; blank lines and lines starting with {@code #} are ignored. Classes which can't be loaded are
+   * reported as failures.
+   *
+   * @param index  the index file.
+   * @param loader where to load the classes from.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if any argument is null.
+   * @throws IOException          if the index couldn't be read.
+   * @see #warmUp(Collection)
+   */
+  public static WarmUpReport warmUpIndex(Path index, ClassLoader loader) throws NullPointerException, IOException {
+    return warmUpIndex(index, loader, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Loads (without initializing) and {@linkplain #warmUp(Collection) warms up} every class named in the given index
+   * file, on {@code pool}.
+   *
+   * @param index  the index file.
+   * @param loader where to load the classes from.
+   * @param pool   where to load and resolve the classes.
+   * @return how long each class took, and which ones failed.
+   * @throws NullPointerException if any argument is null.
+   * @throws IOException          if the index couldn't be read.
+   * @see #warmUpIndex(Path, ClassLoader)
+   */
+  public static WarmUpReport warmUpIndex(Path index, ClassLoader loader, ForkJoinPool pool)
+    throws NullPointerException, IOException {
+    if (index == null || loader == null || pool == null) {
+      throw new NullPointerException("Index, loader and pool are all required");
+    }
+
+    return WarmUp.run(WarmUp.classesInIndex(index), loader, pool);
+  }
+
+  /**
+   * Resolves the generic superclasses and superinterfaces of the given classes, and saves them to {@code file}, for a
+   * later process to {@linkplain #loadSnapshot(Path) load}.
+   * <p>
+   * Each class is saved along with the size and last modification time of its class file, or of the jar it's in, so
+   * that entries for classes which changed in the meantime are ignored. Supertypes with types that can't be saved by
+   * name, such as type variables, are left out, as are classes not loaded from a local directory or jar.
+   *
+   * @param classes the classes to save.
+   * @param file    where to save them; overwritten if it already exists.
+   * @return how many classes were saved.
+   * @throws NullPointerException if any argument is null, or {@code classes} holds a null.
+   * @throws IOException          if {@code file} couldn't be written.
+   * @see #loadSnapshot(Path)
+   */
+  public static int exportSnapshot(Collection<? extends Class<?>> classes, Path file)
+    throws NullPointerException, IOException {
+    if (classes == null || file == null) {
+      throw new NullPointerException("Classes and file are both required");
+    }
+
+    return SignatureSnapshot.write(classes, file);
+  }
+
+  /**
+   * Memory-maps the given {@linkplain #exportSnapshot(Collection, Path) snapshot}, and uses it from then on, in place
+   * of any snapshot loaded before.
+   * <p>
+   * {@link #fromSuperclass(Class, int)} and {@link #fromInterface(Class, int)} will then read the type lists of the
+   * classes in the snapshot straight from the file, without reflection, as long as their class files still match.
+   * Classes not in the snapshot, or which changed since, are handled through reflection as usual. Classes already
+   * resolved aren't affected, so this is best done early.
+   *
+   * @param file a snapshot file.
+   * @return how many classes the snapshot has entries for.
+   * @throws NullPointerException if {@code file} is null.
+   * @throws IOException          if {@code file} couldn't be read, or isn't a snapshot.
+   * @see #exportSnapshot(Collection, Path)
+   * @see #clearSnapshot()
+   */
+  public static int loadSnapshot(Path file) throws NullPointerException, IOException {
+    if (file == null) {
+      throw new NullPointerException("No file given");
+    }
+
+    SignatureSnapshot snapshot = SignatureSnapshot.load(file);
+    SignatureSnapshot.install(snapshot);
+
+    return snapshot.size();
+  }
+
+  /**
+   * Stops using the {@linkplain #loadSnapshot(Path) loaded snapshot}, if there's one. Classes already resolved from it
+   * aren't affected.
+   *
+   * @see #loadSnapshot(Path)
+   */
+  public static void clearSnapshot() {
+    SignatureSnapshot.install(null);
+  }
+
+  /**
+   * Drops everything cached about the classes defined by {@code loader}, or by any of its descendants: assignability
+   * answers, interned conses, canonical types, dispatch tuples and signatures. Meant for containers which redeploy
+   * applications, to be called as an application is undeployed.
+   * <p>
+   * Calling this isn't needed to avoid leaks: the caches never keep a class loader alive on their own. Signatures are
+   * kept in {@link ClassValue}s of the classes they describe, or, for classes which outlive this library, in a map
+   * which goes away with it; and the other caches only weakly reference classes and types. But collected entries are
+   * only dropped lazily, and this drops them right away, without waiting for the garbage collector.
+   *
+   * @param loader the class loader going away.
+   * @throws NullPointerException if {@code loader} is null.
+   */
+  public static void evict(ClassLoader loader) throws NullPointerException {
+    if (loader == null) {
+      throw new NullPointerException("No class loader given");
+    }
+
+    ASSIGNABILITY_CACHE.evict(loader);
+    CONS_POOL.evict(loader);
+    CANONICAL_TYPES.evict(loader);
+    Dispatcher.evict(loader);
+    ClassSignatures.evict(loader);
+    PrecomputedSignatures.evict(loader);
+  }
+
   /**
    * Encodes the given list of types as a {@linkplain C cons}, as accepted by {@link #fromCons(Type)}. This method is
    * equivalent to calling {@link Types#cons(List)}, with a slightly more convenient syntax.
@@ -298,9 +1264,9 @@ public final class Types {
    *   <li>Two or more types are encoded as a {@link C C} type.</li>
    * </ul>
    * <p>
-   * Any {@code C} types within the given list will be broken down and flattened into a larger list. Any {@code null}s
-   * within the given type list are considered empty {@code C} types, as per {@code fromCons}. So (excusing the
-   * pseudo-Java)
+   * Any {@code C} types (or wider conses, such as {@link C3}) within the given list will be broken down and flattened
+   * into a larger list. Any {@code null}s within the given type list are considered empty {@code C} types, as per
+   * {@code fromCons}. So (excusing the pseudo-Java)
    * <pre>
    *   Types.cons([null, String, Object, null, Number, List&lt;Double&gt;])
    * </pre>
@@ -318,6 +1284,8 @@ public final class Types {
    * </pre>
    * <p>
    * holds for any list of {@link Type}s not containing {@code C} types.
+   * <p>
+   * If {@linkplain #setConsInterning(boolean) interning} is on, the results are canonical instances.
    *
    * @param types a list of types to encode.
    * @return a type encoding the given list, as extractable by {@link #fromCons(Type)}, or {@code null} if the given
@@ -325,12 +1293,36 @@ public final class Types {
    * @see #fromCons(Type)
    */
   public static Type cons(List<? extends Type> types) {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return encode(flatten(types));
+    }
+
+    final long START = System.nanoTime();
+    List<Type> flattened = flatten(types);
+    Type result = encode(flattened);
+    METRICS.called(Operation.CONS, System.nanoTime() - START);
+    METRICS.decoded(Operation.CONS, flattened.size());
+    return result;
+  }
+
+  // flattens the conses in the given list, dropping the nulls; a null list flattens to an empty one
+  private static List<Type> flatten(List<? extends Type> types) {
     if (types == null) {
-      return null;
+      return Collections.emptyList();
     }
 
-    return types.stream()
-      .flatMap(t -> Types.fromCons(t).stream().map(Type.class::cast)) // flatten conses and Type::cast to later reduce
+    List<Type> flattened = new ArrayList<>(types.size());
+    for (Type type : types) {
+      flattened.addAll(decode(type));
+    }
+
+    return flattened;
+  }
+
+  private static Type encode(List<Type> flattened) {
+    final boolean INTERNING = consInterning;
+    return flattened.stream()
       .collect(toReverseList())// cons are built back to front; so reverse the given list before reducing it
       .stream()
       .reduce(
@@ -340,11 +1332,193 @@ public final class Types {
             return next; // a single element list returns that element unchanged
           }
 
-          return TypeFactory.parameterizedClass(C.class, next, acc); // cons up
+          return INTERNING
+            ? CONS_POOL.intern(next, acc) // acc was interned in the previous step
+            : TypeFactory.parameterizedClass(C.class, next, acc); // cons up
         });
   }
 
-  private static boolean isPrimitive(Type type) {
+  /**
+   * Encodes the given list of types as a {@linkplain C cons}, like {@link #cons(List)}, but as wide as possible: seven
+   * types at a time in {@link C8}s, with whatever's left at the end in a cons just wide enough for it. So ten types
+   * become
+   * <pre>
+   *   C8&lt;T0, T1, T2, T3, T4, T5, T6, C3&lt;T7, T8, T9&gt;&gt;
+   * </pre>
+   * instead of ten nested {@code C}s, and {@link #fromCons(Type)} decodes them in two steps instead of nine. The result
+   * decodes to the same list as {@code cons(types)} would, but isn't {@code equals} to it; and wide conses aren't
+   * {@linkplain #setConsInterning(boolean) interned}.
+   * <p>
+   * As in {@code cons}, conses in the given list are flattened, nulls are skipped, and a single type is returned as is.
+   *
+   * @param types a list of types to encode.
+   * @return a type encoding the given list, as extractable by {@link #fromCons(Type)}, or {@code null} if the given
+   * list is {@code null} or empty.
+   * @see #cons(List)
+   * @see C8
+   */
+  public static Type wideCons(List<? extends Type> types) {
+    final TypesMetrics METRICS = metrics;
+    if (METRICS == TypesMetrics.NONE) {
+      return encodeWide(flatten(types));
+    }
+
+    final long START = System.nanoTime();
+    List<Type> flattened = flatten(types);
+    Type result = encodeWide(flattened);
+    METRICS.called(Operation.CONS, System.nanoTime() - START);
+    METRICS.decoded(Operation.CONS, flattened.size());
+    return result;
+  }
+
+  /**
+   * Encodes the given types as a cons, as wide as possible. This method is equivalent to calling
+   * {@link Types#wideCons(List)}, with a slightly more convenient syntax.
+   *
+   * @param types a list of types to encode.
+   * @return a type encoding the given list, as extractable by {@link #fromCons(Type)}.
+   * @see #wideCons(List)
+   */
+  public static Type wideCons(Type... types) {
+    if (types == null || types.length == 0) {
+      return null;
+    }
+
+    return wideCons(Arrays.asList(types));
+  }
+
+  private static Type encodeWide(List<Type> flattened) {
+    final int SIZE = flattened.size();
+    if (SIZE <= 1) {
+      return SIZE == 0 ? null : flattened.get(0);
+    }
+
+    // built back to front: the leftovers first, then full C8s, each holding the cons built so far in its last slot
+    final int WIDEST = CONSES.length - 1;
+    int start = SIZE - ((SIZE - 2) % (WIDEST - 1) + 2);
+    Type result = TypeFactory.parameterizedClass(CONSES[SIZE - start],
+      flattened.subList(start, SIZE).toArray(new Type[0]));
+
+    while (start > 0) {
+      Type[] arguments = new Type[WIDEST];
+
+      start -= WIDEST - 1;
+      flattened.subList(start, start + WIDEST - 1).toArray(arguments);
+      arguments[WIDEST - 1] = result;
+      result = TypeFactory.parameterizedClass(CONSES[WIDEST], arguments);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns if {@link #cons(List)} is interning the conses it builds.
+   *
+   * @return if {@code cons} is interning the conses it builds.
+   * @see #setConsInterning(boolean)
+   */
+  public static boolean isConsInterning() {
+    return consInterning;
+  }
+
+  /**
+   * Turns interning on or off for the conses built by {@link #cons(List)}. Off by default.
+   * <p>
+   * When on, {@code cons} returns canonical instances: structurally equal conses are the same object, so they can be
+   * compared with {@code ==}, and equal suffixes share the same tail. The results are still {@code equals} to (and
+   * hash like) any other parameterized types with the same structure, but their hashing and equality are cheaper, and
+   * many similar conses take up much less memory.
+   * <p>
+   * Interned conses are weakly held, so unused ones are still garbage collected.
+   *
+   * @param consInterning if {@code cons} should intern the conses it builds.
+   */
+  public static void setConsInterning(boolean consInterning) {
+    Types.consInterning = consInterning;
+  }
+
+  /**
+   * Returns the metrics in use.
+   *
+   * @return the metrics in use; {@link TypesMetrics#NONE} by default.
+   * @see #setMetrics(TypesMetrics)
+   */
+  public static TypesMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the metrics which will receive measurements from the hot paths of this class: calls and latencies of
+   * {@code check}, {@code from*}, {@code fromCons} and {@code cons}, cache hits and misses, failed checks, and the
+   * lengths of the type lists handled. See {@link TypesMetrics} for the details.
+   * <p>
+   * {@link TypesMetrics#NONE}, the default, turns measuring off, at no cost. {@link InMemoryMetrics} keeps everything
+   * in memory, for polling.
+   *
+   * @param metrics the metrics to use.
+   * @throws NullPointerException if {@code metrics} is null; use {@link TypesMetrics#NONE} instead.
+   */
+  public static void setMetrics(TypesMetrics metrics) throws NullPointerException {
+    if (metrics == null) {
+      throw new NullPointerException("No metrics given");
+    }
+
+    Types.metrics = metrics;
+  }
+
+  // for the caches, which report hits and misses themselves
+  static TypesMetrics metrics() {
+    return metrics;
+  }
+
+  // for the generated tables, which build their types canonical from the start
+  static CanonicalTypes canonicalTypes() {
+    return CANONICAL_TYPES;
+  }
+
+  static void checked(TypesMetrics metrics, long start, boolean result) {
+    metrics.called(Operation.CHECK, System.nanoTime() - start);
+    if (!result) {
+      metrics.mismatched(Operation.CHECK);
+    }
+  }
+
+  private static void decoded(TypesMetrics metrics, Operation operation, long start, List<? extends Type> result) {
+    metrics.called(operation, System.nanoTime() - start);
+    if (result != null) {
+      metrics.decoded(operation, result.size());
+    }
+  }
+
+  // throws IndexOutOfBoundsException if [offset, offset + length) isn't within array
+  static void checkRange(Object[] array, int offset, int length) throws IndexOutOfBoundsException {
+    if (offset < 0 || length < 0 || offset > array.length - length) {
+      throw new IndexOutOfBoundsException(
+        "Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + array.length);
+    }
+  }
+
+  // if type is a C<First, Rest>, or one of the wider conses
+  static boolean isCons(Type type) {
+    if (!(type instanceof ParameterizedType)) {
+      return false;
+    }
+
+    Type raw = ((ParameterizedType) type).getRawType();
+    if (raw == C.class) { // by far the most common
+      return true;
+    }
+
+    for (int i = 3; i < CONSES.length; i++) {
+      if (raw == CONSES[i]) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  static boolean isPrimitive(Type type) {
     return type == boolean.class ||
       type == byte.class ||
       type == char.class ||
@@ -0,0 +1,101 @@
+package org.sbrubbles.genericcons;
+
+/**
+ * Receives measurements from the hot paths of {@link Types}: how often each operation runs, how long it takes, how
+ * the caches behave, how often checks fail, and how long the decoded type lists are.
+ * <p>
+ * Implementations are {@linkplain Types#setMetrics(TypesMetrics) plugged in} globally, and are called from whatever
+ * threads are using {@code Types}, so they must be thread-safe, and should be cheap. All methods do nothing by
+ * default, so implementations only need to override what they care about.
+ * <p>
+ * {@link #NONE}, the default, is special-cased: while it's in use, no clocks are read and nothing is called, so
+ * there's no cost to having this around.
+ *
+ * @author Humberto Anjos
+ * @see Types#setMetrics(TypesMetrics)
+ * @see InMemoryMetrics
+ */
+public interface TypesMetrics {
+  /**
+   * The measured operations.
+   */
+  enum Operation {
+    /**
+     * {@link Types#check(java.lang.reflect.Type, Object)}, its list and array variants, and {@link TypeChecker}'s
+     * single-row checks.
+     */
+    CHECK,
+    /**
+     * {@link Types#from(java.lang.reflect.ParameterizedType, int)}, {@link Types#fromSuperclass(Class, int)} and
+     * {@link Types#fromInterface(Class, int)}, and their variants.
+     */
+    FROM,
+    /**
+     * {@link Types#fromCons(java.lang.reflect.Type)} and its variants.
+     */
+    FROM_CONS,
+    /**
+     * {@link Types#cons(java.util.List)} and its variants.
+     */
+    CONS
+  }
+
+  /**
+   * The observed caches.
+   */
+  enum Cache {
+    /**
+     * The assignability cache behind {@link Types#check(java.lang.reflect.Type, Object)}.
+     */
+    ASSIGNABILITY,
+    /**
+     * The per-class memoization behind {@link Types#fromSuperclass(Class, int)} and
+     * {@link Types#fromInterface(Class, int)}.
+     */
+    SIGNATURES,
+    /**
+     * The pool of {@linkplain Types#setConsInterning(boolean) interned} conses.
+     */
+    CONS_POOL,
+    /**
+     * The pool of canonical types behind {@link Types#canonicalize(java.lang.reflect.Type)}.
+     */
+    CANONICAL_TYPES
+  }
+
+  /**
+   * The metrics which measure nothing, and the default.
+   */
+  TypesMetrics NONE = new TypesMetrics() { /* all defaults */ };
+
+  /**
+   * Called after each operation, whether it succeeded or threw.
+   *
+   * @param operation what was done.
+   * @param nanos     how long it took, in nanoseconds.
+   */
+  default void called(Operation operation, long nanos) { /* nothing to do */ }
+
+  /**
+   * Called whenever an operation yields a negative answer; in practice, when a {@link Operation#CHECK} fails.
+   *
+   * @param operation what was done.
+   */
+  default void mismatched(Operation operation) { /* nothing to do */ }
+
+  /**
+   * Called after each successful operation which produced or consumed a list of types, with the list's length.
+   *
+   * @param operation what was done.
+   * @param length    how many types were in the list.
+   */
+  default void decoded(Operation operation, int length) { /* nothing to do */ }
+
+  /**
+   * Called whenever a cache is consulted.
+   *
+   * @param cache which cache.
+   * @param hit   if the answer was there.
+   */
+  default void cacheAccessed(Cache cache, boolean hit) { /* nothing to do */ }
+}
@@ -0,0 +1,254 @@
+package org.sbrubbles.genericcons;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the signatures of many classes in parallel, ahead of time, and finds out which classes to resolve.
+ * <p>
+ * Resolving a class here means asking {@link ClassSignatures} for its generic superclass and every generic
+ * superinterface, which decodes and caches them, so later calls to {@link Types#fromSuperclass(Class, int)} and
+ * {@link Types#fromInterface(Class, int)} find them ready.
+ *
+ * @author Humberto Anjos
+ * @see Types#warmUp(Collection)
+ */
+final class WarmUp {
+  private static final String CLASS_SUFFIX = ".class";
+
+  private WarmUp() { /* preventing instantiation */ }
+
+  /**
+   * Resolves the given classes in {@code pool}.
+   *
+   * @param classes the classes to resolve.
+   * @param pool    where to resolve them.
+   * @return the timings and failures.
+   */
+  static WarmUpReport run(Collection<? extends Class<?>> classes, ForkJoinPool pool) {
+    Class<?>[] classArray = classes.toArray(new Class<?>[0]);
+    String[] names = new String[classArray.length];
+    for (int i = 0; i < classArray.length; i++) {
+      names[i] = classArray[i].getName();
+    }
+
+    return run(names, classArray, null, pool);
+  }
+
+  /**
+   * Loads (without initializing) and resolves the named classes in {@code pool}.
+   *
+   * @param names  the binary names of the classes to resolve.
+   * @param loader where to load them from.
+   * @param pool   where to resolve them.
+   * @return the timings and failures.
+   */
+  static WarmUpReport run(List<String> names, ClassLoader loader, ForkJoinPool pool) {
+    String[] nameArray = names.toArray(new String[0]);
+
+    return run(nameArray, new Class<?>[nameArray.length], loader, pool);
+  }
+
+  private static WarmUpReport run(String[] names, Class<?>[] classes, ClassLoader loader, ForkJoinPool pool) {
+    final long[] nanos = new long[names.length];
+    final Throwable[] failures = new Throwable[names.length];
+
+    long start = System.nanoTime();
+    pool.invoke(new Task(names, classes, loader, nanos, failures, 0, names.length));
+    long elapsed = System.nanoTime() - start;
+
+    // keeping the given order, and the last word for duplicates
+    Map<String, Long> nanoMap = new LinkedHashMap<>();
+    Map<String, Throwable> failureMap = new LinkedHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      nanoMap.put(names[i], nanos[i]);
+
+      if (failures[i] != null) {
+        failureMap.put(names[i], failures[i]);
+      } else {
+        failureMap.remove(names[i]);
+      }
+    }
+
+    return new WarmUpReport(nanoMap, failureMap, elapsed);
+  }
+
+  /**
+   * Resolves the given class' generic superclass and superinterfaces, and decodes their type arguments.
+   *
+   * @param c a non-null class.
+   */
+  static void resolve(Class<?> c) {
+    ClassSignatures signatures = ClassSignatures.of(c);
+
+    signatures.superclass().ifPresent(ClassSignatures.Decoded::decodeAll);
+
+    final int SIZE = c.getInterfaces().length;
+    for (int i = 0; i < SIZE; i++) {
+      signatures.superinterface(i).ifPresent(ClassSignatures.Decoded::decodeAll);
+    }
+  }
+
+  /**
+   * Lists the binary names of the classes in the given package and its subpackages, as seen by {@code loader}, in
+   * both directories and jars. Anonymous, local and member classes are included.
+   *
+   * @param packageName the package to scan; the empty string is the unnamed package.
+   * @param loader      the class loader whose resources are scanned.
+   * @return the sorted names of the classes found.
+   * @throws IOException if a directory or jar couldn't be read.
+   */
+  static List<String> classesInPackage(String packageName, ClassLoader loader) throws IOException {
+    String path = packageName.replace('.', '/');
+    String prefix = path.isEmpty() ? "" : path + "/";
+    Set<String> names = new TreeSet<>();
+
+    Enumeration<URL> roots = loader.getResources(path);
+    while (roots.hasMoreElements()) {
+      URL root = roots.nextElement();
+
+      switch (root.getProtocol()) {
+        case "file":
+          scanDirectory(root, prefix, names);
+          break;
+        case "jar":
+          scanJar(root, prefix, names);
+          break;
+        default: // nothing we know how to list
+      }
+    }
+
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * Reads the binary class names in the given index file: one name per line, with blank lines and lines starting with
+   * {@code #} ignored.
+   *
+   * @param index the index file, in UTF-8.
+   * @return the names in the file, in order.
+   * @throws IOException if the file couldn't be read.
+   */
+  static List<String> classesInIndex(Path index) throws IOException {
+    List<String> names = new ArrayList<>();
+
+    for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+      String name = line.trim();
+
+      if (!name.isEmpty() && !name.startsWith("#")) {
+        names.add(name);
+      }
+    }
+
+    return names;
+  }
+
+  private static void scanDirectory(URL root, String prefix, Set<String> names) throws IOException {
+    Path directory;
+    try {
+      directory = Paths.get(root.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      throw new IOException("Can't scan " + root, e);
+    }
+
+    String separator = directory.getFileSystem().getSeparator();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files
+        .filter(Files::isRegularFile)
+        .map(file -> prefix + directory.relativize(file).toString().replace(separator, "/"))
+        .forEach(entry -> addIfClass(entry, names));
+    }
+  }
+
+  private static void scanJar(URL root, String prefix, Set<String> names) throws IOException {
+    URLConnection connection = root.openConnection();
+    if (!(connection instanceof JarURLConnection)) {
+      return;
+    }
+
+    connection.setUseCaches(false); // or the jar stays open after we close it
+    try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+      Enumeration<JarEntry> entries = jar.entries();
+
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+
+        if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+          addIfClass(entry.getName(), names);
+        }
+      }
+    }
+  }
+
+  private static void addIfClass(String entry, Set<String> names) {
+    if (!entry.endsWith(CLASS_SUFFIX) || entry.endsWith("module-info.class") || entry.endsWith("package-info.class")) {
+      return;
+    }
+
+    names.add(entry.substring(0, entry.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+  }
+
+  // resolves [from, to), splitting down to one class per task; classes vary too much in cost to batch them blindly
+  @SuppressWarnings("serial") // never serialized
+  private static final class Task extends RecursiveAction {
+    private final String[] names;
+    private final Class<?>[] classes;
+    private final ClassLoader loader;
+    private final long[] nanos;
+    private final Throwable[] failures;
+    private final int from;
+    private final int to;
+
+    Task(String[] names, Class<?>[] classes, ClassLoader loader, long[] nanos, Throwable[] failures, int from, int to) {
+      this.names = names;
+      this.classes = classes;
+      this.loader = loader;
+      this.nanos = nanos;
+      this.failures = failures;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        final int MIDDLE = (from + to) >>> 1;
+        invokeAll(
+          new Task(names, classes, loader, nanos, failures, from, MIDDLE),
+          new Task(names, classes, loader, nanos, failures, MIDDLE, to));
+        return;
+      }
+
+      if (from == to) {
+        return;
+      }
+
+      long start = System.nanoTime();
+      try {
+        Class<?> c = classes[from];
+        if (c == null) {
+          c = Class.forName(names[from], false, loader);
+        }
+
+        resolve(c);
+      } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+        failures[from] = e;
+      } finally {
+        nanos[from] = System.nanoTime() - start;
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package org.sbrubbles.genericcons;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * What a {@linkplain Types#warmUp(java.util.Collection) warm-up} did: how long each class took, and which ones
+ * failed, and why.
+ * <p>
+ * Classes are identified by their binary names, so classes that couldn't even be loaded can be reported as well.
+ * <p>
+ * Instances are immutable, and therefore safe to share between threads.
+ *
+ * @author Humberto Anjos
+ * @see Types#warmUp(java.util.Collection)
+ */
+public final class WarmUpReport {
+  private final Map<String, Long> nanos;
+  private final Map<String, Throwable> failures;
+  private final long elapsedNanos;
+
+  WarmUpReport(Map<String, Long> nanos, Map<String, Throwable> failures, long elapsedNanos) {
+    this.nanos = Collections.unmodifiableMap(nanos);
+    this.failures = Collections.unmodifiableMap(failures);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns how long each class took to load (if needed) and resolve, in nanoseconds, failed ones included.
+   *
+   * @return an immutable map of each class' name to how long it took, in the order the classes were given.
+   */
+  public Map<String, Long> nanos() {
+    return nanos;
+  }
+
+  /**
+   * Returns the classes which failed to load or resolve, along with what went wrong.
+   *
+   * @return an immutable map of each failed class' name to what it threw, in the order the classes were given.
+   */
+  public Map<String, Throwable> failures() {
+    return failures;
+  }
+
+  /**
+   * Returns how many classes were warmed up, failed ones included.
+   *
+   * @return how many classes were warmed up.
+   */
+  public int classCount() {
+    return nanos.size();
+  }
+
+  /**
+   * Returns the sum of the time each class took, in nanoseconds. With more than one thread, this is usually more
+   * than {@link #elapsedNanos()}.
+   *
+   * @return the total time spent on all classes, in nanoseconds.
+   */
+  public long totalNanos() {
+    long total = 0;
+    for (long n : nanos.values()) {
+      total += n;
+    }
+
+    return total;
+  }
+
+  /**
+   * Returns how long the whole warm-up took, wall-clock, in nanoseconds.
+   *
+   * @return how long the whole warm-up took, in nanoseconds.
+   */
+  public long elapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "WarmUpReport[" + nanos.size() + " classes, " + failures.size() + " failed, " + elapsedNanos + " ns]";
+  }
+}
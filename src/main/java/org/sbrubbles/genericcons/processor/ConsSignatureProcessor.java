@@ -0,0 +1,456 @@
+package org.sbrubbles.genericcons.processor;
+
+import org.sbrubbles.genericcons.C;
+import org.sbrubbles.genericcons.C3;
+import org.sbrubbles.genericcons.C4;
+import org.sbrubbles.genericcons.C5;
+import org.sbrubbles.genericcons.C6;
+import org.sbrubbles.genericcons.C7;
+import org.sbrubbles.genericcons.C8;
+import org.sbrubbles.genericcons.SignatureTable;
+import org.sbrubbles.genericcons.Types;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * An annotation processor which precomputes the {@linkplain Types#fromCons(java.lang.reflect.Type) decoded type
+ * lists} of generic supertypes using {@link C} (or the wider conses, such as {@link C8}), so that
+ * {@link Types#fromSuperclass(Class, int)} and {@link Types#fromInterface(Class, int)} don't need to parse generic
+ * signatures through reflection to find them. The tables build the types straight from class literals, already
+ * {@linkplain Types#canonicalize(java.lang.reflect.Type) canonical}, and each entry only checks the class' raw
+ * supertypes, which are cheap to get, against those it was generated for.
+ * <p>
+ * For every package with such classes, the processor generates a {@link SignatureTable} named
+ * {@value SignatureTable#SIMPLE_NAME}, which {@code Types} finds on its own. So this:
+ * <pre>
+ * public class Max extends Fn&lt;Integer, C&lt;String, C&lt;String, String&gt;&gt;&gt; { &#47;* ... *&#47; }
+ * </pre>
+ * yields a table entry holding {@code [[Integer], [String, String, String]]} for {@code Max}'s superclass.
+ * <p>
+ * The processor is optional, and isn't registered as a service, so it must be asked for explicitly, as in
+ * {@code javac -processor org.sbrubbles.genericcons.processor.ConsSignatureProcessor}, or in the
+ * {@code annotationProcessors} of Maven's compiler plugin.
+ * <p>
+ * Some limitations:
+ * <ul>
+ *   <li>Annotation processors don't see anonymous or local classes, so those are still resolved through
+ *   reflection;</li>
+ *   <li>Supertypes mentioning type variables or types the table can't reference (such as private classes) are
+ *   skipped, and resolved through reflection as well;</li>
+ *   <li>Each package's table is written in the first processing round that sees it, so classes generated by other
+ *   processors in later rounds are left out.</li>
+ * </ul>
+ *
+ * @author Humberto Anjos
+ * @see SignatureTable
+ */
+@SupportedAnnotationTypes("*")
+public class ConsSignatureProcessor extends AbstractProcessor {
+  private static final Set<String> CONS_NAMES = new HashSet<>(Arrays.asList(
+    C.class.getCanonicalName(), C3.class.getCanonicalName(), C4.class.getCanonicalName(),
+    C5.class.getCanonicalName(), C6.class.getCanonicalName(), C7.class.getCanonicalName(),
+    C8.class.getCanonicalName()));
+  private static final String TYPE_FACTORY = SignatureTable.class.getName();
+  private static final int CASES_PER_SWITCH = 256;
+
+  private final Set<String> writtenPackages = new HashSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      return false;
+    }
+
+    Map<String, List<Entry>> entries = new TreeMap<>();
+    for (Element element : roundEnv.getRootElements()) {
+      collect(element, entries);
+    }
+
+    for (Map.Entry<String, List<Entry>> e : entries.entrySet()) {
+      String packageName = e.getKey();
+
+      if (!writtenPackages.add(packageName)) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+          "Signatures for package '" + packageName + "' already written; new classes will use reflection");
+        continue;
+      }
+
+      write(packageName, e.getValue());
+    }
+
+    return false; // other processors may want these too
+  }
+
+  // finds all (member) classes whose supertypes use C
+  private void collect(Element element, Map<String, List<Entry>> entries) {
+    if (!(element instanceof TypeElement)) {
+      return;
+    }
+
+    TypeElement type = (TypeElement) element;
+    String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+
+    Entry entry = new Entry(processingEnv.getElementUtils().getBinaryName(type).toString());
+
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() == TypeKind.DECLARED && usesCons(superclass)) {
+      entry.superclass = supertype((DeclaredType) superclass, packageName);
+    }
+
+    List<? extends TypeMirror> interfaces = type.getInterfaces();
+    for (int i = 0; i < interfaces.size(); i++) {
+      TypeMirror iface = interfaces.get(i);
+
+      if (iface.getKind() == TypeKind.DECLARED && usesCons(iface)) {
+        Supertype supertype = supertype((DeclaredType) iface, packageName);
+
+        if (supertype != null) {
+          entry.interfaces.put(i, supertype);
+        }
+      }
+    }
+
+    if (entry.superclass != null || !entry.interfaces.isEmpty()) {
+      entries.computeIfAbsent(packageName, k -> new ArrayList<>()).add(entry);
+    }
+
+    for (Element enclosed : type.getEnclosedElements()) {
+      collect(enclosed, entries);
+    }
+  }
+
+  // null if there's something in type which can't be written down
+  private Supertype supertype(DeclaredType type, String packageName) {
+    Supertype result = new Supertype(binaryName(type));
+
+    for (TypeMirror argument : type.getTypeArguments()) {
+      List<String> expressions = new ArrayList<>();
+
+      for (TypeMirror t : flatten(argument)) {
+        String expression = expressionOf(t, packageName);
+        if (expression == null) {
+          return null;
+        }
+
+        expressions.add(expression);
+      }
+
+      result.arguments.add(expressions);
+    }
+
+    return result;
+  }
+
+  // what Types.fromCons does, at compile time
+  private List<TypeMirror> flatten(TypeMirror type) {
+    List<TypeMirror> result = new ArrayList<>();
+
+    while (isCons(type)) {
+      List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+
+      result.addAll(arguments.subList(0, arguments.size() - 1)); // more than one for the wider conses
+      type = arguments.get(arguments.size() - 1);
+    }
+
+    result.add(type);
+    return result;
+  }
+
+  // a Java expression evaluating to the java.lang.reflect.Type reflection would return for type
+  private String expressionOf(TypeMirror type, String packageName) {
+    switch (type.getKind()) {
+      case DECLARED: {
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+
+        if (!isAccessible(element, packageName)) {
+          return null;
+        }
+
+        TypeMirror enclosing = declared.getEnclosingType();
+        if (enclosing.getKind() == TypeKind.DECLARED && !((DeclaredType) enclosing).getTypeArguments().isEmpty()) {
+          return null; // inner classes of generic classes need their owner types; let reflection handle those
+        }
+
+        String rawType = element.getQualifiedName() + ".class";
+        if (declared.getTypeArguments().isEmpty()) {
+          return rawType;
+        }
+
+        StringBuilder result = new StringBuilder(TYPE_FACTORY + ".parameterizedClass(" + rawType);
+        for (TypeMirror argument : declared.getTypeArguments()) {
+          String expression = expressionOf(argument, packageName);
+          if (expression == null) {
+            return null;
+          }
+
+          result.append(", ").append(expression);
+        }
+
+        return result.append(')').toString();
+      }
+      case ARRAY: {
+        TypeMirror component = ((ArrayType) type).getComponentType();
+        if (component.getKind().isPrimitive()) {
+          return component.getKind().name().toLowerCase(Locale.ROOT) + "[].class"; // sans type annotations
+        }
+
+        String expression = expressionOf(component, packageName);
+        return (expression == null) ? null : TYPE_FACTORY + ".arrayOf(" + expression + ")";
+      }
+      case WILDCARD: {
+        WildcardType wildcard = (WildcardType) type;
+
+        if (wildcard.getExtendsBound() != null) {
+          String bound = expressionOf(wildcard.getExtendsBound(), packageName);
+          return (bound == null) ? null : TYPE_FACTORY + ".wildcardExtends(" + bound + ")";
+        }
+
+        if (wildcard.getSuperBound() != null) {
+          String bound = expressionOf(wildcard.getSuperBound(), packageName);
+          return (bound == null) ? null : TYPE_FACTORY + ".wildcardSuper(" + bound + ")";
+        }
+
+        return TYPE_FACTORY + ".unboundWildcard()";
+      }
+      default: // type variables and such
+        return null;
+    }
+  }
+
+  // a Java string literal with the given contents
+  private static String literal(String s) {
+    StringBuilder result = new StringBuilder("\"");
+    for (char c : s.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        result.append('\\');
+      }
+
+      result.append(c);
+    }
+
+    return result.append('"').toString();
+  }
+
+  // if the generated table, in packageName, can refer to element
+  private boolean isAccessible(TypeElement element, String packageName) {
+    String elementPackage = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+
+    for (Element e = element; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      Set<Modifier> modifiers = e.getModifiers();
+
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        return false;
+      }
+
+      if (!modifiers.contains(Modifier.PUBLIC) && !elementPackage.equals(packageName)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private boolean usesCons(TypeMirror type) {
+    switch (type.getKind()) {
+      case DECLARED:
+        if (isCons(type)) {
+          return true;
+        }
+
+        for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+          if (usesCons(argument)) {
+            return true;
+          }
+        }
+
+        return false;
+      case ARRAY:
+        return usesCons(((ArrayType) type).getComponentType());
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        return (wildcard.getExtendsBound() != null && usesCons(wildcard.getExtendsBound()))
+          || (wildcard.getSuperBound() != null && usesCons(wildcard.getSuperBound()));
+      default:
+        return false;
+    }
+  }
+
+  private boolean isCons(TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED
+      && CONS_NAMES.contains(((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString())
+      && ((DeclaredType) type).getTypeArguments().size() >= 2; // not raw
+  }
+
+  private String binaryName(DeclaredType type) {
+    return processingEnv.getElementUtils().getBinaryName((TypeElement) type.asElement()).toString();
+  }
+
+  private void write(String packageName, List<Entry> entries) {
+    String tableName = packageName.isEmpty()
+      ? SignatureTable.SIMPLE_NAME
+      : packageName + "." + SignatureTable.SIMPLE_NAME;
+
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(tableName);
+
+      try (Writer out = file.openWriter()) {
+        out.write(source(packageName, entries));
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+        "Couldn't write " + tableName + "; its classes will use reflection: " + e);
+    }
+  }
+
+  private String source(String packageName, List<Entry> entries) {
+    StringBuilder out = new StringBuilder();
+
+    if (!packageName.isEmpty()) {
+      out.append("package ").append(packageName).append(";\n\n");
+    }
+
+    out.append("/**\n")
+      .append(" * Precomputed cons signatures for this package.\n")
+      .append(" * Generated by ").append(getClass().getName()).append("; do not edit.\n")
+      .append(" */\n")
+      .append("public final class ").append(SignatureTable.SIMPLE_NAME)
+      .append(" implements ").append(SignatureTable.class.getName()).append(" {\n");
+
+    List<String> superclassKeys = new ArrayList<>();
+    List<Supertype> superclasses = new ArrayList<>();
+    List<String> interfaceKeys = new ArrayList<>();
+    List<Supertype> interfaces = new ArrayList<>();
+    for (Entry entry : entries) {
+      if (entry.superclass != null) {
+        superclassKeys.add(entry.name);
+        superclasses.add(entry.superclass);
+      }
+
+      for (Map.Entry<Integer, Supertype> e : entry.interfaces.entrySet()) {
+        interfaceKeys.add(entry.name + "#" + e.getKey());
+        interfaces.add(e.getValue());
+      }
+    }
+
+    out.append("  @Override\n")
+      .append("  public java.lang.reflect.Type[][] superclassSignature(Class<?> baseClass) {\n")
+      .append("    Class<?> superclass = baseClass.getSuperclass();\n")
+      .append("    if (superclass == null) {\n")
+      .append("      return null;\n")
+      .append("    }\n\n");
+    lookup(out, "superclasses", "baseClass.getName()", "superclass.getName()", superclasses.size());
+    out.append("  }\n\n");
+
+    out.append("  @Override\n")
+      .append("  public java.lang.reflect.Type[][] interfaceSignature(Class<?> baseClass, int index) {\n")
+      .append("    Class<?>[] interfaces = baseClass.getInterfaces();\n")
+      .append("    if (index < 0 || index >= interfaces.length) {\n")
+      .append("      return null;\n")
+      .append("    }\n\n");
+    lookup(out, "interfaces", "baseClass.getName() + \"#\" + index", "interfaces[index].getName()", interfaces.size());
+    out.append("  }\n");
+
+    switches(out, "superclasses", "superclass", superclassKeys, superclasses);
+    switches(out, "interfaces", "interface", interfaceKeys, interfaces);
+
+    out.append("}\n");
+
+    return out.toString();
+  }
+
+  // calls each of the switches in turn, until one finds the key
+  private static void lookup(StringBuilder out, String switchName, String key, String rawName, int cases) {
+    out.append("    String key = ").append(key).append(";\n")
+      .append("    String rawName = ").append(rawName).append(";\n")
+      .append("    java.lang.reflect.Type[][] result = null;\n");
+
+    for (int i = 0; i * CASES_PER_SWITCH < cases; i++) {
+      out.append("    if (result == null) {\n")
+        .append("      result = ").append(switchName).append(i).append("(key, rawName);\n")
+        .append("    }\n");
+    }
+
+    out.append("    return result;\n");
+  }
+
+  // a method is limited to 64KB of bytecode, so the cases are split among several switches, and each signature is
+  // built by a method of its own
+  private static void switches(StringBuilder out, String switchName, String methodName, List<String> keys,
+                               List<Supertype> supertypes) {
+    for (int i = 0; i < keys.size(); i++) {
+      if (i % CASES_PER_SWITCH == 0) {
+        out.append("\n  private static java.lang.reflect.Type[][] ").append(switchName).append(i / CASES_PER_SWITCH)
+          .append("(String key, String rawName) {\n")
+          .append("    switch (key) {\n");
+      }
+
+      out.append("      case ").append(literal(keys.get(i))).append(":\n")
+        .append("        return ").append(literal(supertypes.get(i).rawName)).append(".equals(rawName) ? ")
+        .append(methodName).append(i).append("() : null;\n");
+
+      if (i % CASES_PER_SWITCH == CASES_PER_SWITCH - 1 || i == keys.size() - 1) {
+        out.append("      default:\n")
+          .append("        return null;\n")
+          .append("    }\n")
+          .append("  }\n");
+      }
+    }
+
+    for (int i = 0; i < supertypes.size(); i++) {
+      out.append("\n  private static java.lang.reflect.Type[][] ").append(methodName).append(i).append("() {\n")
+        .append("    return ").append(supertypes.get(i).arrayExpression()).append(";\n")
+        .append("  }\n");
+    }
+  }
+
+  // a class and its supertypes using C
+  private static final class Entry {
+    final String name;
+    Supertype superclass;
+    final Map<Integer, Supertype> interfaces = new TreeMap<>();
+
+    Entry(String name) {
+      this.name = name;
+    }
+  }
+
+  // a supertype's raw binary name, and its flattened type arguments as Java expressions
+  private static final class Supertype {
+    final String rawName;
+    final List<List<String>> arguments = new ArrayList<>();
+
+    Supertype(String rawName) {
+      this.rawName = rawName;
+    }
+
+    String arrayExpression() {
+      StringBuilder result = new StringBuilder("new java.lang.reflect.Type[][] { ");
+
+      for (int i = 0; i < arguments.size(); i++) {
+        if (i > 0) {
+          result.append(", ");
+        }
+
+        result.append("{ ").append(String.join(", ", arguments.get(i))).append(" }");
+      }
+
+      return result.append(" }").toString();
+    }
+  }
+}
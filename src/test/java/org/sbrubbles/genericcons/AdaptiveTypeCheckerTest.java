@@ -0,0 +1,264 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+import org.sbrubbles.genericcons.AdaptiveTypeChecker.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.*;
+
+public class AdaptiveTypeCheckerTest {
+  private static final List<Type> TYPES = Arrays.asList(CharSequence.class, listOf(String.class), int.class);
+
+  @Test
+  public void nullTypesDontCompile() {
+    try {
+      Types.compileAdaptive(null);
+      fail("compileAdaptive(null) should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.compileAdaptive(TYPES, 0);
+      fail("compileAdaptive(TYPES, 0) should've thrown IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void typesSizeAndLimit() {
+    AdaptiveTypeChecker checker = Types.compileAdaptive(TYPES);
+
+    assertEquals(TYPES, checker.types());
+    assertEquals(3, checker.size());
+    assertEquals(AdaptiveTypeChecker.DEFAULT_LIMIT, checker.limit());
+    assertEquals(2, Types.compileAdaptive(TYPES, 2).limit());
+  }
+
+  @Test
+  public void answersLikeTypeChecker() {
+    List<Type> types = Arrays.asList(Object.class, Serializable.class, Number.class, listOf(String.class),
+      type(Comparable.class, String.class), int.class);
+    Object[] objects = { null, "", 1, 2L, new ArrayList<>(), new Strings(), new int[0], new Object() };
+
+    TypeChecker expected = Types.compile(types);
+    AdaptiveTypeChecker checker = Types.compileAdaptive(types, 2);
+
+    for (int round = 0; round < 3; round++) { // cold, specialized, then megamorphic
+      for (Type type : types) {
+        List<Type> single = Collections.singletonList(type);
+        AdaptiveTypeChecker singleChecker = Types.compileAdaptive(single, 2);
+
+        for (Object object : objects) {
+          assertEquals(type + " <- " + object, Types.compile(single).check(object), singleChecker.check(object));
+          assertEquals(type + " <- " + object, Types.compile(single).check(object), singleChecker.check(object));
+        }
+      }
+
+      for (Object a : objects) {
+        for (Object b : objects) {
+          Object[] row = { a, b, a, b, a, b };
+          assertEquals(Arrays.toString(row), expected.check(row), checker.check(row));
+          assertEquals(Arrays.toString(row), expected.check(Arrays.asList(row)), checker.check(Arrays.asList(row)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void nullAndSizeMismatch() {
+    AdaptiveTypeChecker checker = Types.compileAdaptive(Collections.singletonList(String.class));
+
+    assertFalse(checker.check((List<?>) null));
+    assertFalse(checker.check((Object[]) null));
+    assertFalse(checker.check(Collections.emptyList()));
+    assertFalse(checker.check(Arrays.asList("", "")));
+    assertTrue(checker.check(new Object[] { 1, "", 2 }, 1, 1));
+
+    try {
+      checker.check(new Object[] { "" }, 1, 1);
+      fail("check(array, 1, 1) should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void specializesToTheClassesSeen() {
+    AdaptiveTypeChecker checker = Types.compileAdaptive(Arrays.asList(CharSequence.class, Number.class), 2);
+
+    assertEquals(State.UNINITIALIZED, checker.state(0));
+    assertEquals(Collections.emptyList(), checker.classes(0));
+
+    assertTrue(checker.check("", 1));
+    assertEquals(State.MONOMORPHIC, checker.state(0));
+    assertEquals(State.MONOMORPHIC, checker.state(1));
+    assertEquals(Collections.singletonList(String.class), checker.classes(0));
+    assertEquals(0, checker.hits());
+    assertEquals(2, checker.misses());
+
+    assertTrue(checker.check("a", 2));
+    assertEquals(2, checker.hits());
+    assertEquals(2, checker.misses());
+
+    // failed classes are cached too, and a failure stops the check
+    assertFalse(checker.check(1, 2));
+    assertFalse(checker.check(1, 2));
+    assertEquals(State.POLYMORPHIC, checker.state(0));
+    assertEquals(State.MONOMORPHIC, checker.state(1));
+    assertEquals(Arrays.asList(String.class, Integer.class), checker.classes(0));
+    assertEquals(Collections.singletonList(Integer.class), checker.classes(1));
+    assertEquals(3, checker.hits());
+    assertEquals(3, checker.misses());
+
+    // nulls are neither hits nor misses
+    assertTrue(checker.check(null, null));
+    assertEquals(3, checker.hits());
+    assertEquals(3, checker.misses());
+  }
+
+  @Test
+  public void becomesMegamorphicPastTheLimit() {
+    AdaptiveTypeChecker checker = Types.compileAdaptive(Collections.singletonList(CharSequence.class), 2);
+
+    assertTrue(checker.check(""));
+    assertTrue(checker.check(new StringBuilder()));
+    assertEquals(State.POLYMORPHIC, checker.state(0));
+
+    assertTrue(checker.check(new StringBuffer()));
+    assertEquals(State.MEGAMORPHIC, checker.state(0));
+    assertEquals(Collections.emptyList(), checker.classes(0));
+    assertEquals(3, checker.misses());
+
+    // still right, but never cached again
+    assertTrue(checker.check(""));
+    assertFalse(checker.check(1));
+    assertEquals(State.MEGAMORPHIC, checker.state(0));
+    assertEquals(0, checker.hits());
+    assertEquals(5, checker.misses());
+  }
+
+  @Test
+  public void collectedClassesAreDropped() throws Exception {
+    final int REDEPLOYS = 50;
+    AdaptiveTypeChecker checker = Types.compileAdaptive(Collections.singletonList(Object.class), 8);
+
+    assertTrue(checker.check(""));
+    for (int i = 0; i < REDEPLOYS; i++) { // a new class each time, which would be well past the limit
+      assertTrue(checker.check(redeployed()));
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertEquals(State.POLYMORPHIC, checker.state(0));
+    assertEquals(String.class, checker.classes(0).get(0));
+  }
+
+  // an instance of a fresh copy of Redeployed, whose class is dropped right away
+  private static Object redeployed() throws Exception {
+    Class<?> type = new RedeployingLoader().loadClass(Redeployed.class.getName());
+
+    assertNotSame(Redeployed.class, type);
+    return type.getDeclaredConstructor().newInstance();
+  }
+
+  @Test
+  public void concurrentChecks() throws Exception {
+    final int THREADS = 8;
+    final AdaptiveTypeChecker checker = Types.compileAdaptive(Arrays.asList(CharSequence.class, Number.class));
+    final Object[][] rows = { { "", 1 }, { new StringBuilder(), 1L }, { "", "" }, { 1, 1 } };
+    final CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < 10000; i++) {
+            Object[] row = rows[i % rows.length];
+            assertEquals(row[0] instanceof CharSequence && row[1] instanceof Number, checker.check(row));
+          }
+
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    assertEquals(State.POLYMORPHIC, checker.state(0));
+    assertEquals(State.POLYMORPHIC, checker.state(1));
+    assertTrue(checker.hits() > checker.misses());
+  }
+
+  @Test
+  public void toStringHasTheTypes() {
+    assertEquals("AdaptiveTypeChecker" + Types.compile(TYPES).types(), Types.compileAdaptive(TYPES).toString());
+  }
+
+  private static class Strings extends ArrayList<String> { /**/ }
+
+  public static final class Redeployed { /**/ }
+
+  // loads its own copy of Redeployed, and delegates everything else
+  private static final class RedeployingLoader extends ClassLoader {
+    RedeployingLoader() {
+      super(AdaptiveTypeCheckerTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!Redeployed.class.getName().equals(name)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+          byte[] bytes = bytesOf(name);
+          result = defineClass(name, bytes, 0, bytes.length);
+        }
+
+        return result;
+      }
+    }
+
+    private byte[] bytesOf(String name) throws ClassNotFoundException {
+      try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+        if (in == null) {
+          throw new ClassNotFoundException(name);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+          out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
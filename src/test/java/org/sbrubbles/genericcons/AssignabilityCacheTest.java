@@ -0,0 +1,106 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+
+public class AssignabilityCacheTest {
+  @Test
+  public void answersLikeGentyref() {
+    AssignabilityCache cache = new AssignabilityCache(16);
+
+    for (int i = 0; i < 2; i++) { // the second time around comes from the cache
+      assertTrue(cache.isSuperType(Serializable.class, ArrayList.class));
+      assertFalse(cache.isSuperType(String.class, Object.class));
+      assertTrue(cache.isSuperType(listOf(String.class), ArrayList.class));
+      assertFalse(cache.isSuperType(listOf(String.class), HashMap.class));
+    }
+
+    assertEquals(4, cache.size());
+  }
+
+  @Test
+  public void staysWithinCapacity() {
+    AssignabilityCache cache = new AssignabilityCache(2);
+
+    Class<?>[] classes = { String.class, Integer.class, Double.class, ArrayList.class, LinkedList.class };
+    for (Class<?> c : classes) {
+      assertTrue(cache.isSuperType(Object.class, c));
+      assertTrue(cache.size() <= 2);
+    }
+  }
+
+  @Test
+  public void evictionSweepsTheWholeCache() {
+    final int CAPACITY = 32;
+    AssignabilityCache cache = new AssignabilityCache(CAPACITY);
+
+    List<Type> types = new ArrayList<>(); // all distinct, and strongly held
+    Type type = String.class;
+    for (int i = 0; i < 5 * CAPACITY; i++) {
+      type = listOf(type);
+      types.add(type);
+    }
+
+    for (Type t : types) {
+      assertTrue(cache.isSuperType(t, ArrayList.class));
+    }
+
+    // without hits, none of the first ones survive the hand going round a few times, wherever they are in the table
+    for (int i = 0; i < CAPACITY; i++) {
+      assertFalse(cache.contains(types.get(i), ArrayList.class));
+    }
+
+    assertEquals(CAPACITY, cache.size());
+  }
+
+  @Test
+  public void zeroCapacityTurnsItOff() {
+    AssignabilityCache cache = new AssignabilityCache(16);
+    cache.isSuperType(Object.class, String.class);
+    assertEquals(1, cache.size());
+
+    cache.setCapacity(0);
+    assertEquals(0, cache.size());
+
+    assertTrue(cache.isSuperType(Object.class, String.class));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shrinkingEvicts() {
+    AssignabilityCache cache = new AssignabilityCache(16);
+    cache.isSuperType(Object.class, String.class);
+    cache.isSuperType(Object.class, Integer.class);
+    cache.isSuperType(Object.class, Double.class);
+
+    cache.setCapacity(1);
+    assertEquals(1, cache.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeCapacity() {
+    Types.setAssignabilityCacheCapacity(-1);
+  }
+
+  @Test
+  public void configuringTypes() {
+    try {
+      Types.setAssignabilityCacheCapacity(0);
+      assertEquals(0, Types.getAssignabilityCacheCapacity());
+      assertTrue(Types.check(Serializable.class, new ArrayList<>()));
+    } finally {
+      Types.setAssignabilityCacheCapacity(Types.DEFAULT_ASSIGNABILITY_CACHE_CAPACITY);
+    }
+
+    assertEquals(Types.DEFAULT_ASSIGNABILITY_CACHE_CAPACITY, Types.getAssignabilityCacheCapacity());
+  }
+}
@@ -0,0 +1,137 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+import com.coekie.gentyref.TypeFactory;
+import com.coekie.gentyref.TypeToken;
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.*;
+
+public class AssignabilityTest {
+  private static class Strings extends ArrayList<String> { /**/ }
+  private static class Raw extends ArrayList { /**/ }
+  private static class MoreStrings extends Strings implements Comparable<MoreStrings> {
+    @Override
+    public int compareTo(MoreStrings o) {
+      return 0;
+    }
+  }
+  private static class NumberMap extends HashMap<Number, List<Integer>> { /**/ }
+  private static class Consed extends OneParameter<C<String, C<Integer, Serializable>>> { /**/ }
+  private static class Outer<T> {
+    class Inner extends ArrayList<T> { /**/ }
+  }
+  private static class ArraySupplier implements Supplier<String[]> {
+    @Override
+    public String[] get() {
+      return null;
+    }
+  }
+
+  private static final Class<?>[] CLASSES = { Object.class, String.class, Integer.class, int.class, ArrayList.class,
+    Strings.class, Raw.class, MoreStrings.class, NumberMap.class, HashMap.class, Consed.class, Outer.Inner.class,
+    ArraySupplier.class, String[].class, Strings[].class, ArrayList[].class, int[].class };
+
+  private static final Type[] TYPES = {
+    Object.class, Serializable.class, CharSequence.class, int.class, List.class, Object[].class, List[].class,
+    listOf(String.class), listOf(Integer.class), listOf(Object.class),
+    listOf(TypeFactory.unboundWildcard()),
+    listOf(TypeFactory.wildcardExtends(CharSequence.class)),
+    listOf(TypeFactory.wildcardExtends(Number.class)),
+    listOf(TypeFactory.wildcardSuper(String.class)),
+    listOf(TypeFactory.wildcardSuper(Object.class)),
+    type(Collection.class, TypeFactory.wildcardExtends(Comparable.class)),
+    type(Comparable.class, MoreStrings.class),
+    type(Comparable.class, TypeFactory.wildcardExtends(Strings.class)),
+    type(Comparable.class, String.class),
+    type(Comparable.class, Integer.class),
+    mapOf(Number.class, listOf(Integer.class)),
+    mapOf(TypeFactory.wildcardExtends(Number.class), TypeFactory.wildcardExtends(listOf(Integer.class))),
+    mapOf(TypeFactory.wildcardExtends(Number.class), listOf(TypeFactory.wildcardExtends(Number.class))),
+    mapOf(TypeFactory.wildcardExtends(Number.class), TypeFactory.wildcardExtends(
+      type(Collection.class, TypeFactory.wildcardExtends(Number.class)))),
+    type(OneParameter.class, cons(String.class, Integer.class, Serializable.class)),
+    type(OneParameter.class, Types.cons(String.class, Integer.class, Serializable.class)),
+    type(OneParameter.class, cons(String.class, Serializable.class)),
+    type(Supplier.class, String[].class),
+    type(Supplier.class, TypeFactory.wildcardExtends(CharSequence[].class)),
+    type(Supplier.class, TypeFactory.wildcardExtends(Integer[].class)),
+    TypeFactory.arrayOf(listOf(String.class)),
+    TypeFactory.arrayOf(type(Comparable.class, String.class)),
+    TypeFactory.arrayOf(type(Comparable.class, Integer.class)),
+    TypeFactory.arrayOf(TypeFactory.arrayOf(listOf(String.class))),
+    new TypeToken<List<? extends CharSequence>>() { /**/ }.getType(),
+    new TypeToken<Map<Number, List<Integer>>>() { /**/ }.getType(),
+    new TypeToken<Comparable<String>[]>() { /**/ }.getType(),
+    new TypeToken<Collection<String>[]>() { /**/ }.getType(),
+    Types.canonicalize(mapOf(Number.class, listOf(Integer.class))),
+  };
+
+  @Test
+  public void answersLikeGentyref() {
+    for (Type type : TYPES) {
+      for (Class<?> runtimeClass : CLASSES) {
+        assertEquals(type + " <- " + runtimeClass.getTypeName(),
+          GenericTypeReflector.isSuperType(type, runtimeClass), Assignability.isSuperType(type, runtimeClass));
+      }
+    }
+  }
+
+  @Test
+  public void typeVariablesAndWildcardsAreLeftToGentyref() throws Exception {
+    Type unbounded = List.class.getTypeParameters()[0];
+    Type bounded = AssignabilityTest.class.getDeclaredMethod("bounded", Number.class).getGenericParameterTypes()[0];
+
+    for (Type type : Arrays.asList(unbounded, bounded, TypeFactory.wildcardExtends(Number.class),
+      TypeFactory.wildcardSuper(Integer.class), TypeFactory.unboundWildcard())) {
+      try {
+        Assignability.isSuperType(type, Integer.class);
+        fail("isSuperType(" + type + ", Integer.class) should've thrown RuntimeException");
+      } catch (RuntimeException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        Types.check(Collections.singletonList(type), Collections.singletonList(1));
+        fail("check(" + type + ", 1) should've thrown RuntimeException");
+      } catch (RuntimeException e) {
+        /* if we're here, we're good */
+      }
+    }
+  }
+
+  @Test
+  public void typesAreComparedLikeGentyrefDoes() throws Exception {
+    Type variable = List.class.getTypeParameters()[0];
+    Type[] types = { Object.class, Number.class, Integer.class, listOf(String.class),
+      listOf(TypeFactory.wildcardExtends(CharSequence.class)), TypeFactory.arrayOf(listOf(String.class)), variable };
+
+    for (Type type : types) {
+      for (Type subType : types) {
+        String message = subType + " -> " + type;
+        Object expected;
+        try {
+          expected = GenericTypeReflector.isSuperType(type, subType);
+        } catch (RuntimeException e) {
+          expected = e.getClass();
+        }
+
+        try {
+          assertEquals(message, expected, Assignability.isSuperType(type, subType));
+        } catch (RuntimeException e) {
+          assertEquals(message, expected, e.getClass());
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static <T extends Number & Comparable<T>> void bounded(T t) { /**/ }
+}
@@ -0,0 +1,218 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeToken;
+import org.junit.Test;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ConsViewTest {
+  private static final Type CONS_4_TYPES = new TypeToken<C<String, C<Number, C<Object, List<Double>>>>>() { /**/ }.getType();
+  private static final Type LIST_OF_DOUBLE = new TypeToken<List<Double>>() { /**/ }.getType();
+
+  @Test
+  public void sameContentsAsFromCons() {
+    for (Type type : Arrays.asList(null, String.class, LIST_OF_DOUBLE, CONS_4_TYPES,
+      Types.cons(String.class, Integer.class, Double.class))) {
+      ConsView view = Types.consView(type);
+
+      assertEquals(Types.fromCons(type), view);
+      assertEquals(view, Types.fromCons(type));
+      assertEquals(Types.fromCons(type).hashCode(), view.hashCode());
+      assertEquals(Types.fromCons(type).size(), view.size());
+      assertEquals(type == null, view.isEmpty());
+      assertSame(type, view.type());
+    }
+  }
+
+  @Test
+  public void indexedAccess() {
+    ConsView view = Types.consView(CONS_4_TYPES);
+
+    assertEquals(LIST_OF_DOUBLE, view.get(3));
+    assertEquals(String.class, view.get(0));
+    assertEquals(Number.class, view.get(1));
+    assertEquals(4, view.size());
+
+    for (int index : new int[] { -1, 4 }) {
+      try {
+        view.get(index);
+        fail("view.get should've thrown IndexOutOfBoundsException");
+      } catch (IndexOutOfBoundsException e) {
+        /* if we're here, we're good */
+      }
+    }
+  }
+
+  @Test
+  public void onlyDecodesWhatsNeeded() {
+    CountingCons cons = new CountingCons(String.class, new CountingCons(Integer.class, Double.class));
+    ConsView view = Types.consView(cons);
+
+    assertEquals(String.class, view.get(0));
+    assertEquals(String.class, view.get(0));
+    assertEquals(1, cons.reads);
+    assertEquals(0, ((CountingCons) cons.rest).reads);
+
+    assertEquals(3, view.size());
+    assertEquals(3, view.size());
+    assertEquals(1, ((CountingCons) cons.rest).reads); // only the spine, and only once
+  }
+
+  @Test
+  public void wideConses() {
+    Type wide = Types.wideCons(Collections.nCopies(10, String.class));
+    ConsView view = Types.consView(wide);
+
+    assertEquals(String.class, view.get(9));
+    assertEquals(10, view.size());
+    assertEquals(Types.fromCons(wide), view);
+    assertTrue(Types.check(view, Collections.nCopies(10, "")));
+    assertFalse(Types.check(view, Collections.nCopies(9, "")));
+
+    List<Type> types = new ArrayList<>();
+    for (Type type : Types.consView(new TypeToken<C3<String, Number, C<Object, List<Double>>>>() { /**/ }.getType())) {
+      types.add(type);
+    }
+
+    assertEquals(Types.fromCons(CONS_4_TYPES), types);
+  }
+
+  @Test
+  public void internedConsesKnowTheirLength() {
+    Type cons = new ConsType(String.class, new ConsType(Integer.class, new ConsType(Long.class, Double.class)));
+
+    assertEquals(4, ((ConsType) cons).length());
+    assertEquals(4, Types.consView(cons).size());
+    assertEquals(0, new ConsType(String.class, new CountingCons(Integer.class, Double.class)).length());
+  }
+
+  @Test
+  public void iteration() {
+    List<Type> types = new ArrayList<>();
+    for (Type type : Types.consView(CONS_4_TYPES)) {
+      types.add(type);
+    }
+
+    assertEquals(Types.fromCons(CONS_4_TYPES), types);
+    assertFalse(Types.consView(null).iterator().hasNext());
+
+    Iterator<Type> single = Types.consView(String.class).iterator();
+    assertSame(String.class, single.next());
+    try {
+      single.next();
+      fail("next should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void viewsAreImmutable() {
+    Types.consView(CONS_4_TYPES).add(String.class);
+  }
+
+  @Test
+  public void pastTheEnd() {
+    Type cons = Types.cons(String.class, Integer.class, Double.class);
+
+    for (int index : new int[] { 3, 1000, Types.getMaxConsLength(), Integer.MAX_VALUE }) {
+      for (ConsView view : Arrays.asList(Types.consView(cons), Types.consView(new CountingCons(String.class,
+        new CountingCons(Integer.class, Double.class))))) {
+        try {
+          view.get(index);
+          fail("view.get should've thrown IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+          /* if we're here, we're good */
+        }
+      }
+    }
+  }
+
+  @Test
+  public void pastTheMaximumLength() {
+    final int MAX = Types.getMaxConsLength();
+    Type cons = Types.cons(String.class, Integer.class, Double.class);
+
+    Types.setMaxConsLength(2);
+    try {
+      ConsView view = Types.consView(new CountingCons(String.class, new CountingCons(Integer.class, Double.class)));
+      assertEquals(String.class, view.get(0)); // fine, as long as it doesn't go too far
+
+      try {
+        view.size();
+        fail("view.size should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        Types.consView(cons).get(2);
+        fail("view.get should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+    } finally {
+      Types.setMaxConsLength(MAX);
+    }
+  }
+
+  @Test
+  public void checks() {
+    ConsView view = Types.consView(Types.cons(String.class, Integer.class, Number.class));
+
+    assertTrue(Types.check(view, Arrays.asList("", 1, 1.0)));
+    assertTrue(Types.check(view, new Object[] { null, "", 1, 1.0 }, 1, 3));
+    assertFalse(Types.check(view, Arrays.asList("", 1)));
+    assertFalse(Types.check(view, Arrays.asList("", 1, 1.0, 2)));
+    assertFalse(Types.check(view, Arrays.asList("", "", 1.0)));
+    assertFalse(Types.check(view, new Object[] { "", 1 }, 0, 2));
+
+    assertTrue(Types.check(Types.consView(null), Collections.emptyList()));
+    assertFalse(Types.check(Types.consView(null), Collections.singletonList("")));
+    assertTrue(Types.check(Types.consView(String.class), Collections.singletonList("")));
+    assertFalse(Types.check(Types.consView(String.class), Collections.emptyList()));
+  }
+
+  @Test
+  public void checksStopAtTheFirstMismatch() {
+    CountingCons cons = new CountingCons(String.class, new CountingCons(Integer.class, Double.class));
+
+    assertFalse(Types.check(Types.consView(cons), Arrays.asList(1, 1, 1.0)));
+    assertEquals(0, ((CountingCons) cons.rest).reads);
+
+    assertTrue(Types.check(Types.consView(cons), Arrays.asList("", 1, 1.0)));
+    assertEquals(1, ((CountingCons) cons.rest).reads);
+  }
+
+  // a cons of another implementation, which counts how many times it's been read
+  private static final class CountingCons implements ParameterizedType {
+    final Type first;
+    final Type rest;
+    int reads;
+
+    CountingCons(Type first, Type rest) {
+      this.first = first;
+      this.rest = rest;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+      reads++;
+      return new Type[] { first, rest };
+    }
+
+    @Override
+    public Type getRawType() {
+      return C.class;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DispatcherTest {
+  private static class Named implements Comparable<String> {
+    @Override
+    public int compareTo(String o) {
+      return 0;
+    }
+  }
+
+  private final OneParameter<C<Object, Object>> objectObject = new OneParameter<C<Object, Object>>() { /**/ };
+  private final OneParameter<C<String, Object>> stringObject = new OneParameter<C<String, Object>>() { /**/ };
+  private final OneParameter<C<Object, String>> objectString = new OneParameter<C<Object, String>>() { /**/ };
+  private final OneParameter<C<String, List<Number>>> stringList = new OneParameter<C<String, List<Number>>>() { /**/ };
+  private final OneParameter<Number> number = new OneParameter<Number>() { /**/ };
+  private final OneParameter<Integer> integer = new OneParameter<Integer>() { /**/ };
+  private final OneParameter<Serializable[]> serializables = new OneParameter<Serializable[]>() { /**/ };
+  private final OneParameter<C<int[], Comparable<String>>> comparable =
+    new OneParameter<C<int[], Comparable<String>>>() { /**/ };
+
+  private final Dispatcher<OneParameter<?>> dispatcher = Types.dispatcher(
+    Arrays.asList(objectObject, stringObject, objectString, stringList, number, integer, serializables, comparable),
+    h -> Types.fromSuperclass(h.getClass(), 0));
+
+  @Test
+  public void handlers() {
+    assertEquals(8, dispatcher.handlers().size());
+    assertSame(objectObject, dispatcher.handlers().get(0));
+  }
+
+  @Test
+  public void mostSpecificWins() {
+    assertSame(stringObject, dispatcher.resolve("", 1).get());
+    assertSame(objectString, dispatcher.resolve(1, "").get());
+    assertSame(objectObject, dispatcher.resolve(1, 1).get());
+    assertSame(stringList, dispatcher.resolve("", new ArrayList<>()).get());
+    assertSame(integer, dispatcher.resolve(1).get());
+    assertSame(number, dispatcher.resolve(1.0).get());
+    assertSame(serializables, dispatcher.resolve((Object) new String[0]).get());
+    assertSame(comparable, dispatcher.resolve(new int[0], new Named()).get());
+  }
+
+  @Test
+  public void genericTypesAreFullyChecked() {
+    // Comparable<String> is Comparable, but Integer isn't a Comparable<String>
+    assertSame(objectObject, dispatcher.resolve(new int[0], 1).get());
+  }
+
+  @Test
+  public void nothingMatches() {
+    assertFalse(dispatcher.resolve(new Object()).isPresent());
+    assertFalse(dispatcher.resolve((Object) new Object[0]).isPresent());
+    assertFalse(dispatcher.resolve(1, 2, 3).isPresent());
+    assertFalse(dispatcher.resolve().isPresent());
+    assertFalse(dispatcher.resolve((Object[]) null).isPresent());
+  }
+
+  @Test
+  public void ambiguities() {
+    assertEquals(Arrays.asList(stringObject, objectString), dispatcher.mostSpecific("", ""));
+
+    try {
+      dispatcher.resolve("", "");
+      fail("dispatcher.resolve should've thrown IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      /* if we're here, we're good */
+    }
+
+    // null is anything, much like Java's overloading
+    assertEquals(Arrays.asList(integer, serializables), dispatcher.mostSpecific((Object) null));
+
+    Dispatcher<OneParameter<?>> twins = Types.dispatcher(
+      Arrays.asList(number, new OneParameter<Number>() { /**/ }),
+      h -> Types.fromSuperclass(h.getClass(), 0));
+    assertEquals(2, twins.mostSpecific(1).size());
+  }
+
+  @Test
+  public void resultsAreCached() {
+    assertSame(dispatcher.mostSpecific("", 1), dispatcher.mostSpecific("a", 2));
+    assertNotSame(dispatcher.mostSpecific("", 1), dispatcher.mostSpecific("", 1.0));
+  }
+
+  @Test
+  public void sameAnswersAsALinearScan() {
+    Object[] samples = { null, "", 1, 1.0, new ArrayList<>(), new Object(), new int[0], new String[0], new Named() };
+
+    for (Object a : samples) {
+      for (Object b : samples) {
+        List<OneParameter<?>> compatible = new ArrayList<>();
+        for (OneParameter<?> h : dispatcher.handlers()) {
+          if (Types.check(Types.fromSuperclass(h.getClass(), 0), Arrays.asList(a, b))) {
+            compatible.add(h);
+          }
+        }
+
+        List<OneParameter<?>> mostSpecific = dispatcher.mostSpecific(a, b);
+        assertTrue(compatible.containsAll(mostSpecific));
+        assertEquals(compatible.isEmpty(), mostSpecific.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void nullsAreRejected() {
+    try {
+      Types.dispatcher(null, h -> Collections.emptyList());
+      fail("Types.dispatcher should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.dispatcher(Collections.singletonList(number), null);
+      fail("Types.dispatcher should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.dispatcher(Collections.singletonList(null), h -> Collections.emptyList());
+      fail("Types.dispatcher should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+  }
+}
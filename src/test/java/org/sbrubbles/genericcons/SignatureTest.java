@@ -0,0 +1,224 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeToken;
+import org.junit.Test;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SignatureTest {
+  private static final Type CONS_4_TYPES = new TypeToken<C<String, C<Number, C<Object, List<Double>>>>>() { /**/ }.getType();
+  private static final Type LIST_OF_DOUBLE = new TypeToken<List<Double>>() { /**/ }.getType();
+  private static final List<? extends Type> FOUR_TYPES = Arrays.asList(String.class, Number.class, Object.class, LIST_OF_DOUBLE);
+
+  @Test
+  public void convertsToAndFromConses() {
+    for (Type type : Arrays.asList(null, String.class, LIST_OF_DOUBLE, CONS_4_TYPES, Types.wideCons(FOUR_TYPES))) {
+      Signature signature = Types.signature(type);
+
+      assertSame(type, signature.type());
+      assertEquals(Types.fromCons(type), signature);
+      assertEquals(Types.fromCons(type).size(), signature.size());
+    }
+
+    Signature signature = Types.signature(Arrays.asList(null, String.class, Types.cons(Number.class, Object.class),
+      LIST_OF_DOUBLE));
+    assertEquals(FOUR_TYPES, signature);
+    assertEquals(CONS_4_TYPES, signature.type());
+    assertEquals(signature.type(), CONS_4_TYPES);
+    assertEquals(CONS_4_TYPES.hashCode(), signature.type().hashCode());
+
+    assertNull(Types.signature(Collections.emptyList()).type());
+    assertEquals(String.class, Types.signature(Collections.singletonList(String.class)).type());
+  }
+
+  @Test
+  public void prependSharesTheCons() {
+    Signature signature = Types.signature(CONS_4_TYPES);
+    Signature prepended = signature.prepend(Integer.class);
+
+    assertEquals(Arrays.asList(Integer.class, String.class, Number.class, Object.class, LIST_OF_DOUBLE), prepended);
+    assertSame(CONS_4_TYPES, ((ParameterizedType) prepended.type()).getActualTypeArguments()[1]);
+
+    Type expected = Types.cons(Integer.class, String.class, Number.class, Object.class, LIST_OF_DOUBLE);
+    assertEquals(expected, prepended.type());
+    assertEquals(prepended.type(), expected);
+    assertEquals(expected.hashCode(), prepended.prepend(Long.class).subList(1, 6).type().hashCode());
+    assertEquals(FOUR_TYPES, signature); // untouched
+
+    assertSame(signature, signature.prepend(null));
+    assertEquals(String.class, Types.signature((Type) null).prepend(String.class).type());
+    assertEquals(
+      Arrays.asList(Integer.class, Long.class, String.class, Number.class, Object.class, LIST_OF_DOUBLE),
+      signature.prepend(Types.cons(Integer.class, Long.class)));
+  }
+
+  @Test
+  public void concatSharesTheOtherCons() {
+    Signature first = Types.signature(Types.cons(Integer.class, Long.class));
+    Signature second = Types.signature(CONS_4_TYPES);
+    Signature both = first.concat(second);
+
+    assertEquals(Arrays.asList(Integer.class, Long.class, String.class, Number.class, Object.class, LIST_OF_DOUBLE),
+      both);
+    assertEquals(Types.cons(both), both.type());
+    assertSame(CONS_4_TYPES, both.subList(2, 6).type());
+
+    Signature empty = Types.signature((Type) null);
+    assertSame(first, first.concat(empty));
+    assertSame(first, empty.concat(first));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void concatWithNull() {
+    Types.signature(CONS_4_TYPES).concat(null);
+  }
+
+  @Test
+  public void append() {
+    Signature signature = Types.signature(Types.cons(String.class, Number.class));
+
+    assertEquals(Arrays.asList(String.class, Number.class, Object.class), signature.append(Object.class));
+    assertEquals(Arrays.asList(String.class, Number.class, Object.class, LIST_OF_DOUBLE),
+      signature.append(Types.cons(Object.class, LIST_OF_DOUBLE)));
+    assertEquals(Types.cons(String.class, Number.class, Object.class), signature.append(Object.class).type());
+    assertSame(signature, signature.append(null));
+  }
+
+  @Test
+  public void subLists() {
+    Signature signature = Types.signature(CONS_4_TYPES);
+
+    // suffixes are in the cons already
+    assertSame(((ParameterizedType) CONS_4_TYPES).getActualTypeArguments()[1], signature.subList(1, 4).type());
+    assertEquals(LIST_OF_DOUBLE, signature.subList(3, 4).type());
+    assertSame(signature, signature.subList(0, 4));
+    assertNull(signature.subList(2, 2).type());
+
+    assertEquals(FOUR_TYPES.subList(0, 3), signature.subList(0, 3));
+    assertEquals(Types.cons(Number.class, Object.class), signature.subList(1, 3).type());
+    assertEquals(Number.class, signature.subList(1, 2).type());
+
+    // wide conses are rebuilt
+    Signature wide = Types.signature(Types.wideCons(FOUR_TYPES));
+    assertEquals(FOUR_TYPES.subList(1, 4), wide.subList(1, 4));
+    assertEquals(Types.cons(FOUR_TYPES.subList(1, 4)), wide.subList(1, 4).type());
+
+    for (int[] range : new int[][] { { -1, 2 }, { 0, 5 } }) {
+      try {
+        signature.subList(range[0], range[1]);
+        fail("signature.subList should've thrown IndexOutOfBoundsException");
+      } catch (IndexOutOfBoundsException e) {
+        /* if we're here, we're good */
+      }
+    }
+
+    try {
+      signature.subList(3, 2);
+      fail("signature.subList should've thrown IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void worksLikeOtherTypeLists() {
+    Signature signature = Types.signature(String.class).append(Integer.class).prepend(Object.class);
+
+    assertTrue(Types.check(signature, Arrays.asList(new Object(), "", 1)));
+    assertFalse(Types.check(signature, Arrays.asList(new Object(), 1, 1)));
+    assertTrue(Types.check(signature, new Object[] { null, "", 1 }, 0, 3));
+    assertEquals(Types.fingerprint(signature.type()), Types.fingerprint(signature));
+    assertEquals(signature.type(), Types.cons(signature));
+    assertEquals(Integer.class, signature.get(2));
+
+    try {
+      signature.get(3);
+      fail("signature.get should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void signaturesAreImmutable() {
+    Types.signature(CONS_4_TYPES).add(String.class);
+  }
+
+  @Test
+  public void longSignatures() {
+    Signature signature = Types.signature((Type) null);
+    for (int i = 0; i < 10000; i++) {
+      signature = signature.prepend(String.class);
+    }
+
+    assertEquals(10000, signature.size());
+    assertEquals(Collections.nCopies(10000, String.class), Types.fromCons(signature.type()));
+    assertEquals(9999, signature.subList(1, 10000).size());
+  }
+
+  @Test
+  public void equalSignaturesOfTheMaximumLength() {
+    final int LENGTH = Types.DEFAULT_MAX_CONS_LENGTH;
+
+    Signature one = Types.signature((Type) null);
+    Signature other = Types.signature((Type) null);
+    for (int i = 0; i < LENGTH; i++) {
+      Type type = (i % 2 == 0) ? String.class : Integer.class;
+
+      one = one.prepend(type);
+      other = other.prepend(type);
+    }
+
+    assertEquals(LENGTH, one.size());
+    assertEquals(one.type(), other.type());
+    assertEquals(one.type().hashCode(), other.type().hashCode());
+    assertEquals(other.type(), one.subList(1, LENGTH).prepend(Integer.class).type()); // sharing one's tail
+    assertNotEquals(one.type(), other.subList(0, LENGTH - 1).append(Long.class).type());
+  }
+
+  @Test
+  public void pastTheMaximumLength() {
+    final int MAX = Types.getMaxConsLength();
+    Signature two = Types.signature(Types.cons(String.class, Integer.class));
+
+    Types.setMaxConsLength(3);
+    try {
+      Signature three = two.prepend(Long.class);
+      assertEquals(3, three.size());
+
+      try {
+        three.prepend(Long.class);
+        fail("signature.prepend should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        three.append(Long.class);
+        fail("signature.append should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        two.concat(two);
+        fail("signature.concat should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        Types.signature(Arrays.asList(String.class, Integer.class, Long.class, Double.class));
+        fail("Types.signature should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+    } finally {
+      Types.setMaxConsLength(MAX);
+    }
+  }
+}
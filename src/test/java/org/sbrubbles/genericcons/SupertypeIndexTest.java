@@ -0,0 +1,175 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SupertypeIndexTest {
+  private interface Base { /**/ }
+  private interface Left extends Base { /**/ }
+  private interface Right extends Base, Comparable<Object> { /**/ }
+  private interface Both extends Left, Right { /**/ }
+  private static class Parent implements Left { /**/ }
+  private static abstract class Child extends Parent implements Right, Serializable { /**/ }
+  private static abstract class GrandChild extends Child { /**/ }
+  private static abstract class Everything extends GrandChild implements Both, Runnable { /**/ }
+
+  // plenty of interfaces, so their IDs take more than one word
+  private static final Class<?>[] CLASSES = {
+    Object.class, String.class, Integer.class, int.class, long.class, ArrayList.class, LinkedList.class,
+    HashMap.class, TreeMap.class, ConcurrentSkipListMap.class, ConcurrentHashMap.class, CopyOnWriteArrayList.class,
+    ArrayDeque.class, PriorityQueue.class, LinkedBlockingDeque.class, StringBuilder.class, CharBuffer.class,
+    FileChannel.class, SocketChannel.class, DatagramChannel.class, FileInputStream.class, PrintStream.class,
+    PrintWriter.class, RandomAccessFile.class, Thread.class, Base.class, Left.class, Right.class, Both.class,
+    Parent.class, Child.class, GrandChild.class, Everything.class, String[].class, Object[].class, int[].class,
+    Serializable[].class, Comparable.class, Collection.class, Map.class, NavigableMap.class, Deque.class,
+    BlockingDeque.class, CharSequence.class, Appendable.class, Readable.class, Closeable.class, AutoCloseable.class,
+    Flushable.class, ByteChannel.class, GatheringByteChannel.class, ScatteringByteChannel.class,
+    InterruptibleChannel.class, NetworkChannel.class, MulticastChannel.class, SeekableByteChannel.class,
+    Runnable.class, RandomAccess.class, Cloneable.class, Serializable.class, DataInput.class, DataOutput.class,
+    ObjectInput.class, ObjectOutput.class, Externalizable.class, Iterable.class, Queue.class, SortedMap.class,
+    ConcurrentMap.class, ConcurrentNavigableMap.class, BlockingQueue.class, TransferQueue.class, Executor.class,
+    ExecutorService.class, ScheduledExecutorService.class, Future.class, RunnableFuture.class, Delayed.class,
+    ScheduledFuture.class, RunnableScheduledFuture.class, Callable.class, Comparator.class, EventListener.class,
+    Formattable.class, Supplier.class, SortedSet.class, NavigableSet.class, Set.class, List.class, ListIterator.class,
+    Iterator.class, Enumeration.class, Spliterator.class, PrimitiveIterator.class, FilenameFilter.class,
+    FileFilter.class, ObjectInputValidation.class, Thread.UncaughtExceptionHandler.class
+  };
+
+  @Test
+  public void answersLikeIsAssignableFrom() {
+    for (int round = 0; round < 2; round++) { // the second time around comes from the index
+      for (Class<?> type : CLASSES) {
+        for (Class<?> runtimeClass : CLASSES) {
+          assertEquals(type.getSimpleName() + " <- " + runtimeClass.getSimpleName(),
+            type.isAssignableFrom(runtimeClass), SupertypeIndex.isAssignable(type, runtimeClass));
+        }
+      }
+    }
+
+    assertTrue(SupertypeIndex.idBound() > 64);
+  }
+
+  @Test
+  public void idsOfCollectedInterfacesAreReused() throws Exception {
+    final int REDEPLOYS = 50;
+
+    redeploy(); // the library's own interfaces get their IDs here
+    final int BOUND = SupertypeIndex.idBound();
+
+    for (int i = 0; i < REDEPLOYS; i++) { // two new interfaces each time, which would be 100 more IDs
+      redeploy();
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertTrue("grew from " + BOUND + " to " + SupertypeIndex.idBound(),
+      SupertypeIndex.idBound() - BOUND < REDEPLOYS);
+  }
+
+  // checks a fresh copy of Parent against fresh copies of its interfaces, and drops them all
+  private static void redeploy() throws Exception {
+    ClassLoader loader = new RedeployingLoader();
+    Class<?> parent = loader.loadClass(Parent.class.getName());
+    Class<?> left = loader.loadClass(Left.class.getName());
+
+    assertNotSame(Parent.class, parent);
+    assertTrue(SupertypeIndex.isAssignable(left, parent));
+    assertTrue(SupertypeIndex.isAssignable(loader.loadClass(Base.class.getName()), parent));
+    assertFalse(SupertypeIndex.isAssignable(Left.class, parent));
+  }
+
+  @Test
+  public void isInstance() {
+    assertTrue(SupertypeIndex.isInstance(CharSequence.class, ""));
+    assertTrue(SupertypeIndex.isInstance(Object.class, new int[0]));
+    assertFalse(SupertypeIndex.isInstance(Runnable.class, ""));
+    assertFalse(SupertypeIndex.isInstance(CharSequence.class, null));
+  }
+
+  @Test
+  public void growsConcurrently() throws Exception {
+    final int THREADS = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        List<Class<?>> classes = new ArrayList<>(Arrays.asList(CLASSES));
+        Collections.shuffle(classes, new Random(t));
+
+        futures.add(executor.submit(() -> {
+          start.await();
+
+          for (Class<?> type : classes) {
+            for (Class<?> runtimeClass : classes) {
+              assertEquals(type.isAssignableFrom(runtimeClass), SupertypeIndex.isAssignable(type, runtimeClass));
+            }
+          }
+
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // loads its own copies of Base, Left and Parent, and delegates everything else
+  private static final class RedeployingLoader extends ClassLoader {
+    private static final Set<String> NAMES =
+      new HashSet<>(Arrays.asList(Base.class.getName(), Left.class.getName(), Parent.class.getName()));
+
+    RedeployingLoader() {
+      super(SupertypeIndexTest.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!NAMES.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+          byte[] bytes = bytesOf(name);
+          result = defineClass(name, bytes, 0, bytes.length);
+        }
+
+        return result;
+      }
+    }
+
+    private byte[] bytesOf(String name) throws ClassNotFoundException {
+      try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+        if (in == null) {
+          throw new ClassNotFoundException(name);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+          out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+import static org.sbrubbles.genericcons.fixtures.Utils.type;
+
+public class TypeCheckerTest {
+  private final Number[] numberArray = new Number[] { 1 };
+  private final Integer[] integerArray = new Integer[] { 1 };
+
+  @Test(expected = NullPointerException.class)
+  public void nullTypesDontCompile() {
+    Types.compile(null);
+  }
+
+  @Test
+  public void typesAndSize() {
+    List<Type> types = Arrays.asList(String.class, listOf(Number.class));
+    TypeChecker checker = Types.compile(types);
+
+    assertEquals(types, checker.types());
+    assertEquals(2, checker.size());
+  }
+
+  @Test
+  public void checkerIsUnaffectedByChangesToTheSource() {
+    List<Type> types = new ArrayList<>(Arrays.asList(String.class, Number.class));
+    TypeChecker checker = Types.compile(types);
+
+    types.set(0, Number.class);
+
+    assertEquals(Arrays.asList(String.class, Number.class), checker.types());
+    assertTrue(checker.check(Arrays.asList("", 1)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void typesAreImmutable() {
+    Types.compile(Arrays.asList(String.class, Number.class)).types().clear();
+  }
+
+  @Test
+  public void nullAndSizeMismatch() {
+    TypeChecker checker = Types.compile(Collections.singletonList(String.class));
+
+    assertFalse(checker.check((List<?>) null));
+    assertFalse(checker.check((Object[]) null));
+    assertFalse(checker.check(Collections.emptyList()));
+    assertFalse(checker.check(Arrays.asList("", "")));
+  }
+
+  @Test
+  public void emptyMatchesEmpty() {
+    assertTrue(Types.compile(Collections.emptyList()).check(Collections.emptyList()));
+  }
+
+  @Test
+  public void classesMatch() {
+    TypeChecker checker = Types.compile(
+      Arrays.asList(Serializable.class, Object.class, Number.class, Number[].class));
+
+    assertTrue(checker.check(Arrays.asList(new ArrayList<>(), "", 1.0, numberArray)));
+    assertTrue(checker.check(Arrays.asList(new ArrayList<>(), "", 1.0, integerArray)));
+    assertTrue(checker.check(Arrays.asList(null, null, null, null)));
+    assertFalse(checker.check(Arrays.asList(new Object(), "", 1.0, numberArray)));
+    assertFalse(checker.check(Arrays.asList(new ArrayList<>(), "", false, numberArray)));
+  }
+
+  @Test
+  public void nullAndPrimitiveTypesMatchNothing() {
+    assertFalse(Types.compile(Collections.singletonList(null)).check(Collections.singletonList("")));
+    assertFalse(Types.compile(Collections.singletonList(null)).check(Collections.singletonList(null)));
+    assertFalse(Types.compile(Collections.singletonList(int.class)).check(Collections.singletonList(1)));
+    assertFalse(Types.compile(Collections.singletonList(int.class)).check(Collections.singletonList(null)));
+  }
+
+  @Test
+  public void genericTypes() {
+    TypeChecker checker = Types.compile(Arrays.asList(
+      listOf(String.class),
+      type(Comparable.class, String.class)));
+
+    assertTrue(checker.check(Arrays.asList(new ArrayList<>(), "")));
+    assertTrue(checker.check(Arrays.asList(null, null)));
+    assertFalse(checker.check(Arrays.asList("", "")));
+    assertFalse(checker.check(Arrays.asList(new ArrayList<>(), 1)));
+  }
+
+  @Test
+  public void sameResultsAsTypesCheck() {
+    List<List<? extends Type>> typeLists = Arrays.asList(
+      Arrays.asList(String.class, Double.class),
+      Arrays.asList(Serializable.class, listOf(Number.class)),
+      Arrays.asList(type(Comparable.class, Integer.class), Number[].class),
+      Arrays.asList(int.class, null));
+
+    List<List<?>> objectLists = Arrays.asList(
+      Arrays.asList("", 1.0),
+      Arrays.asList(null, null),
+      Arrays.asList(1, integerArray),
+      Arrays.asList(new ArrayList<>(), Collections.emptyList()),
+      Arrays.asList("", "", ""));
+
+    for (List<? extends Type> types : typeLists) {
+      TypeChecker checker = Types.compile(types);
+
+      for (List<?> objects : objectLists) {
+        assertEquals(
+          types + " x " + objects,
+          Types.check(types, objects),
+          checker.check(objects));
+      }
+    }
+  }
+
+  @Test
+  public void checkingArrays() {
+    TypeChecker checker = Types.compile(Arrays.asList(String.class, listOf(Number.class)));
+
+    assertTrue(checker.check("", new ArrayList<>()));
+    assertTrue(checker.check(new Object[] { 1, "", null, 2 }, 1, 2));
+    assertFalse(checker.check(new Object[] { 1, "", null, 2 }, 0, 2));
+    assertFalse(checker.check(new Object[] { 1, "", null, 2 }, 1, 3));
+    assertFalse(checker.check(""));
+    assertFalse(checker.check());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void checkingArraysOutOfBounds() {
+    Types.compile(Arrays.asList(String.class, Number.class)).check(new Object[] { "", 1 }, 1, 2);
+  }
+
+  @Test
+  public void checkingRowsInBulk() {
+    TypeChecker checker = Types.compile(Arrays.asList(String.class, listOf(Number.class), Number.class));
+
+    BatchResult result = checker.checkAll(Arrays.asList(
+      Arrays.asList("", new ArrayList<>(), 1),
+      Arrays.asList("", "", 1),
+      null,
+      Arrays.asList("", null),
+      Arrays.asList("", null, 1.0, ""),
+      Arrays.asList(null, null, null),
+      Arrays.asList(1, "", 1)));
+
+    assertEquals(7, result.size());
+    assertEquals(2, result.passCount());
+    assertFalse(result.allPassed());
+
+    BitSet expected = new BitSet();
+    expected.set(0);
+    expected.set(5);
+    assertEquals(expected, result.passes());
+
+    int[] firstFailures = { BatchResult.PASSED, 1, 0, 2, 3, BatchResult.PASSED, 0 };
+    for (int r = 0; r < firstFailures.length; r++) {
+      assertEquals("row " + r, firstFailures[r], result.firstFailure(r));
+      assertEquals("row " + r, firstFailures[r] == BatchResult.PASSED, result.passed(r));
+    }
+  }
+
+  @Test
+  public void checkingColumnsInBulk() {
+    TypeChecker checker = Types.compile(Arrays.asList(String.class, listOf(Number.class), int.class));
+
+    BatchResult result = checker.checkColumns(new Object[][] {
+      { 0, "", "", 1, "" },
+      { 0, new ArrayList<>(), "", null, null },
+      { 0, 1, 1, 1, 1 }
+    }, 1, 4);
+
+    assertEquals(4, result.size());
+    assertEquals(0, result.passCount());
+    assertEquals(2, result.firstFailure(0));
+    assertEquals(1, result.firstFailure(1));
+    assertEquals(0, result.firstFailure(2));
+    assertEquals(2, result.firstFailure(3));
+
+    assertTrue(Types.compile(Collections.emptyList()).checkColumns(new Object[0][], 0, 3).allPassed());
+  }
+
+  @Test
+  public void batchesMatchSingleChecks() {
+    TypeChecker checker = Types.compile(Arrays.asList(
+      Serializable.class, listOf(Number.class), type(Comparable.class, String.class)));
+    Object[] samples = { "", 1, null, new ArrayList<>(), Collections.emptyList(), new Object() };
+
+    final int ROWS = 10_000;
+    List<List<?>> rows = new ArrayList<>();
+    Object[][] columns = new Object[3][ROWS];
+    for (int r = 0; r < ROWS; r++) {
+      Object[] row = { samples[r % 6], samples[(r / 6) % 6], samples[(r / 36) % 6] };
+
+      rows.add(Arrays.asList(row));
+      for (int i = 0; i < 3; i++) {
+        columns[i][r] = row[i];
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      BatchResult[] results = {
+        checker.checkAll(rows),
+        checker.checkAll(rows, pool),
+        checker.checkColumns(columns, 0, ROWS),
+        checker.checkColumns(columns, 0, ROWS, pool)
+      };
+
+      for (BatchResult result : results) {
+        assertEquals(ROWS, result.size());
+
+        for (int r = 0; r < ROWS; r++) {
+          assertEquals(checker.check(rows.get(r)), result.passed(r));
+        }
+      }
+
+      for (int r = 0; r < ROWS; r++) {
+        assertEquals(results[0].firstFailure(r), results[3].firstFailure(r));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void badBatches() {
+    TypeChecker checker = Types.compile(Arrays.asList(String.class, Number.class));
+
+    try {
+      checker.checkAll(null);
+      fail("checker.checkAll should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      checker.checkColumns(new Object[][] { { "" } }, 0, 1);
+      fail("checker.checkColumns should've thrown IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      checker.checkColumns(new Object[][] { { "" }, null }, 0, 1);
+      fail("checker.checkColumns should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      checker.checkColumns(new Object[][] { { "", "" }, { 1 } }, 0, 2);
+      fail("checker.checkColumns should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      checker.checkAll(Collections.emptyList()).firstFailure(0);
+      fail("BatchResult.firstFailure should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+  }
+}
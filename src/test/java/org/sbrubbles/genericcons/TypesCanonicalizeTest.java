@@ -0,0 +1,151 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeFactory;
+import com.coekie.gentyref.TypeToken;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.*;
+
+public class TypesCanonicalizeTest {
+  private static final Type MAP_OF_WILDCARDS =
+    new TypeToken<Map<? extends Number, ? super List<String>[]>>() { /**/ }.getType();
+
+  @Test
+  public void sameInstanceForAllImplementations() {
+    Type fromJdk = new TypeToken<List<Map<String, Integer>>>() { /**/ }.getType();
+    Type fromGentyref = listOf(mapOf(String.class, Integer.class));
+    Type canonical = Types.canonicalize(fromJdk);
+
+    assertSame(canonical, Types.canonicalize(fromGentyref));
+    assertSame(canonical, Types.canonicalize(canonical));
+    assertNotSame(fromJdk, canonical);
+
+    for (Type type : Arrays.asList(fromJdk, fromGentyref)) {
+      assertEquals(type, canonical);
+      assertEquals(canonical, type);
+      assertEquals(type.hashCode(), canonical.hashCode());
+      assertEquals(type.getTypeName(), canonical.getTypeName());
+    }
+  }
+
+  @Test
+  public void wildcardsAndGenericArrays() {
+    Type canonical = Types.canonicalize(MAP_OF_WILDCARDS);
+    Type[] arguments = ((ParameterizedType) canonical).getActualTypeArguments();
+
+    assertEquals(MAP_OF_WILDCARDS, canonical);
+    assertEquals(canonical, MAP_OF_WILDCARDS);
+    assertEquals(MAP_OF_WILDCARDS.hashCode(), canonical.hashCode());
+    assertEquals(MAP_OF_WILDCARDS.toString(), canonical.toString());
+
+    assertTrue(arguments[0] instanceof WildcardType);
+    assertTrue(arguments[1] instanceof WildcardType);
+    assertTrue(((WildcardType) arguments[1]).getLowerBounds()[0] instanceof GenericArrayType);
+    assertSame(arguments[1], Types.canonicalize(TypeFactory.wildcardSuper(
+      TypeFactory.arrayOf(listOf(String.class)))));
+
+    // generic arrays of classes stay generic arrays, equal to what they came from
+    Type arrayOfString = Types.canonicalize(new ArrayOf(String.class));
+    assertTrue(arrayOfString instanceof GenericArrayType);
+    assertEquals(new ArrayOf(String.class), arrayOfString);
+    assertEquals(arrayOfString, new ArrayOf(String.class));
+    assertEquals(new ArrayOf(String.class).hashCode(), arrayOfString.hashCode());
+    assertSame(arrayOfString, Types.canonicalize(new ArrayOf(String.class)));
+    assertSame(String[].class, Types.canonicalize(TypeFactory.arrayOf(String.class)));
+  }
+
+  @Test
+  public void consesBecomeInterned() {
+    Type fromJdk = new TypeToken<C<String, C<Number, List<Double>>>>() { /**/ }.getType();
+    Type canonical = Types.canonicalize(fromJdk);
+
+    assertTrue(canonical instanceof ConsType);
+    assertSame(canonical, Types.canonicalize(cons(String.class, Number.class, listOf(Double.class))));
+    assertSame(canonical, Types.canonicalize(Types.cons(String.class, Number.class, listOf(Double.class))));
+    assertSame(((ConsType) canonical).rest(), Types.canonicalize(cons(Number.class, listOf(Double.class))));
+    assertSame(Types.canonicalize(listOf(Double.class)), ((ConsType) ((ConsType) canonical).rest()).rest());
+
+    assertEquals(fromJdk, canonical);
+    assertEquals(fromJdk.hashCode(), canonical.hashCode());
+    assertEquals(Types.fromCons(fromJdk), Types.fromCons(canonical));
+
+  }
+
+  @Test
+  public void wideConsesBecomeTheEquivalentCons() {
+    Type nested = new TypeToken<C<String, C<Number, C<Object, C<Long, Serializable>>>>>() { /**/ }.getType();
+    Type wide = new TypeToken<C3<String, Number, C<Object, C<Long, Serializable>>>>() { /**/ }.getType();
+    Type canonical = Types.canonicalize(nested);
+
+    assertSame(canonical, Types.canonicalize(wide));
+    assertSame(canonical, Types.canonicalize(Types.wideCons(String.class, Number.class, Object.class, Long.class,
+      Serializable.class)));
+    assertSame(Types.canonicalize(cons(String.class, Number.class, Object.class)),
+      Types.canonicalize(Types.wideCons(String.class, Number.class, Object.class)));
+
+    assertEquals(nested, Types.canonicalize(wide));
+    assertEquals(Types.fromCons(wide), Types.fromCons(Types.canonicalize(wide)));
+  }
+
+  @Test
+  public void longConses() {
+    Type[] types = new Type[10000];
+    Arrays.fill(types, String.class);
+
+    Type canonical = Types.canonicalize(Types.cons(types));
+    assertEquals(10000, Types.fromCons(canonical).size());
+    assertSame(canonical, Types.canonicalize(Types.cons(types)));
+  }
+
+  @Test
+  public void someTypesAreLeftAsTheyAre() throws Exception {
+    TypeVariable<?> variable = List.class.getTypeParameters()[0];
+
+    assertNull(Types.canonicalize(null));
+    assertSame(String.class, Types.canonicalize(String.class));
+    assertSame(variable, Types.canonicalize(variable));
+
+    Type listOfVariable = Types.canonicalize(List.class.getMethod("iterator").getGenericReturnType());
+    assertSame(variable, ((ParameterizedType) listOfVariable).getActualTypeArguments()[0]);
+  }
+
+  @Test
+  public void canonicalTypesWorkLikeAnyOther() {
+    Type type = Types.canonicalize(new TypeToken<List<? extends CharSequence>>() { /**/ }.getType());
+
+    assertTrue(Types.check(Arrays.asList(type, Object.class), Arrays.asList(Arrays.asList("", ""), 1)));
+    assertFalse(Types.check(Arrays.asList(type, Object.class), Arrays.asList("", 1)));
+    assertEquals(Types.fingerprint(listOf(TypeFactory.wildcardExtends(CharSequence.class))), Types.fingerprint(type));
+  }
+
+  // a generic array of a class, which neither the JDK nor gentyref build
+  private static final class ArrayOf implements GenericArrayType {
+    private final Type component;
+
+    ArrayOf(Type component) {
+      this.component = component;
+    }
+
+    @Override
+    public Type getGenericComponentType() {
+      return component;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof GenericArrayType && component.equals(((GenericArrayType) o).getGenericComponentType());
+    }
+
+    @Override
+    public int hashCode() {
+      return component.hashCode();
+    }
+  }
+}
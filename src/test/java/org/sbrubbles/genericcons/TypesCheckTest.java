@@ -11,6 +11,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TypesCheckTest {
   private final List<Type> emptyTypeList = new ArrayList<>();
@@ -166,4 +167,32 @@ public class TypesCheckTest {
     assertTrue(Types.check(Boolean.class, false));
     assertTrue(Types.check(Float.class, 1f));
   }
+
+  @Test
+  public void checkingArrays() {
+    Object[] objects = { 1, "", 1.0, numberArray, false };
+
+    assertTrue(Types.check(Arrays.asList(String.class, Double.class, Number[].class), objects, 1, 3));
+    assertTrue(Types.check(Arrays.asList(Object.class, Object.class), objects, 0, 2));
+    assertTrue(Types.check(emptyTypeList, objects, 5, 0));
+    assertFalse(Types.check(Arrays.asList(String.class, Double.class), objects, 0, 2));
+    assertFalse(Types.check(Arrays.asList(String.class, Double.class), objects, 1, 3));
+    assertFalse(Types.check(singleTypeList, (Object[]) null, 0, 1));
+    assertFalse(Types.check(null, objects, 0, 1));
+  }
+
+  @Test
+  public void checkingArraysOutOfBounds() {
+    Object[] objects = { 1, "" };
+    int[][] ranges = { { -1, 1 }, { 0, -1 }, { 0, 3 }, { 2, 1 }, { 3, 0 } };
+
+    for (int[] range : ranges) {
+      try {
+        Types.check(singleTypeList, objects, range[0], range[1]);
+        fail("Types.check should've thrown IndexOutOfBoundsException for " + Arrays.toString(range));
+      } catch (IndexOutOfBoundsException e) {
+        /* if we're here, we're good */
+      }
+    }
+  }
 }
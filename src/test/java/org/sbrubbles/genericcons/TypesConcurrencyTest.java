@@ -0,0 +1,121 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+import org.junit.Test;
+import org.sbrubbles.genericcons.TypesMetrics.Operation;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+
+public class TypesConcurrencyTest {
+  private static class Shared extends OneParameter<C<String, C<Integer, Serializable>>> { /**/ }
+
+  private static final int THREADS = 16;
+  private static final int ITERATIONS = 2_000;
+
+  @Test
+  public void assignabilityCacheUnderEviction() throws Exception {
+    // far more pairs than room, so every thread keeps missing and evicting while the others read
+    AssignabilityCache cache = new AssignabilityCache(4);
+    Type[] types = { Object.class, Number.class, CharSequence.class, listOf(String.class), Comparable.class };
+    Class<?>[] classes = { String.class, Integer.class, ArrayList.class, Double.class, StringBuilder.class };
+
+    runConcurrently(thread -> {
+      for (int i = 0; i < ITERATIONS; i++) {
+        Type type = types[(i + thread) % types.length];
+        Class<?> runtimeClass = classes[(i / types.length) % classes.length];
+
+        assertEquals(type + " <- " + runtimeClass,
+          GenericTypeReflector.isSuperType(type, runtimeClass), cache.isSuperType(type, runtimeClass));
+      }
+    });
+
+    assertTrue(cache.size() <= types.length * classes.length);
+  }
+
+  @Test
+  public void interningAgreesOnOneInstance() throws Exception {
+    final boolean INTERNING = Types.isConsInterning();
+    Types.setConsInterning(true);
+    try {
+      Set<Type> conses = ConcurrentHashMap.newKeySet();
+
+      runConcurrently(thread -> {
+        for (int i = 0; i < ITERATIONS; i++) {
+          conses.add(Types.cons(String.class, Integer.class, listOf(Double.class)));
+        }
+      });
+
+      assertEquals(1, conses.size());
+      assertSame(conses.iterator().next(), Types.cons(String.class, Integer.class, listOf(Double.class)));
+    } finally {
+      Types.setConsInterning(INTERNING);
+    }
+  }
+
+  @Test
+  public void metricsLoseNothing() throws Exception {
+    InMemoryMetrics metrics = new InMemoryMetrics();
+    List<Type> expected = Arrays.asList(String.class, Integer.class, Serializable.class);
+
+    Types.setMetrics(metrics);
+    try {
+      runConcurrently(thread -> {
+        for (int i = 0; i < ITERATIONS; i++) {
+          assertEquals(expected, Types.fromSuperclass(Shared.class, 0));
+          assertTrue(Types.check(expected, Arrays.asList("", 1, 1.0)));
+        }
+      });
+    } finally {
+      Types.setMetrics(TypesMetrics.NONE);
+    }
+
+    assertEquals(THREADS * ITERATIONS, metrics.calls(Operation.FROM));
+    assertEquals(THREADS * ITERATIONS, metrics.calls(Operation.CHECK));
+    assertEquals(0, metrics.mismatches(Operation.CHECK));
+  }
+
+  // runs body on THREADS threads, all starting at once, and rethrows the first failure
+  private static void runConcurrently(Body body) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        final int THREAD = i;
+
+        futures.add(executor.submit(() -> {
+          start.await();
+          body.run(THREAD);
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        try {
+          future.get(1, TimeUnit.MINUTES);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+
+          throw e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private interface Body {
+    void run(int thread);
+  }
+}
@@ -3,10 +3,12 @@ package org.sbrubbles.genericcons;
 import com.coekie.gentyref.TypeToken;
 import org.junit.Test;
 
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 import static org.junit.Assert.*;
 
@@ -16,6 +18,8 @@ public class TypesConsTest {
   private static final Type CONS_STRING_OBJECT = new TypeToken<C<String, Object>>() { /**/ }.getType();
   private static final Type CONS_NUMBER_OBJECT = new TypeToken<C<Number, Object>>() { /**/ }.getType();
   private static final Type LIST_OF_DOUBLE = new TypeToken<List<Double>>() { /**/ }.getType();
+  private static final Type WIDE_4_TYPES = new TypeToken<C4<String, Number, Object, List<Double>>>() { /**/ }.getType();
+  private static final Type MIXED_4_TYPES = new TypeToken<C3<String, Number, C<Object, List<Double>>>>() { /**/ }.getType();
 
   private static final List<? extends Type> FOUR_TYPES = Arrays.asList(String.class, Number.class, Object.class, LIST_OF_DOUBLE);
 
@@ -112,4 +116,218 @@ public class TypesConsTest {
     assertEquals(Collections.singletonList(String.class), Types.fromCons(Types.cons(Collections.singletonList(String.class))));
     assertEquals(FOUR_TYPES, Types.fromCons(Types.cons(FOUR_TYPES)));
   }
+
+  @Test
+  public void extractedListsAreImmutableAndRandomAccess() {
+    for (Type type : Arrays.asList(null, String.class, CONS_STRING_OBJECT, CONS_4_TYPES)) {
+      List<? extends Type> types = Types.fromCons(type);
+
+      assertTrue(types instanceof RandomAccess);
+
+      try {
+        types.clear();
+        if (!types.isEmpty()) {
+          fail("Types.fromCons should've returned an immutable list");
+        }
+      } catch (UnsupportedOperationException e) {
+        /* if we're here, we're good */
+      }
+    }
+  }
+
+  @Test
+  public void extractedListsBehaveLikeLists() {
+    List<? extends Type> types = Types.fromCons(CONS_4_TYPES);
+
+    assertEquals(FOUR_TYPES, types);
+    assertEquals(types, FOUR_TYPES);
+    assertEquals(FOUR_TYPES.hashCode(), types.hashCode());
+    assertEquals(FOUR_TYPES.toString(), types.toString());
+    assertEquals(2, types.indexOf(Object.class));
+  }
+
+  @Test
+  public void extractFromLongConsType() {
+    List<Type> expected = Collections.nCopies(10000, String.class);
+
+    assertEquals(expected, Types.fromCons(Types.cons(expected)));
+  }
+
+  @Test
+  public void extractPastTheMaximumLength() {
+    try {
+      Types.setMaxConsLength(4);
+
+      assertEquals(FOUR_TYPES, Types.fromCons(CONS_4_TYPES));
+      assertEquals(Collections.nCopies(4, String.class), Types.fromCons(Types.cons(Collections.nCopies(4, String.class))));
+
+      for (int length : new int[] { 5, 16, 100 }) {
+        try {
+          Types.fromCons(Types.cons(Collections.nCopies(length, String.class)));
+          fail("Types.fromCons should've thrown IllegalArgumentException for length " + length);
+        } catch (IllegalArgumentException e) {
+          /* if we're here, we're good */
+        }
+      }
+    } finally {
+      Types.setMaxConsLength(Types.DEFAULT_MAX_CONS_LENGTH);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMaximumLength() {
+    Types.setMaxConsLength(0);
+  }
+
+  @Test
+  public void internedConsesAreCanonical() {
+    try {
+      Types.setConsInterning(true);
+
+      Type a = Types.cons(String.class, Number.class, Object.class, LIST_OF_DOUBLE);
+      Type b = Types.cons(Arrays.asList(String.class, CONS_NUMBER_OBJECT, Types.fromCons(LIST_OF_DOUBLE).get(0)));
+
+      assertSame(a, Types.cons(String.class, Number.class, Object.class, new TypeToken<List<Double>>() { /**/ }.getType()));
+      assertSame(a, b);
+      assertNotSame(a, Types.cons(Number.class, Number.class, Object.class, LIST_OF_DOUBLE));
+      assertSame(
+        ((ParameterizedType) ((ParameterizedType) a).getActualTypeArguments()[1]).getActualTypeArguments()[1],
+        Types.cons(Object.class, LIST_OF_DOUBLE)); // shared suffix
+    } finally {
+      Types.setConsInterning(false);
+    }
+  }
+
+  @Test
+  public void internedConsesEqualOtherConses() {
+    Type expected = Types.cons(FOUR_TYPES);
+
+    try {
+      Types.setConsInterning(true);
+      Type actual = Types.cons(FOUR_TYPES);
+
+      assertEquals(CONS_4_TYPES, actual);
+      assertEquals(actual, CONS_4_TYPES);
+      assertEquals(expected, actual);
+      assertEquals(actual, expected);
+      assertEquals(CONS_4_TYPES.hashCode(), actual.hashCode());
+      assertEquals(expected.hashCode(), actual.hashCode());
+      assertEquals(FOUR_TYPES, Types.fromCons(actual));
+      assertEquals(CONS_4_TYPES.getTypeName(), actual.getTypeName());
+    } finally {
+      Types.setConsInterning(false);
+    }
+  }
+
+  @Test
+  public void extractIntoBuffer() {
+    Type[] buffer = new Type[4];
+
+    assertEquals(0, Types.fromCons(null, buffer));
+
+    assertEquals(1, Types.fromCons(LIST_OF_DOUBLE, buffer));
+    assertEquals(LIST_OF_DOUBLE, buffer[0]);
+
+    assertEquals(4, Types.fromCons(CONS_4_TYPES, buffer));
+    assertEquals(FOUR_TYPES, Arrays.asList(buffer));
+  }
+
+  @Test
+  public void extractIntoSmallBuffer() {
+    Type[] buffer = new Type[2];
+
+    assertEquals(4, Types.fromCons(CONS_4_TYPES, buffer));
+    assertArrayEquals(new Type[] { String.class, Number.class }, buffer);
+
+    assertEquals(4, Types.fromCons(CONS_4_TYPES, new Type[0]));
+  }
+
+  @Test
+  public void extractIntoBufferPastTheMaximumLength() {
+    try {
+      Types.setMaxConsLength(4);
+
+      assertEquals(4, Types.fromCons(CONS_4_TYPES, new Type[4]));
+
+      try {
+        Types.fromCons(Types.cons(Collections.nCopies(5, String.class)), new Type[8]);
+        fail("Types.fromCons should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+    } finally {
+      Types.setMaxConsLength(Types.DEFAULT_MAX_CONS_LENGTH);
+    }
+  }
+
+  @Test
+  public void extractFromWideConses() {
+    assertEquals(FOUR_TYPES, Types.fromCons(WIDE_4_TYPES));
+    assertEquals(FOUR_TYPES, Types.fromCons(MIXED_4_TYPES));
+    assertEquals(CONS_4_TYPES, Types.cons(WIDE_4_TYPES)); // cons always builds narrow ones
+    assertEquals(CONS_4_TYPES, Types.cons(MIXED_4_TYPES));
+
+    Type[] buffer = new Type[4];
+    assertEquals(4, Types.fromCons(WIDE_4_TYPES, buffer));
+    assertEquals(FOUR_TYPES, Arrays.asList(buffer));
+
+    buffer = new Type[2];
+    assertEquals(4, Types.fromCons(MIXED_4_TYPES, buffer));
+    assertArrayEquals(new Type[] { String.class, Number.class }, buffer);
+  }
+
+  @Test
+  public void buildWideConses() {
+    assertNull(Types.wideCons());
+    assertNull(Types.wideCons((List<? extends Type>) null));
+    assertEquals(String.class, Types.wideCons(String.class));
+    assertEquals(CONS_STRING_OBJECT, Types.wideCons(String.class, Object.class));
+    assertEquals(WIDE_4_TYPES, Types.wideCons(FOUR_TYPES));
+    assertEquals(WIDE_4_TYPES, Types.wideCons(Arrays.asList(null, CONS_4_TYPES, null)));
+
+    for (int length : new int[] { 7, 8, 9, 10, 15, 16, 100 }) {
+      List<Type> expected = Collections.nCopies(length, String.class);
+      Type cons = Types.wideCons(expected);
+
+      assertEquals(expected, Types.fromCons(cons));
+      assertEquals(expected, Types.consView(cons));
+      assertEquals(Types.fingerprint(expected), Types.fingerprint(cons));
+    }
+
+    // the widest first, and the leftovers in the last one
+    ParameterizedType ten = (ParameterizedType) Types.wideCons(Collections.nCopies(10, String.class));
+    assertEquals(C8.class, ten.getRawType());
+    assertEquals(C3.class, ((ParameterizedType) ten.getActualTypeArguments()[7]).getRawType());
+  }
+
+  @Test
+  public void extractWideConsesPastTheMaximumLength() {
+    try {
+      Types.setMaxConsLength(9);
+
+      assertEquals(9, Types.fromCons(Types.wideCons(Collections.nCopies(9, String.class))).size());
+
+      Type tooLong = Types.wideCons(Collections.nCopies(10, String.class));
+      try {
+        Types.fromCons(tooLong);
+        fail("Types.fromCons should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        Types.fromCons(tooLong, new Type[16]);
+        fail("Types.fromCons should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+    } finally {
+      Types.setMaxConsLength(Types.DEFAULT_MAX_CONS_LENGTH);
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void extractIntoNullBuffer() {
+    Types.fromCons(CONS_4_TYPES, null);
+  }
 }
@@ -0,0 +1,273 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.GenericTypeReflector;
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.ClassWithMultipleInterfaces;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+import org.sbrubbles.genericcons.fixtures.SonOfOneParameter;
+import org.sbrubbles.genericcons.fixtures.ThreeParameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+
+public class TypesEvictTest {
+  // outlives the class loaders in the tests, like a dispatcher in a container's shared library would
+  private static final Dispatcher<Object> DISPATCHER =
+    Types.dispatcher(Arrays.asList("objects", "strings"), h -> Collections.singletonList(
+      h.equals("objects") ? Object.class : String.class));
+
+  @Test
+  public void assignabilityCache() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    Class<?> isolated = loader.isolated();
+    AssignabilityCache cache = new AssignabilityCache(16);
+
+    assertTrue(cache.isSuperType(OneParameter.class, isolated));
+    assertFalse(cache.isSuperType(listOf(isolated), HashMap.class));
+    assertTrue(cache.isSuperType(Object.class, String.class));
+    assertEquals(3, cache.size());
+
+    cache.evict(loader);
+    assertEquals(1, cache.size());
+    assertTrue(cache.isSuperType(OneParameter.class, isolated)); // still right, just not cached
+  }
+
+  @Test
+  public void consPool() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    ConsPool pool = new ConsPool();
+
+    ConsType isolated = pool.intern(String.class, pool.intern(loader.isolated(), Integer.class));
+    ConsType unrelated = pool.intern(String.class, Integer.class);
+    assertEquals(3, pool.size());
+
+    pool.evict(loader);
+    assertEquals(1, pool.size());
+    assertSame(unrelated, pool.intern(String.class, Integer.class));
+    assertNotSame(isolated.rest(), pool.intern(loader.isolated(), Integer.class));
+  }
+
+  @Test
+  public void canonicalTypes() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    CanonicalTypes types = new CanonicalTypes();
+
+    Type isolated = types.canonicalize(listOf(loader.isolated()));
+    Type unrelated = types.canonicalize(listOf(String.class));
+    Type cons = types.canonicalize(Types.cons(String.class, loader.isolated()));
+    assertEquals(3, types.size());
+
+    types.evict(loader);
+    assertEquals(1, types.size());
+    assertSame(unrelated, types.canonicalize(listOf(String.class)));
+    assertNotSame(isolated, types.canonicalize(listOf(loader.isolated())));
+    assertNotSame(cons, types.canonicalize(Types.cons(String.class, loader.isolated())));
+  }
+
+  @Test
+  public void dispatchers() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    Object instance = loader.isolated().getDeclaredConstructor().newInstance();
+
+    assertEquals(Collections.singletonList("objects"), DISPATCHER.mostSpecific(instance));
+    assertEquals(Collections.singletonList("strings"), DISPATCHER.mostSpecific(""));
+    final int SIZE = DISPATCHER.cacheSize();
+
+    Types.evict(loader);
+    assertEquals(SIZE - 1, DISPATCHER.cacheSize());
+    assertEquals(Collections.singletonList("strings"), DISPATCHER.mostSpecific(""));
+  }
+
+  @Test
+  public void missingTablesAreRememberedPerLoader() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    Class<?> isolated = loader.isolated();
+
+    assertNull(PrecomputedSignatures.superclassOf(isolated));
+    assertNull(PrecomputedSignatures.superclassOf(isolated));
+    assertNull(PrecomputedSignatures.interfaceOf(isolated, 0));
+    assertEquals(1, loader.tableLookups);
+
+    Class<?> sibling = loader.isolatedSibling(); // in the same package
+    assertNull(PrecomputedSignatures.superclassOf(sibling));
+    assertEquals(1, loader.tableLookups);
+
+    Types.evict(loader);
+    assertNull(PrecomputedSignatures.superclassOf(isolated)); // already known for isolated itself
+    assertEquals(1, loader.tableLookups);
+    assertNull(PrecomputedSignatures.superclassOf(loader.isolatedClassWithInterfaces()));
+    assertEquals(2, loader.tableLookups);
+  }
+
+  @Test
+  public void signaturesOfClassesWhichOutliveTheLibrary() throws Exception {
+    assertTrue(ClassLoaders.outlivesLibrary(String.class));
+    assertFalse(ClassLoaders.outlivesLibrary(Types.class));
+    assertFalse(ClassLoaders.outlivesLibrary(new IsolatingLoader().isolated()));
+
+    assertSame(ClassSignatures.of(String.class), ClassSignatures.of(String.class));
+    assertEquals(Collections.singletonList(String.class), Types.fromInterface(String.class, Comparable.class, 0));
+  }
+
+  @Test
+  public void nothingKeepsTheLoaderAlive() throws Exception {
+    WeakReference<ClassLoader> loader = useAndDrop();
+
+    for (int i = 0; i < 100 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull("the class loader should've been collected", loader.get());
+  }
+
+  @Test
+  public void nothingKeepsTheLibrarysLoaderAlive() throws Exception {
+    WeakReference<ClassLoader> loader = deployAndDrop();
+
+    for (int i = 0; i < 100 && loader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+
+    assertNull("the library's class loader should've been collected", loader.get());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullLoader() {
+    Types.evict(null);
+  }
+
+  // goes through every cache with an isolated class, and returns its loader
+  private static WeakReference<ClassLoader> useAndDrop() throws Exception {
+    IsolatingLoader loader = new IsolatingLoader();
+    Class<?> isolated = loader.isolated();
+    Object instance = isolated.getDeclaredConstructor().newInstance();
+
+    assertTrue(Types.check(OneParameter.class, instance));
+    assertFalse(Types.check(Serializable.class, instance));
+    assertTrue(Types.check(Arrays.asList(Object.class, listOf(isolated)), Arrays.asList(instance, null)));
+    assertEquals(Collections.singletonList(String.class), Types.fromSuperclass(isolated, 0));
+    assertEquals(Collections.singletonList(String.class), Types.fromSupertype(isolated, OneParameter.class, 0));
+    assertFalse(Types.genericSupertypeOf(String.class, isolated).isPresent());
+    try {
+      Types.fromSupertype(String.class, isolated, 0); // String's signatures mustn't remember this
+      fail("Types.fromSupertype should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+    assertEquals(Collections.singletonList("objects"), DISPATCHER.mostSpecific(instance));
+    Types.fingerprint(isolated);
+
+    final boolean INTERNING = Types.isConsInterning();
+    Types.setConsInterning(true);
+    try {
+      Type cons = Types.cons(String.class, isolated, Integer.class);
+      assertEquals(3, Types.consView(cons).size());
+    } finally {
+      Types.setConsInterning(INTERNING);
+    }
+
+    return new WeakReference<>(loader);
+  }
+
+  // loads a copy of this library, as an application would, checks some of the JDK's classes with it, and returns its
+  // loader
+  private static WeakReference<ClassLoader> deployAndDrop() throws Exception {
+    URL[] urls = {
+      Types.class.getProtectionDomain().getCodeSource().getLocation(),
+      GenericTypeReflector.class.getProtectionDomain().getCodeSource().getLocation()
+    };
+    URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+
+    Method check = loader.loadClass(Types.class.getName()).getMethod("check", Type.class, Object.class);
+    assertTrue((Boolean) check.invoke(null, List.class, new ArrayList<>()));
+    assertFalse((Boolean) check.invoke(null, Runnable.class, new ArrayList<>()));
+    assertTrue((Boolean) check.invoke(null, Comparable.class, ""));
+
+    loader.close();
+    return new WeakReference<>(loader);
+  }
+
+  // loads its own copy of SonOfOneParameter, and delegates everything else
+  private static final class IsolatingLoader extends ClassLoader {
+    private static final String NAME = SonOfOneParameter.class.getName();
+    private static final Set<String> NAMES = new HashSet<>(Arrays.asList(
+      NAME, ThreeParameters.class.getName(), ClassWithMultipleInterfaces.class.getName()));
+
+    int tableLookups; // how many times a signature table was asked for
+
+    IsolatingLoader() {
+      super(TypesEvictTest.class.getClassLoader());
+    }
+
+    Class<?> isolated() throws ClassNotFoundException {
+      return loadClass(NAME);
+    }
+
+    Class<?> isolatedSibling() throws ClassNotFoundException {
+      return loadClass(ThreeParameters.class.getName());
+    }
+
+    Class<?> isolatedClassWithInterfaces() throws ClassNotFoundException {
+      return loadClass(ClassWithMultipleInterfaces.class.getName());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.endsWith("." + SignatureTable.SIMPLE_NAME)) {
+        tableLookups++;
+      }
+
+      if (!NAMES.contains(name)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> result = findLoadedClass(name);
+        if (result == null) {
+          byte[] bytes = bytesOf(name);
+          result = defineClass(name, bytes, 0, bytes.length);
+        }
+
+        return result;
+      }
+    }
+
+    private byte[] bytesOf(String name) throws ClassNotFoundException {
+      try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+        if (in == null) {
+          throw new ClassNotFoundException(name);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+          out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+      } catch (IOException e) {
+        throw new ClassNotFoundException(name, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeFactory;
+import com.coekie.gentyref.TypeToken;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+import static org.sbrubbles.genericcons.fixtures.Utils.mapOf;
+
+public class TypesFingerprintTest {
+  private static final Type CONS_4_TYPES = new TypeToken<C<String, C<Number, C<Object, List<Double>>>>>() { /**/ }.getType();
+  private static final Type MAP_OF_LISTS = new TypeToken<Map<String, List<? extends Number>>>() { /**/ }.getType();
+  private static final Type ARRAY_OF_LISTS = new TypeToken<List<String>[]>() { /**/ }.getType();
+
+  @Test
+  public void flattensConses() {
+    List<? extends Type> types = Types.fromCons(CONS_4_TYPES);
+
+    assertEquals(Types.fingerprint(types), Types.fingerprint(CONS_4_TYPES));
+    assertEquals(Types.fingerprint(types), Types.fingerprint(Types.cons(types)));
+    assertEquals(Types.fingerprint(types), Types.fingerprint(Types.consView(CONS_4_TYPES)));
+    assertEquals(
+      Types.fingerprint(types),
+      Types.fingerprint(Arrays.asList(String.class, Types.cons(Number.class, Object.class), listOf(Double.class))));
+
+    assertEquals(Types.fingerprint(types), Types.fingerprint(Types.wideCons(types)));
+    assertEquals(
+      Types.fingerprint(types),
+      Types.fingerprint(new TypeToken<C3<String, Number, C<Object, List<Double>>>>() { /**/ }.getType()));
+
+    assertEquals(Types.fingerprint(String.class), Types.fingerprint(Collections.singletonList(String.class)));
+    assertEquals(Types.fingerprint((Type) null), Types.fingerprint(Collections.emptyList()));
+    assertEquals(Types.fingerprint((Type) null), Types.fingerprint(Arrays.asList(null, null)));
+  }
+
+  @Test
+  public void independentOfTheImplementation() {
+    // the JDK's types, gentyref's types and the interned conses
+    assertEquals(Types.fingerprint(MAP_OF_LISTS), Types.fingerprint(
+      mapOf(String.class, TypeFactory.parameterizedClass(List.class, TypeFactory.wildcardExtends(Number.class)))));
+    assertEquals(Types.fingerprint(ARRAY_OF_LISTS), Types.fingerprint(TypeFactory.arrayOf(listOf(String.class))));
+    assertEquals(Types.fingerprint(String[].class), Types.fingerprint(TypeFactory.arrayOf(String.class)));
+
+    final boolean INTERNING = Types.isConsInterning();
+    Types.setConsInterning(true);
+    try {
+      Type interned = Types.cons(Types.fromCons(CONS_4_TYPES));
+
+      assertTrue(interned instanceof ConsType);
+      assertEquals(Types.fingerprint(CONS_4_TYPES), Types.fingerprint(interned));
+    } finally {
+      Types.setConsInterning(INTERNING);
+    }
+  }
+
+  @Test
+  public void stable() {
+    // depends only on names and structure, so it's the same in any JVM, and shouldn't change between versions
+    assertEquals(5587079463054629020L, Types.fingerprint(String.class));
+    assertEquals(1007536754370869891L, Types.fingerprint(Types.cons(String.class, listOf(Integer.class))));
+  }
+
+  @Test
+  public void distinguishesStructures() {
+    List<Type> types = Arrays.asList(
+      String.class, Object.class, String[].class, String[][].class, listOf(String.class), listOf(Object.class),
+      MAP_OF_LISTS, mapOf(String.class, listOf(Number.class)), ARRAY_OF_LISTS,
+      Types.cons(String.class, Object.class), Types.cons(Object.class, String.class),
+      Types.cons(String.class, Object.class, Object.class), listOf(Types.cons(String.class, Object.class)),
+      TypeFactory.wildcardExtends(String.class), TypeFactory.wildcardSuper(String.class),
+      List.class.getTypeParameters()[0], Map.class.getTypeParameters()[0], Map.class.getTypeParameters()[1]);
+
+    Set<Long> fingerprints = new HashSet<>();
+    for (Type type : types) {
+      fingerprints.add(Types.fingerprint(type));
+    }
+
+    assertEquals(types.size(), fingerprints.size());
+  }
+
+  @Test
+  public void memoizedOnInternedConses() {
+    final boolean INTERNING = Types.isConsInterning();
+    Types.setConsInterning(true);
+    try {
+      ConsType tail = (ConsType) Types.cons(Number.class, Object.class);
+      ConsType cons = (ConsType) Types.cons(String.class, Integer.class, Number.class, Object.class);
+
+      assertSame(tail, ((ConsType) cons.rest()).rest()); // interned tails are shared
+      assertFalse(cons.hasFingerprint());
+
+      long fingerprint = Types.fingerprint(cons);
+      assertTrue(cons.hasFingerprint());
+      assertTrue(tail.hasFingerprint());
+      assertEquals(fingerprint, cons.fingerprint());
+      assertEquals(Types.fingerprint(Arrays.asList(Number.class, Object.class)), tail.fingerprint());
+    } finally {
+      Types.setConsInterning(INTERNING);
+    }
+  }
+
+  @Test
+  public void preFiltersEquality() {
+    ConsType a = new ConsType(String.class, Object.class);
+    ConsType b = new ConsType(String.class, Object.class);
+    ConsType c = new ConsType(Object.class, String.class);
+
+    Types.fingerprint(a);
+    Types.fingerprint(b);
+    Types.fingerprint(c);
+
+    assertEquals(a, b);
+    assertNotEquals(a, c);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullLists() {
+    Types.fingerprint((List<? extends Type>) null);
+  }
+}
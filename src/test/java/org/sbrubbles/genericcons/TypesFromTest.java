@@ -7,6 +7,7 @@ import org.sbrubbles.genericcons.fixtures.*;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -220,6 +221,71 @@ public class TypesFromTest {
       Types.fromInterface(c.getClass(), 0));
   }
 
+  @Test
+  public void fromInterfaceByRawType() {
+    ClassWithMultipleInterfaces c = new ClassWithMultipleInterfaces();
+
+    assertEquals(
+      Types.genericInterfaceOf(c.getClass(), 1).get(),
+      Types.genericInterfaceOf(c.getClass(), ITwoParameters.class).get());
+    assertSame( // cached, not looked up again
+      Types.genericInterfaceOf(c.getClass(), ITwoParameters.class),
+      Types.genericInterfaceOf(c.getClass(), ITwoParameters.class));
+    assertEquals(
+      Arrays.asList(Integer.class),
+      Types.fromInterface(c.getClass(), ITwoParameters.class, 0));
+    assertEquals(
+      Arrays.asList(listOf(Double.class)),
+      Types.fromInterface(c.getClass(), ITwoParameters.class, 1));
+    assertSame(
+      Types.fromInterface(c.getClass(), 0),
+      Types.fromInterface(c.getClass(), IOneParameter.class, 0));
+
+    // Comparable<String> comes after Serializable
+    assertEquals(Arrays.asList(String.class), Types.fromInterface(String.class, Comparable.class, 0));
+
+    Type[] buffer = new Type[1];
+    assertEquals(1, Types.fromInterface(c.getClass(), ITwoParameters.class, 0, buffer));
+    assertArrayEquals(new Object[] {Integer.class}, buffer);
+  }
+
+  @Test
+  public void fromInterfaceByRawTypeOnlyFindsGenericSuperinterfaces() {
+    assertFalse(Types.genericInterfaceOf(String.class, Serializable.class).isPresent());
+    assertFalse(Types.genericInterfaceOf(String.class, List.class).isPresent());
+    assertFalse(Types.genericInterfaceOf(null, List.class).isPresent());
+    assertFalse(Types.genericInterfaceOf(String.class, (Class<?>) null).isPresent());
+
+    try {
+      Types.fromInterface(String.class, Serializable.class, 0);
+      fail("Types.fromInterface should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      // only direct superinterfaces count; Types.fromSupertype looks further up
+      Types.fromInterface(SonOfOneParameter.class, OneParameter.class, 0);
+      fail("Types.fromInterface should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.fromInterface(String.class, Comparable.class, 1);
+      fail("Types.fromInterface should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.fromInterface(String.class, null, 0);
+      fail("Types.fromInterface should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+  }
+
   @Test
   public void nonParameterizedSupertypes() {
     try {
@@ -238,4 +304,102 @@ public class TypesFromTest {
       /* if we're here, we're good */
     }
   }
+
+  @Test
+  public void fromSuperclassIsMemoized() {
+    OneParameter<C<String, Number>> c = new OneParameter<C<String, Number>>() { /**/};
+
+    List<? extends Type> first = Types.fromSuperclass(c.getClass(), 0);
+
+    assertArrayEquals(new Object[] {String.class, Number.class}, first.toArray());
+    assertSame(first, Types.fromSuperclass(c.getClass(), 0));
+  }
+
+  @Test
+  public void fromInterfaceIsMemoized() {
+    IOneParameter<C<String, Number>> c = new IOneParameter<C<String, Number>>() { /**/};
+
+    List<? extends Type> first = Types.fromInterface(c.getClass(), 0);
+
+    assertArrayEquals(new Object[] {String.class, Number.class}, first.toArray());
+    assertSame(first, Types.fromInterface(c.getClass(), 0));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void memoizedResultsAreImmutable() {
+    OneParameter<C<String, Number>> c = new OneParameter<C<String, Number>>() { /**/};
+
+    Types.fromSuperclass(c.getClass(), 0).clear();
+  }
+
+  @Test
+  public void missesAreMemoizedToo() {
+    for (int i = 0; i < 2; i++) {
+      try {
+        Types.fromSuperclass(String.class, 0);
+        fail("Types.fromSuperclass should've thrown NoSuchElementException");
+      } catch (NoSuchElementException e) {
+        /* if we're here, we're good */
+      }
+
+      try {
+        Types.fromSuperclass(new OneParameter<String>() { /**/}.getClass(), 1);
+        fail("Types.fromSuperclass should've thrown IndexOutOfBoundsException");
+      } catch (IndexOutOfBoundsException e) {
+        /* if we're here, we're good */
+      }
+    }
+  }
+
+  @Test
+  public void theMaximumLengthOnlyAppliesToTheRequestedArgument() {
+    ThreeParameters<String, C<String, C<String, C<String, C<String, String>>>>, Number> c =
+      new ThreeParameters<String, C<String, C<String, C<String, C<String, String>>>>, Number>() { /**/};
+
+    try {
+      Types.setMaxConsLength(4);
+
+      assertEquals(Arrays.asList(String.class), Types.fromSuperclass(c.getClass(), 0));
+      assertEquals(Arrays.asList(Number.class), Types.fromSuperclass(c.getClass(), 2));
+
+      try {
+        Types.fromSuperclass(c.getClass(), 1);
+        fail("Types.fromSuperclass should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+
+      // decoded and memoized with a larger maximum, but checked again on every access
+      Types.setMaxConsLength(Types.DEFAULT_MAX_CONS_LENGTH);
+      assertEquals(5, Types.fromSuperclass(c.getClass(), 1).size());
+
+      Types.setMaxConsLength(4);
+      try {
+        Types.fromSuperclass(c.getClass(), 1);
+        fail("Types.fromSuperclass should've thrown IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        /* if we're here, we're good */
+      }
+    } finally {
+      Types.setMaxConsLength(Types.DEFAULT_MAX_CONS_LENGTH);
+    }
+  }
+
+  @Test
+  public void fromIntoBuffers() {
+    OneParameter<C<String, Number>> c = new OneParameter<C<String, Number>>() { /**/};
+    IOneParameter<C<String, Number>> i = new IOneParameter<C<String, Number>>() { /**/};
+    Type[] buffer = new Type[2];
+
+    assertEquals(2, Types.fromSuperclass(c.getClass(), 0, buffer));
+    assertArrayEquals(new Object[] {String.class, Number.class}, buffer);
+
+    Arrays.fill(buffer, null);
+    assertEquals(2, Types.fromInterface(i.getClass(), 0, buffer));
+    assertArrayEquals(new Object[] {String.class, Number.class}, buffer);
+
+    Type[] small = new Type[1];
+    assertEquals(2, Types.fromSuperclass(c.getClass(), 0, small));
+    assertArrayEquals(new Object[] {String.class}, small);
+  }
 }
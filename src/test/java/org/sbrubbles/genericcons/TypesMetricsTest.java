@@ -0,0 +1,194 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sbrubbles.genericcons.TypesMetrics.Cache;
+import org.sbrubbles.genericcons.TypesMetrics.Operation;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.listOf;
+
+public class TypesMetricsTest {
+  private static class Measured extends OneParameter<C<String, C<Integer, Serializable>>> { /**/ }
+
+  private InMemoryMetrics metrics;
+
+  @Before
+  public void setUp() {
+    metrics = new InMemoryMetrics();
+    Types.setMetrics(metrics);
+  }
+
+  @After
+  public void tearDown() {
+    Types.setMetrics(TypesMetrics.NONE);
+  }
+
+  @Test
+  public void noneByDefault() {
+    Types.setMetrics(TypesMetrics.NONE);
+
+    assertSame(TypesMetrics.NONE, Types.getMetrics());
+    Types.check(String.class, "");
+    assertEquals(0, metrics.calls(Operation.CHECK));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void nullMetrics() {
+    Types.setMetrics(null);
+  }
+
+  @Test
+  public void checksAreCountedOncePerCall() {
+    assertTrue(Types.check(Arrays.asList(String.class, Number.class), Arrays.asList("", 1)));
+    assertFalse(Types.check(Arrays.asList(String.class, Number.class), new Object[] { 1, 1 }, 0, 2));
+    assertFalse(Types.check(Number.class, ""));
+    assertFalse(Types.compile(Collections.singletonList(String.class)).check(1));
+    assertTrue(Types.compile(Collections.singletonList(String.class)).check(Collections.singletonList("")));
+
+    assertEquals(5, metrics.calls(Operation.CHECK));
+    assertEquals(3, metrics.mismatches(Operation.CHECK));
+    assertTrue(metrics.totalNanos(Operation.CHECK) >= 0);
+  }
+
+  @Test
+  public void failedChecksAreCountedToo() {
+    List<Type> broken = new AbstractList<Type>() {
+      @Override
+      public Type get(int index) {
+        throw new IllegalStateException("Broken on purpose");
+      }
+
+      @Override
+      public int size() {
+        return 1;
+      }
+    };
+
+    try {
+      Types.check(broken, Collections.singletonList(""));
+      fail("Types.check should've thrown IllegalStateException");
+    } catch (IllegalStateException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.check(broken, new Object[] { "" }, 0, 1);
+      fail("Types.check should've thrown IllegalStateException");
+    } catch (IllegalStateException e) {
+      /* if we're here, we're good */
+    }
+
+    assertEquals(2, metrics.calls(Operation.CHECK));
+    assertEquals(2, metrics.mismatches(Operation.CHECK));
+  }
+
+  @Test
+  public void assignabilityCache() {
+    Types.check(listOf(Measured.class), new LinkedList<>());
+    Types.check(listOf(Measured.class), new LinkedList<>());
+
+    assertEquals(1, metrics.misses(Cache.ASSIGNABILITY));
+    assertEquals(1, metrics.hits(Cache.ASSIGNABILITY));
+  }
+
+  @Test
+  public void fromAndSignatures() {
+    assertEquals(3, Types.fromSuperclass(Measured.class, 0).size());
+    assertEquals(3, Types.fromSuperclass(Measured.class, 0, new Type[3]));
+
+    assertEquals(2, metrics.calls(Operation.FROM));
+    assertEquals(0, metrics.calls(Operation.FROM_CONS)); // decoding inside from isn't counted apart
+    assertEquals(1, metrics.misses(Cache.SIGNATURES));
+    assertEquals(1, metrics.hits(Cache.SIGNATURES));
+    assertEquals(2, metrics.lengthHistogram(Operation.FROM)[2]); // 3 is in [2, 4)
+
+    try {
+      Types.fromSuperclass(Measured.class, 1);
+      fail("Types.fromSuperclass should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+
+    assertEquals(3, metrics.calls(Operation.FROM)); // failures count as calls too
+  }
+
+  @Test
+  public void consAndFromCons() {
+    Type cons = Types.cons(String.class, Integer.class, Double.class, Long.class);
+    assertEquals(4, Types.fromCons(cons).size());
+    assertEquals(4, Types.fromCons(cons, new Type[4]));
+    assertEquals(0, Types.fromCons(null).size());
+
+    assertEquals(1, metrics.calls(Operation.CONS));
+    assertEquals(3, metrics.calls(Operation.FROM_CONS));
+
+    long[] lengths = metrics.lengthHistogram(Operation.FROM_CONS);
+    assertEquals(1, lengths[0]);
+    assertEquals(2, lengths[3]); // 4 is in [4, 8)
+  }
+
+  @Test
+  public void consesCountTheirFlattenedLengths() {
+    Type pair = Types.cons(String.class, Integer.class);
+    Types.cons(Arrays.asList(pair, null, Types.cons(Double.class, Long.class)));
+    Types.wideCons(Arrays.asList(pair, pair, pair));
+
+    assertEquals(4, metrics.calls(Operation.CONS));
+
+    long[] lengths = metrics.lengthHistogram(Operation.CONS);
+    assertEquals(2, lengths[2]); // both pairs are in [2, 4)
+    assertEquals(2, lengths[3]); // 4 and 6 are in [4, 8)
+  }
+
+  @Test
+  public void consPool() {
+    final boolean INTERNING = Types.isConsInterning();
+
+    Types.setConsInterning(true);
+    try {
+      Object first = Types.cons(String.class, Measured.class);
+      Object second = Types.cons(String.class, Measured.class);
+
+      assertSame(first, second);
+      assertEquals(1, metrics.misses(Cache.CONS_POOL));
+      assertEquals(1, metrics.hits(Cache.CONS_POOL));
+    } finally {
+      Types.setConsInterning(INTERNING);
+    }
+  }
+
+  @Test
+  public void percentilesAndReset() {
+    for (int i = 0; i < 99; i++) {
+      metrics.called(Operation.CHECK, 100); // [64, 128)
+    }
+    metrics.called(Operation.CHECK, 5000); // [4096, 8192)
+
+    assertEquals(127, metrics.latencyPercentile(Operation.CHECK, 0.5));
+    assertEquals(127, metrics.latencyPercentile(Operation.CHECK, 0.99));
+    assertEquals(8191, metrics.latencyPercentile(Operation.CHECK, 1));
+    assertEquals(0, metrics.latencyPercentile(Operation.CONS, 0.5));
+
+    metrics.reset();
+    assertEquals(0, metrics.calls(Operation.CHECK));
+    assertEquals(0, metrics.latencyPercentile(Operation.CHECK, 0.5));
+
+    try {
+      metrics.latencyPercentile(Operation.CHECK, 1.5);
+      fail("metrics.latencyPercentile should've thrown IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      /* if we're here, we're good */
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TypesSnapshotTest {
+  private static final String STABLE = String.join("\n",
+    "package q;",
+    "import org.sbrubbles.genericcons.C;",
+    "public class Stable extends org.sbrubbles.genericcons.fixtures.OneParameter<C<String, Integer>> {}");
+
+  private static final String V1 = String.join("\n",
+    "package q;",
+    "import java.util.*;",
+    "import org.sbrubbles.genericcons.C;",
+    "import org.sbrubbles.genericcons.fixtures.*;",
+    "public class Handler",
+    "  extends OneParameter<C<String, C<List<? extends Number>, C<int[], C<Map.Entry<?, ? super Long>, List<String>[]>>>>>",
+    "  implements IOneParameter<C<Long, Object[]>> {}");
+
+  private static final String V2 = String.join("\n",
+    "package q;",
+    "import org.sbrubbles.genericcons.C;",
+    "import org.sbrubbles.genericcons.fixtures.*;",
+    "public class Handler extends OneParameter<C<Integer, Double>> implements IOneParameter<C<Long, Object[]>> {}");
+
+  private static final String VARIABLE = String.join("\n",
+    "package q;",
+    "import org.sbrubbles.genericcons.C;",
+    "public class Variable<T> extends org.sbrubbles.genericcons.fixtures.OneParameter<C<T, String>> {}");
+
+  @After
+  public void clearSnapshot() {
+    Types.clearSnapshot();
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    Path classes = compile(V1, STABLE, VARIABLE);
+    Path snapshot = Files.createTempFile("genericcons", ".snapshot");
+
+    try {
+      assertEquals(2, Types.exportSnapshot(Arrays.asList(
+        load(classes, "q.Handler"),
+        load(classes, "q.Stable"),
+        load(classes, "q.Variable"), // type variables can't be saved
+        Object.class), snapshot)); // no generic supertypes
+
+      assertEquals(2, Types.loadSnapshot(snapshot));
+
+      Class<?> handler = load(classes, "q.Handler"); // a fresh class, as if in a new process
+      SignatureTable table = SignatureSnapshot.current();
+
+      Type[][] superclass = table.superclassSignature(handler);
+      assertNotNull(superclass);
+      assertEquals(1, superclass.length);
+      assertEquals(Types.from(Types.genericSuperclassOf(handler).get(), 0), Arrays.asList(superclass[0]));
+      assertEquals(Arrays.asList(superclass[0]), Types.from(Types.genericSuperclassOf(handler).get(), 0));
+
+      Type[][] iface = table.interfaceSignature(handler, 0);
+      assertNotNull(iface);
+      assertEquals(Arrays.asList(Long.class, Object[].class), Arrays.asList(iface[0]));
+
+      assertNull(table.interfaceSignature(handler, 1));
+      assertNull(table.superclassSignature(load(classes, "q.Variable")));
+
+      assertEquals(Arrays.asList(superclass[0]), Types.fromSuperclass(handler, 0));
+      for (Type type : Types.fromSuperclass(handler, 0)) { // canonical, like those from reflection
+        assertSame(Types.canonicalize(type), type);
+      }
+      assertEquals(Arrays.asList(Long.class, Object[].class), Types.fromInterface(handler, 0));
+    } finally {
+      Files.delete(snapshot);
+    }
+  }
+
+  @Test
+  public void staleEntriesAreIgnored() throws Exception {
+    Path v1 = compile(V1, STABLE);
+    Path v2 = compile(V2, STABLE);
+
+    // Stable's class file is left as it was, and Handler's rebuilt later
+    Files.copy(v1.resolve("q/Stable.class"), v2.resolve("q/Stable.class"),
+      StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    FileTime built = Files.getLastModifiedTime(v1.resolve("q/Handler.class"));
+    Files.setLastModifiedTime(v2.resolve("q/Handler.class"), FileTime.fromMillis(built.toMillis() + 2000));
+
+    Path snapshot = Files.createTempFile("genericcons", ".snapshot");
+
+    try {
+      Types.exportSnapshot(Arrays.asList(load(v1, "q.Handler"), load(v1, "q.Stable")), snapshot);
+      Types.loadSnapshot(snapshot);
+
+      Class<?> handler = load(v2, "q.Handler");
+      Class<?> stable = load(v2, "q.Stable");
+
+      assertNull(SignatureSnapshot.current().superclassSignature(handler));
+      assertNotNull(SignatureSnapshot.current().superclassSignature(stable));
+
+      assertEquals(Arrays.asList(Integer.class, Double.class), Types.fromSuperclass(handler, 0));
+      assertEquals(Arrays.asList(String.class, Integer.class), Types.fromSuperclass(stable, 0));
+    } finally {
+      Files.delete(snapshot);
+    }
+  }
+
+  @Test
+  public void clearingTheSnapshot() throws Exception {
+    Path snapshot = Files.createTempFile("genericcons", ".snapshot");
+
+    try {
+      Types.exportSnapshot(Collections.emptyList(), snapshot);
+      assertEquals(0, Types.loadSnapshot(snapshot));
+      assertNotNull(SignatureSnapshot.current());
+
+      Types.clearSnapshot();
+      assertNull(SignatureSnapshot.current());
+    } finally {
+      Files.delete(snapshot);
+    }
+  }
+
+  @Test
+  public void notASnapshot() throws Exception {
+    Path file = Files.createTempFile("genericcons", ".snapshot");
+
+    try {
+      Files.write(file, "definitely not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+      try {
+        Types.loadSnapshot(file);
+        fail("Types.loadSnapshot should've thrown IOException");
+      } catch (IOException e) {
+        /* if we're here, we're good */
+      }
+
+      assertNull(SignatureSnapshot.current());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void nullsAreRejected() throws Exception {
+    try {
+      Types.exportSnapshot(null, Files.createTempFile("genericcons", ".snapshot"));
+      fail("Types.exportSnapshot should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.loadSnapshot(null);
+      fail("Types.loadSnapshot should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  private static Class<?> load(Path classes, String name) throws Exception {
+    ClassLoader loader = new URLClassLoader(
+      new URL[] { classes.toUri().toURL() },
+      TypesSnapshotTest.class.getClassLoader());
+
+    return loader.loadClass(name);
+  }
+
+  private static Path compile(String... sources) throws Exception {
+    Path root = Files.createTempDirectory("genericcons-snapshot");
+    Path sourceDir = Files.createDirectories(root.resolve("src/q"));
+    Path classes = Files.createDirectories(root.resolve("classes"));
+
+    List<File> files = new ArrayList<>();
+    for (String source : sources) {
+      String name = source.replaceAll("(?s).*public class (\\w+).*", "$1");
+      Path file = sourceDir.resolve(name + ".java");
+
+      Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+      files.add(file.toFile());
+    }
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+           compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      List<String> options = Arrays.asList(
+        "-classpath", classpathOf(C.class, OneParameter.class),
+        "-d", classes.toString());
+
+      boolean compiled = compiler.getTask(null, fileManager, diagnostics, options, null,
+        fileManager.getJavaFileObjectsFromFiles(files)).call();
+
+      assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+    }
+
+    return classes;
+  }
+
+  private static String classpathOf(Class<?>... classes) throws Exception {
+    StringBuilder result = new StringBuilder();
+
+    for (Class<?> c : classes) {
+      if (result.length() > 0) {
+        result.append(File.pathSeparator);
+      }
+
+      result.append(new File(c.getProtectionDomain().getCodeSource().getLocation().toURI()).getCanonicalPath());
+    }
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,137 @@
+package org.sbrubbles.genericcons;
+
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.*;
+
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+import static org.sbrubbles.genericcons.fixtures.Utils.*;
+
+@SuppressWarnings({ "OptionalGetWithoutIsPresent", "rawtypes" })
+public class TypesSupertypeTest {
+  static class Base<T> extends OneParameter<C<T, C<String, List<T>>>> { /**/ }
+
+  static class Derived extends Base<Integer> { /**/ }
+
+  static class Open<U> extends Base<U> { /**/ }
+
+  static class RawDerived extends Base { /**/ }
+
+  interface Middle<A, B> extends ITwoParameters<B, C<A, A[]>> { /**/ }
+
+  static class Impl implements Serializable, Middle<String, Long> { /**/ }
+
+  static class DeeperImpl extends Impl { /**/ }
+
+  @Test
+  public void grandsons() {
+    OneParameter<String> grandson = new SonOfOneParameter() { /**/ };
+
+    assertEquals(
+      Collections.singletonList(String.class),
+      Types.fromSupertype(grandson.getClass(), OneParameter.class, 0));
+    assertEquals(
+      type(OneParameter.class, String.class),
+      Types.genericSupertypeOf(grandson.getClass(), OneParameter.class).get());
+  }
+
+  @Test
+  public void variablesInsideConses() {
+    assertEquals(
+      Arrays.asList(Integer.class, String.class, listOf(Integer.class)),
+      Types.fromSupertype(Derived.class, OneParameter.class, 0));
+
+    assertEquals(
+      type(OneParameter.class, cons(Integer.class, String.class, listOf(Integer.class))),
+      Types.genericSupertypeOf(Derived.class, OneParameter.class).get());
+  }
+
+  @Test
+  public void directSupertypesAreUntouched() {
+    assertEquals(Derived.class.getGenericSuperclass(), Types.genericSupertypeOf(Derived.class, Base.class).get());
+    assertSame(Derived.class.getGenericSuperclass(), Types.genericSupertypeOf(Derived.class, Base.class).get());
+  }
+
+  @Test
+  public void interfaces() {
+    ParameterizedType expected =
+      (ParameterizedType) type(ITwoParameters.class, Long.class, cons(String.class, String[].class));
+
+    for (Class<?> c : Arrays.asList(Impl.class, DeeperImpl.class)) {
+      ParameterizedType actual = Types.genericSupertypeOf(c, ITwoParameters.class).get();
+
+      assertEquals(expected, actual);
+      assertEquals(actual, expected);
+      assertEquals(expected.hashCode(), actual.hashCode());
+
+      assertEquals(Collections.singletonList(Long.class), Types.fromSupertype(c, ITwoParameters.class, 0));
+      assertEquals(Arrays.asList(String.class, String[].class), Types.fromSupertype(c, ITwoParameters.class, 1));
+    }
+  }
+
+  @Test
+  public void ownVariablesRemain() {
+    TypeVariable<?> u = Open.class.getTypeParameters()[0];
+
+    assertEquals(
+      Arrays.asList(u, String.class, listOf(u)),
+      Types.fromSupertype(Open.class, OneParameter.class, 0));
+  }
+
+  @Test
+  public void rawAncestorsArentGeneric() {
+    assertFalse(Types.genericSupertypeOf(RawDerived.class, Base.class).isPresent());
+    assertFalse(Types.genericSupertypeOf(RawDerived.class, OneParameter.class).isPresent());
+
+    try {
+      Types.fromSupertype(RawDerived.class, OneParameter.class, 0);
+      fail("Types.fromSupertype should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void notAnAncestor() {
+    assertFalse(Types.genericSupertypeOf(Derived.class, Comparable.class).isPresent());
+    assertFalse(Types.genericSupertypeOf(Derived.class, Derived.class).isPresent());
+    assertFalse(Types.genericSupertypeOf(null, Derived.class).isPresent());
+    assertFalse(Types.genericSupertypeOf(Derived.class, null).isPresent());
+
+    try {
+      Types.fromSupertype(Derived.class, Comparable.class, 0);
+      fail("Types.fromSupertype should've thrown NoSuchElementException");
+    } catch (NoSuchElementException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.fromSupertype(Derived.class, OneParameter.class, 1);
+      fail("Types.fromSupertype should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.fromSupertype(null, OneParameter.class, 0);
+      fail("Types.fromSupertype should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void memoization() {
+    List<? extends Type> first = Types.fromSupertype(DeeperImpl.class, ITwoParameters.class, 1);
+
+    assertSame(first, Types.fromSupertype(DeeperImpl.class, ITwoParameters.class, 1));
+  }
+}
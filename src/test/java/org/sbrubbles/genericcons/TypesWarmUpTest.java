@@ -0,0 +1,137 @@
+package org.sbrubbles.genericcons;
+
+import com.coekie.gentyref.TypeFactory;
+import org.junit.Test;
+import org.sbrubbles.genericcons.fixtures.*;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TypesWarmUpTest {
+  private static class Warm extends OneParameter<C<String, Integer>> { /**/ }
+
+  private static class TooLong extends OneParameter<C<String, C<Integer, Serializable>>> { /**/ }
+
+  private static class Interfaces
+    implements IOneParameter<String>, Serializable, ITwoParameters<C<String, Integer>, Long> { /**/ }
+
+  @Test
+  public void warmingUpClasses() {
+    WarmUpReport report = Types.warmUp(Arrays.asList(Warm.class, Interfaces.class, String.class));
+
+    assertEquals(3, report.classCount());
+    assertEquals(
+      Arrays.asList(Warm.class.getName(), Interfaces.class.getName(), String.class.getName()),
+      Arrays.asList(report.nanos().keySet().toArray()));
+    assertTrue(report.failures().isEmpty());
+    assertTrue(report.totalNanos() >= 0);
+    assertTrue(report.elapsedNanos() >= 0);
+
+    assertEquals(Arrays.asList(String.class, Integer.class), Types.fromSuperclass(Warm.class, 0));
+    assertEquals(
+      Arrays.asList(String.class, Integer.class),
+      ClassSignatures.of(Interfaces.class).superinterface(2).get().get(0));
+  }
+
+  @Test
+  public void failuresAreReported() {
+    final int MAX = Types.getMaxConsLength();
+
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    Types.setMaxConsLength(2);
+    try {
+      WarmUpReport report = Types.warmUp(Arrays.asList(TooLong.class, Warm.class), pool);
+
+      assertEquals(2, report.classCount());
+      assertEquals(Collections.singleton(TooLong.class.getName()), report.failures().keySet());
+      assertTrue(report.failures().get(TooLong.class.getName()) instanceof IllegalArgumentException);
+    } finally {
+      Types.setMaxConsLength(MAX);
+      pool.shutdown();
+    }
+
+    // nothing was cached, so it works once the limit is back
+    assertEquals(3, Types.fromSuperclass(TooLong.class, 0).size());
+  }
+
+  @Test
+  public void warmingUpADirectoryPackage() throws Exception {
+    WarmUpReport report = Types.warmUpPackage("org.sbrubbles.genericcons.fixtures", getClass().getClassLoader());
+
+    assertTrue(report.nanos().containsKey(OneParameter.class.getName()));
+    assertTrue(report.nanos().containsKey(ClassWithMultipleInterfaces.class.getName()));
+    assertTrue(report.nanos().containsKey(Utils.class.getName()));
+    assertFalse(report.nanos().containsKey(getClass().getName()));
+    assertTrue(report.failures().isEmpty());
+  }
+
+  @Test
+  public void warmingUpAJarPackage() throws Exception {
+    WarmUpReport report = Types.warmUpPackage("com.coekie.gentyref", TypeFactory.class.getClassLoader());
+
+    assertTrue(report.nanos().containsKey(TypeFactory.class.getName()));
+    assertTrue(report.failures().isEmpty());
+  }
+
+  @Test
+  public void warmingUpAnIndex() throws Exception {
+    Path index = Files.createTempFile("genericcons", ".idx");
+    try {
+      Files.write(index, Arrays.asList(
+        "# handlers",
+        Warm.class.getName(),
+        "",
+        "  " + Interfaces.class.getName() + "  ",
+        "no.such.Class"), StandardCharsets.UTF_8);
+
+      WarmUpReport report = Types.warmUpIndex(index, getClass().getClassLoader());
+
+      assertEquals(
+        Arrays.asList(Warm.class.getName(), Interfaces.class.getName(), "no.such.Class"),
+        Arrays.asList(report.nanos().keySet().toArray()));
+      assertEquals(Collections.singleton("no.such.Class"), report.failures().keySet());
+      assertTrue(report.failures().get("no.such.Class") instanceof ClassNotFoundException);
+    } finally {
+      Files.delete(index);
+    }
+  }
+
+  @Test
+  public void nullsAreRejected() throws Exception {
+    try {
+      Types.warmUp(null);
+      fail("Types.warmUp should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.warmUp(Collections.singleton(String.class), null);
+      fail("Types.warmUp should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.warmUpPackage(null, getClass().getClassLoader());
+      fail("Types.warmUpPackage should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+
+    try {
+      Types.warmUpIndex(null, getClass().getClassLoader());
+      fail("Types.warmUpIndex should've thrown NullPointerException");
+    } catch (NullPointerException e) {
+      /* if we're here, we're good */
+    }
+  }
+}
@@ -0,0 +1,281 @@
+package org.sbrubbles.genericcons.processor;
+
+import com.coekie.gentyref.TypeFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sbrubbles.genericcons.C;
+import org.sbrubbles.genericcons.SignatureTable;
+import org.sbrubbles.genericcons.Types;
+import org.sbrubbles.genericcons.fixtures.ITwoParameters;
+import org.sbrubbles.genericcons.fixtures.OneParameter;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConsSignatureProcessorTest {
+  private static final String SOURCE = String.join("\n",
+    "package p;",
+    "",
+    "import java.io.Serializable;",
+    "import java.util.*;",
+    "import org.sbrubbles.genericcons.*;",
+    "import org.sbrubbles.genericcons.fixtures.*;",
+    "",
+    "public class Handlers {",
+    "  public static class Max extends OneParameter<C<String, C<List<Double>, C<Object[], C<int[], Map<String, ? extends Number>>>>>> {}",
+    "  public static class Both extends ThreeParameters<String, C<Integer, Long>, List<? super Integer>>",
+    "    implements IOneParameter<String>, ITwoParameters<Integer, C<String, Serializable>> {}",
+    "  public static class Wide extends OneParameter<C4<String, Integer, Long, C3<Double, Object[], C<Byte, Short>>>> {}",
+    "  public static class Plain extends OneParameter<String> {}",
+    "  public static class WithVariable<T> extends OneParameter<C<T, String>> {}",
+    "  private static class Hidden {}",
+    "  public static class WithPrivate extends OneParameter<C<Hidden, String>> {}",
+    "}",
+    "");
+
+  // the same classes, with different type arguments, as if compiled again without regenerating the table
+  private static final String CHANGED_SOURCE = SOURCE
+    .replace("OneParameter<C<String, C<List<Double>,", "OneParameter<C<Integer, C<List<Double>,")
+    .replace("ITwoParameters<Integer, C<String, Serializable>>", "ITwoParameters<Integer, C<Long, Serializable>>");
+
+  // the same classes, with different raw supertypes
+  private static final String RAW_CHANGED_SOURCE = SOURCE
+    .replace("class Max extends OneParameter<", "class Max extends ThreeParameters<String, String, ")
+    .replace("implements IOneParameter<String>, ITwoParameters<Integer, C<String, Serializable>>",
+      "implements ITwoParameters<Integer, C<String, Serializable>>, IOneParameter<String>");
+
+  private static Path root;
+  private static ClassLoader loader;
+  private static SignatureTable table;
+
+  @BeforeClass
+  public static void compile() throws Exception {
+    root = Files.createTempDirectory("genericcons-processor");
+    Path classes = compile(SOURCE, "classes", "-processor", ConsSignatureProcessor.class.getName());
+
+    loader = new URLClassLoader(new URL[] { classes.toUri().toURL() }, ConsSignatureProcessorTest.class.getClassLoader());
+    table = (SignatureTable) loader.loadClass("p." + SignatureTable.SIMPLE_NAME).getDeclaredConstructor().newInstance();
+  }
+
+  private static Path compile(String code, String output, String... extraOptions) throws Exception {
+    Path sources = Files.createDirectories(root.resolve(output + "-src/p"));
+    Path classes = Files.createDirectories(root.resolve(output));
+
+    Path source = sources.resolve("Handlers.java");
+    Files.write(source, code.getBytes(StandardCharsets.UTF_8));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      List<String> options = new ArrayList<>(Arrays.asList(
+        "-classpath", classpathOf(C.class, TypeFactory.class, OneParameter.class),
+        "-d", classes.toString()));
+      options.addAll(Arrays.asList(extraOptions));
+
+      boolean compiled = compiler.getTask(null, files, diagnostics, options, null,
+        files.getJavaFileObjects(source.toFile())).call();
+
+      assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+    }
+
+    return classes;
+  }
+
+  @Test
+  public void precomputesSuperclasses() throws Exception {
+    Class<?> max = loader.loadClass("p.Handlers$Max");
+
+    Type[][] signature = table.superclassSignature(max);
+
+    assertNotNull(signature);
+    assertEquals(1, signature.length);
+    assertEquals(reflectively(max, 0), Arrays.asList(signature[0]));
+    assertEquals(Arrays.asList(signature[0]), reflectively(max, 0));
+  }
+
+  @Test
+  public void precomputesWideConses() throws Exception {
+    Class<?> wide = loader.loadClass("p.Handlers$Wide");
+
+    Type[][] signature = table.superclassSignature(wide);
+
+    assertNotNull(signature);
+    assertEquals(reflectively(wide, 0), Arrays.asList(signature[0]));
+    assertEquals(7, signature[0].length);
+  }
+
+  @Test
+  public void precomputesInterfaces() throws Exception {
+    Class<?> both = loader.loadClass("p.Handlers$Both");
+
+    Type[][] superclass = table.superclassSignature(both);
+    assertNotNull(superclass);
+    assertEquals(3, superclass.length);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(reflectively(both, i), Arrays.asList(superclass[i]));
+    }
+
+    assertNull(table.interfaceSignature(both, 0)); // no C, so not in the table
+
+    Type[][] iface = table.interfaceSignature(both, 1);
+    assertNotNull(iface);
+    assertEquals(2, iface.length);
+    assertEquals(Collections.singletonList(Integer.class), Arrays.asList(iface[0]));
+    assertEquals(Types.from(Types.genericInterfaceOf(both, 1).get(), 1), Arrays.asList(iface[1]));
+
+    assertNull(table.interfaceSignature(both, 2));
+    assertNull(table.interfaceSignature(both, -1));
+  }
+
+  @Test
+  public void buildsCanonicalTypes() throws Exception {
+    for (Type type : table.superclassSignature(loader.loadClass("p.Handlers$Max"))[0]) {
+      assertSame(type, Types.canonicalize(type));
+    }
+  }
+
+  @Test
+  public void splitsLargeTables() throws Exception {
+    // far more entries than fit in one method's 64KB of bytecode
+    StringBuilder source = new StringBuilder(String.join("\n",
+      "package p;",
+      "",
+      "import java.util.*;",
+      "import org.sbrubbles.genericcons.*;",
+      "import org.sbrubbles.genericcons.fixtures.*;",
+      "",
+      "public class Handlers {",
+      ""));
+    for (int i = 0; i < 2000; i++) {
+      source.append("  public static class K").append(i)
+        .append(" extends OneParameter<C<String, C<List<Integer>, Map<String, ? extends Number>>>>")
+        .append(" implements IOneParameter<C<Long, Double>> {}\n");
+    }
+    source.append("}\n");
+
+    Path classes = compile(source.toString(), "large", "-processor", ConsSignatureProcessor.class.getName());
+    ClassLoader largeLoader = new URLClassLoader(new URL[] { classes.toUri().toURL() },
+      ConsSignatureProcessorTest.class.getClassLoader());
+    SignatureTable largeTable = (SignatureTable) largeLoader.loadClass("p." + SignatureTable.SIMPLE_NAME)
+      .getDeclaredConstructor().newInstance();
+
+    for (int i : new int[] { 0, 255, 256, 1999 }) {
+      Class<?> c = largeLoader.loadClass("p.Handlers$K" + i);
+
+      assertEquals(reflectively(c, 0), Arrays.asList(largeTable.superclassSignature(c)[0]));
+      assertEquals(Arrays.asList(Long.class, Double.class), Arrays.asList(largeTable.interfaceSignature(c, 0)[0]));
+    }
+  }
+
+  @Test
+  public void skipsWhatItCantWriteDown() throws Exception {
+    for (String name : Arrays.asList("Plain", "WithVariable", "WithPrivate", "Hidden")) {
+      assertNull(name, table.superclassSignature(loader.loadClass("p.Handlers$" + name)));
+    }
+
+    assertNull(table.superclassSignature(String.class));
+  }
+
+  @Test
+  public void typesUsesTheTable() throws Exception {
+    for (String name : Arrays.asList("Max", "Both", "Wide", "Plain", "WithVariable", "WithPrivate")) {
+      Class<?> c = loader.loadClass("p.Handlers$" + name);
+
+      for (int i = 0; i < Types.genericSuperclassOf(c).get().getActualTypeArguments().length; i++) {
+        assertEquals(name, reflectively(c, i), Types.fromSuperclass(c, i));
+      }
+    }
+
+    Class<?> both = loader.loadClass("p.Handlers$Both");
+    assertEquals(Collections.singletonList(String.class), Types.fromInterface(both, 0));
+
+    try {
+      Types.fromSuperclass(loader.loadClass("p.Handlers$Max"), 1);
+      fail("Types.fromSuperclass should've thrown IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      /* if we're here, we're good */
+    }
+  }
+
+  @Test
+  public void tablesOlderThanTheirClassesAreIgnored() throws Exception {
+    Path changed = compile(CHANGED_SOURCE, "changed", "-proc:none");
+    SignatureTable oldTable = oldTableIn(changed);
+    ClassLoader changedLoader = oldTable.getClass().getClassLoader();
+
+    // same raw supertypes, different type arguments, which the table itself can't tell apart
+    Class<?> max = changedLoader.loadClass("p.Handlers$Max");
+    Class<?> both = changedLoader.loadClass("p.Handlers$Both");
+    assertNotNull(oldTable.superclassSignature(max));
+    assertEquals(Integer.class, Types.fromSuperclass(max, 0).get(0));
+    assertEquals(Arrays.asList(Long.class, Serializable.class), Types.fromInterface(both, ITwoParameters.class, 1));
+  }
+
+  @Test
+  public void rawSupertypesAreChecked() throws Exception {
+    Path changed = compile(RAW_CHANGED_SOURCE, "raw-changed", "-proc:none");
+    SignatureTable oldTable = oldTableIn(changed);
+    ClassLoader changedLoader = oldTable.getClass().getClassLoader();
+
+    Class<?> max = changedLoader.loadClass("p.Handlers$Max");
+    Class<?> both = changedLoader.loadClass("p.Handlers$Both");
+    assertNull(oldTable.superclassSignature(max));
+    assertNull(oldTable.interfaceSignature(both, 1));
+
+    // the unchanged ones are still there
+    assertNotNull(oldTable.superclassSignature(both));
+    assertNotNull(oldTable.superclassSignature(changedLoader.loadClass("p.Handlers$Wide")));
+  }
+
+  // copies the original table into classes, as if left there by an earlier build, and loads it
+  private static SignatureTable oldTableIn(Path classes) throws Exception {
+    Path tableFile = Paths.get("p", SignatureTable.SIMPLE_NAME + ".class");
+    Path copy = classes.resolve(tableFile);
+    Files.copy(root.resolve("classes").resolve(tableFile), copy, StandardCopyOption.COPY_ATTRIBUTES);
+
+    FileTime compiled = Files.getLastModifiedTime(classes.resolve(Paths.get("p", "Handlers$Max.class")));
+    Files.setLastModifiedTime(copy, FileTime.fromMillis(compiled.toMillis() - 2000));
+
+    ClassLoader changedLoader = new URLClassLoader(new URL[] { classes.toUri().toURL() },
+      ConsSignatureProcessorTest.class.getClassLoader());
+    return (SignatureTable) changedLoader.loadClass("p." + SignatureTable.SIMPLE_NAME)
+      .getDeclaredConstructor().newInstance();
+  }
+
+  private static List<? extends Type> reflectively(Class<?> c, int index) {
+    return Types.from(Types.genericSuperclassOf(c).get(), index);
+  }
+
+  private static String classpathOf(Class<?>... classes) throws URISyntaxException, IOException {
+    StringBuilder result = new StringBuilder();
+
+    for (Class<?> c : classes) {
+      if (result.length() > 0) {
+        result.append(File.pathSeparator);
+      }
+
+      result.append(new File(c.getProtectionDomain().getCodeSource().getLocation().toURI()).getCanonicalPath());
+    }
+
+    return result.toString();
+  }
+}